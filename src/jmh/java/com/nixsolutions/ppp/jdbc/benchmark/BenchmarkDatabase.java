@@ -0,0 +1,85 @@
+package com.nixsolutions.ppp.jdbc.benchmark;
+
+import com.nixsolutions.ppp.jdbc.config.DataSourceFactory;
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+
+/**
+ * The {@code BenchmarkDatabase} seeds the in-memory H2 database the benchmarks run
+ * against. The schema itself is created by the migrations of {@code scripts/migrations}
+ * applied by {@code DataSourceFactory} as soon as the first connection is requested
+ */
+final class BenchmarkDatabase {
+
+    /**
+     * The JVM arguments of every benchmark fork. They point {@code DataSourceFactory}
+     * to a private in-memory database and size the heap and the pool for the
+     * largest data sets and thread counts
+     */
+    final static String HEAP = "-Xmx2g";
+
+    final static String IN_MEMORY_URL = "-Ddatabase.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1";
+
+    final static String POOL_SIZE = "-Ddatabase.pool.maxTotal=32";
+
+    final static String POOL_IDLE = "-Ddatabase.pool.maxIdle=32";
+
+    final static String LOGIN_PREFIX = "user";
+
+    private final static String SEED =
+            "INSERT INTO user (login, password, email, first_name, last_name, birthday, role_id) "
+                    + "SELECT '" + LOGIN_PREFIX + "' || X, 'password', '" + LOGIN_PREFIX
+                    + "' || X || '@example.com', 'First', 'Last', DATE '1990-01-01', 1 + MOD(X, 2) "
+                    + "FROM SYSTEM_RANGE(1, ?)";
+
+    private final static String CLEAN = "DELETE FROM user WHERE login LIKE '" + LOGIN_PREFIX + "%'";
+
+    private final static TransactionTemplate TEMPLATE = new JdbcTransactionTemplate();
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Removes all the seeded users and inserts {@code count} new ones with logins
+     * from {@code user1} to {@code user<count>}
+     *
+     * @param count the number of users to be seeded
+     */
+    static void seedUsers(int count) {
+        TEMPLATE.execute(BenchmarkDatabase::connection, session -> {
+            session.execute(CLEAN);
+            session.execute(SEED, count);
+        });
+    }
+
+    static void cleanUsers() {
+        TEMPLATE.execute(BenchmarkDatabase::connection, session -> session.execute(CLEAN));
+    }
+
+    static User newUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setPassword("password");
+        user.setEmail(login + "@example.com");
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setBirthday(Date.valueOf("1990-01-01"));
+        user.setRole(new Role(1L, "User"));
+        return user;
+    }
+
+    static Connection connection() {
+        try {
+            return DataSourceFactory.getInstance().getConnection();
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        }
+    }
+}
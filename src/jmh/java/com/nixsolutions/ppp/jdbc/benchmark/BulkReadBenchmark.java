@@ -0,0 +1,92 @@
+package com.nixsolutions.ppp.jdbc.benchmark;
+
+import com.nixsolutions.ppp.jdbc.dao.JdbcUserDao;
+import com.nixsolutions.ppp.jdbc.dao.Page;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.mapper.UserRowMapper;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reading the whole user table through {@link JdbcUserDao} and the session layer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkDatabase.HEAP, BenchmarkDatabase.IN_MEMORY_URL,
+        BenchmarkDatabase.POOL_SIZE, BenchmarkDatabase.POOL_IDLE})
+public class BulkReadBenchmark {
+
+    private final static String FIND_ALL =
+            "SELECT u.id, u.login, u.password, u.email, u.first_name, u.last_name, u.birthday, r.id, r.name "
+                    + "FROM user u LEFT JOIN role r ON u.role_id = r.id";
+
+    private final static int PAGE_SIZE = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private JdbcUserDao dao;
+
+    private TransactionTemplate template;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.seedUsers(rows);
+        template = new JdbcTransactionTemplate();
+        dao = new JdbcUserDao(template);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.cleanUsers();
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return dao.findAll();
+    }
+
+    @Benchmark
+    public void streamAll(Blackhole blackhole) {
+        try (Stream<User> users = dao.streamAll()) {
+            users.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void findPages(Blackhole blackhole) {
+        Long cursor = null;
+        do {
+            Page<User> page = dao.findPage(cursor, PAGE_SIZE);
+            blackhole.consume(page.getContent());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+
+    @Benchmark
+    public List<User> sessionQueryForList() {
+        return template.executeReadOnly(BenchmarkDatabase::connection,
+                session -> session.queryForList(FIND_ALL, new UserRowMapper()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.nixsolutions.ppp.jdbc.benchmark;
+
+import com.nixsolutions.ppp.jdbc.dao.JdbcUserDao;
+import com.nixsolutions.ppp.jdbc.dao.UserDao;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A read-mostly mix of lookups and updates running concurrently on the shared pool
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkDatabase.HEAP, BenchmarkDatabase.IN_MEMORY_URL,
+        BenchmarkDatabase.POOL_SIZE, BenchmarkDatabase.POOL_IDLE})
+public class ConcurrentAccessBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    private UserDao dao;
+
+    private List<User> users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.seedUsers(rows);
+        dao = new JdbcUserDao(new JdbcTransactionTemplate());
+        users = dao.findPage(null, 1000).getContent();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.cleanUsers();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public User read() {
+        return dao.findByLogin(BenchmarkDatabase.LOGIN_PREFIX + (ThreadLocalRandom.current().nextInt(rows) + 1));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void write() {
+        dao.update(users.get(ThreadLocalRandom.current().nextInt(users.size())));
+    }
+}
@@ -0,0 +1,116 @@
+package com.nixsolutions.ppp.jdbc.benchmark;
+
+import com.nixsolutions.ppp.jdbc.credential.HashingUserDao;
+import com.nixsolutions.ppp.jdbc.credential.PasswordHasher;
+import com.nixsolutions.ppp.jdbc.dao.JdbcUserDao;
+import com.nixsolutions.ppp.jdbc.dao.UserDao;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The cost of password hashing in {@link HashingUserDao} for several numbers of
+ * PBKDF2 iterations, zero meaning no hashing at all. The {@code mixed} group runs
+ * logins next to plain lookups to show that the bounded hashing pool leaves the
+ * lookups their share of the processors. The default cost can be measured with
+ * {@code -p iterations=600000}
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkDatabase.HEAP, BenchmarkDatabase.IN_MEMORY_URL,
+        BenchmarkDatabase.POOL_SIZE, BenchmarkDatabase.POOL_IDLE})
+public class PasswordHashingBenchmark {
+
+    private final static String PASSWORD = "password";
+
+    @Param({"0", "10000", "100000"})
+    private int iterations;
+
+    @Param({"10000"})
+    private int rows;
+
+    /**
+     * The number of seeded users logging in, their passwords are hashed in advance
+     */
+    @Param({"100"})
+    private int logins;
+
+    private UserDao dao;
+
+    private HashingUserDao hashingDao;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.seedUsers(rows);
+        dao = new JdbcUserDao(new JdbcTransactionTemplate());
+        if (iterations > 0) {
+            hashingDao = new HashingUserDao(dao, new PasswordHasher(iterations), 1024);
+            List<User> users = dao.findPage(null, logins).getContent();
+            hashingDao.updateAll(users);
+            dao = hashingDao;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.cleanUsers();
+    }
+
+    @Benchmark
+    @Group("create")
+    public void create() {
+        dao.create(BenchmarkDatabase.newUser(BenchmarkDatabase.LOGIN_PREFIX + "-new-" + sequence.incrementAndGet()));
+    }
+
+    @Benchmark
+    @Group("login")
+    public boolean login() {
+        return authenticate();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public boolean mixedLogin() {
+        return authenticate();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public User mixedRead() {
+        return dao.findByLogin(BenchmarkDatabase.LOGIN_PREFIX + (ThreadLocalRandom.current().nextInt(rows) + 1));
+    }
+
+    private boolean authenticate() {
+        String login = BenchmarkDatabase.LOGIN_PREFIX + (ThreadLocalRandom.current().nextInt(logins) + 1);
+        if (hashingDao == null) {
+            return dao.findByLogin(login).getPassword().equals(PASSWORD);
+        }
+        return hashingDao.authenticate(login, PASSWORD).isPresent();
+    }
+}
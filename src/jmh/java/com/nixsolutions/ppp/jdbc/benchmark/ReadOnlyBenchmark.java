@@ -0,0 +1,75 @@
+package com.nixsolutions.ppp.jdbc.benchmark;
+
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.mapper.UserRowMapper;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A lookup by login executed within a transaction versus the read-only mode of
+ * {@link TransactionTemplate}, which skips switching the auto-commit mode and committing
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkDatabase.HEAP, BenchmarkDatabase.IN_MEMORY_URL,
+        BenchmarkDatabase.POOL_SIZE, BenchmarkDatabase.POOL_IDLE})
+public class ReadOnlyBenchmark {
+
+    private final static String FIND_BY_LOGIN =
+            "SELECT u.id, u.login, u.password, u.email, u.first_name, u.last_name, u.birthday, r.id, r.name "
+                    + "FROM user u LEFT JOIN role r ON u.role_id = r.id WHERE u.login = ?";
+
+    @Param({"10000"})
+    private int rows;
+
+    private TransactionTemplate template;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.seedUsers(rows);
+        template = new JdbcTransactionTemplate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.cleanUsers();
+    }
+
+    @Benchmark
+    public Optional<User> transactional() {
+        String login = randomLogin();
+        return template.executeAndReturn(BenchmarkDatabase::connection,
+                session -> session.queryForObject(FIND_BY_LOGIN, new UserRowMapper(), login));
+    }
+
+    @Benchmark
+    public Optional<User> readOnly() {
+        String login = randomLogin();
+        return template.executeReadOnly(BenchmarkDatabase::connection,
+                session -> session.queryForObject(FIND_BY_LOGIN, new UserRowMapper(), login));
+    }
+
+    private String randomLogin() {
+        return BenchmarkDatabase.LOGIN_PREFIX + (ThreadLocalRandom.current().nextInt(rows) + 1);
+    }
+}
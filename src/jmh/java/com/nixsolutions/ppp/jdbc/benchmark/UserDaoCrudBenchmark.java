@@ -0,0 +1,79 @@
+package com.nixsolutions.ppp.jdbc.benchmark;
+
+import com.nixsolutions.ppp.jdbc.dao.JdbcUserDao;
+import com.nixsolutions.ppp.jdbc.dao.UserDao;
+import com.nixsolutions.ppp.jdbc.dao.ValidationMode;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-row operations of {@link JdbcUserDao} for every {@link ValidationMode}.
+ * Run with {@code -t N} to measure them under concurrent access from N threads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkDatabase.HEAP, BenchmarkDatabase.IN_MEMORY_URL,
+        BenchmarkDatabase.POOL_SIZE, BenchmarkDatabase.POOL_IDLE})
+public class UserDaoCrudBenchmark {
+
+    @Param({"SEPARATE_QUERIES", "SINGLE_QUERY", "CONSTRAINTS"})
+    private ValidationMode validationMode;
+
+    @Param({"10000"})
+    private int rows;
+
+    private UserDao dao;
+
+    private List<User> users;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.seedUsers(rows);
+        dao = new JdbcUserDao(new JdbcTransactionTemplate(), validationMode);
+        users = dao.findPage(null, 1000).getContent();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.cleanUsers();
+    }
+
+    @Benchmark
+    public void create() {
+        dao.create(BenchmarkDatabase.newUser(BenchmarkDatabase.LOGIN_PREFIX + "-new-" + sequence.incrementAndGet()));
+    }
+
+    @Benchmark
+    public void update() {
+        User user = users.get(ThreadLocalRandom.current().nextInt(users.size()));
+        dao.update(user);
+    }
+
+    @Benchmark
+    public User findByLogin() {
+        return dao.findByLogin(BenchmarkDatabase.LOGIN_PREFIX + (ThreadLocalRandom.current().nextInt(rows) + 1));
+    }
+}
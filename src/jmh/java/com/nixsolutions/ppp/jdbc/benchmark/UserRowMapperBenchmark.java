@@ -0,0 +1,74 @@
+package com.nixsolutions.ppp.jdbc.benchmark;
+
+import com.nixsolutions.ppp.jdbc.entity.GeneratedUserRowMapper;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.mapper.UserRowMapper;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.RowMapper;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping the whole user table by column labels, by resolved column indexes with
+ * interned roles and by the mapper generated from {@code @MappedEntity}. Run with
+ * {@code -prof gc} to compare the allocation rates
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {BenchmarkDatabase.HEAP, BenchmarkDatabase.IN_MEMORY_URL,
+        BenchmarkDatabase.POOL_SIZE, BenchmarkDatabase.POOL_IDLE})
+public class UserRowMapperBenchmark {
+
+    private final static String FIND_ALL =
+            "SELECT u.id, u.login, u.password, u.email, u.first_name, u.last_name, u.birthday, r.id, r.name "
+                    + "FROM user u LEFT JOIN role r ON u.role_id = r.id";
+
+    @Param({"BY_LABEL", "BY_INDEX", "GENERATED"})
+    private String mapper;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private TransactionTemplate template;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDatabase.seedUsers(rows);
+        template = new JdbcTransactionTemplate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkDatabase.cleanUsers();
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return template.executeReadOnly(BenchmarkDatabase::connection,
+                session -> session.queryForList(FIND_ALL, newMapper()));
+    }
+
+    private RowMapper<User> newMapper() {
+        return mapper.equals("GENERATED")
+                ? new GeneratedUserRowMapper()
+                : new UserRowMapper(UserRowMapper.Mode.valueOf(mapper));
+    }
+}
@@ -1,22 +1,34 @@
 package com.nixsolutions.ppp.jdbc;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.nixsolutions.ppp.jdbc.config.DataSourceFactory;
+import com.nixsolutions.ppp.jdbc.dao.JdbcRoleDao;
 import com.nixsolutions.ppp.jdbc.dao.JdbcUserDao;
 import com.nixsolutions.ppp.jdbc.dao.UserDao;
-import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exporter.UserJsonExporter;
 import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
 import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
 
+/**
+ * Prints all the users as JSON, or exports them into the file given as the first
+ * argument, compressed with gzip if the file name ends with {@code .gz}
+ */
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        DataSourceFactory.getInstance().initializeInBackground(JdbcUserDao.STATEMENTS, JdbcRoleDao.STATEMENTS);
         TransactionTemplate template = new JdbcTransactionTemplate();
         UserDao userDao = new JdbcUserDao(template);
-        List<User> all = userDao.findAll();
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        String json = gson.toJson(all);
-        System.out.printf("List of users: \n%s", json);
+        UserJsonExporter exporter = new UserJsonExporter(userDao);
+        if (args.length > 0) {
+            long count = exporter.export(Path.of(args[0]));
+            System.out.printf("Exported %d users into %s%n", count, args[0]);
+        } else {
+            exporter.setPrettyPrinting(true);
+            System.out.printf("List of users: %n");
+            exporter.export(System.out, false);
+            System.out.println();
+        }
     }
 }
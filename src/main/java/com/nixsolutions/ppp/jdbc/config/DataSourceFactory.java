@@ -1,20 +1,84 @@
 package com.nixsolutions.ppp.jdbc.config;
 
+import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+import com.nixsolutions.ppp.jdbc.tool.DatabaseExecutor;
+import com.nixsolutions.ppp.jdbc.tool.JdbcMetrics;
+import com.nixsolutions.ppp.jdbc.tool.SlowQueryLog;
+import com.nixsolutions.ppp.jdbc.tool.StatementCache;
+import com.nixsolutions.ppp.jdbc.tool.StatementSet;
 import org.apache.commons.dbcp2.BasicDataSource;
-import org.apache.ibatis.jdbc.ScriptRunner;
 
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class DataSourceFactory {
 
+    private final static Logger LOGGER = Logger.getLogger(DataSourceFactory.class.getName());
+
+    /**
+     * The time a warmed up connection has to answer the readiness check in
+     */
+    private final static int VALIDATION_TIMEOUT_SECONDS = 5;
+
+    private final static String FIND_SHARD_COUNT = "SELECT shard_count FROM shard_config WHERE id = 1";
+
+    private final static String RECORD_SHARD_COUNT = "INSERT INTO shard_config (id, shard_count) VALUES (1, ?)";
+
     private static volatile DataSourceFactory instance;
-    private DataSource dataSource;
+
+    /**
+     * The primary pool, published once the schemas are migrated
+     */
+    private volatile BasicDataSource dataSource;
+    private PoolMetrics poolMetrics;
+
+    /**
+     * Whether or not the last warm-up has found the primary and all the shards ready
+     */
+    private volatile boolean ready;
+
+    /**
+     * The pools of the read replicas, empty if all the reads go to the primary
+     */
+    private List<BasicDataSource> replicas = Collections.emptyList();
+    private List<PoolMetrics> replicaPoolMetrics = Collections.emptyList();
+    private ReplicaBalancing replicaBalancing = ReplicaBalancing.ROUND_ROBIN;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * The {@code System.nanoTime()} until which a replica which failed to give a
+     * connection is skipped, per replica
+     */
+    private AtomicLongArray replicaSkippedUntil = new AtomicLongArray(0);
+    private long replicaRetryNanos = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * The pools of the shards of the user table, empty if the table is not sharded
+     */
+    private List<BasicDataSource> shards = Collections.emptyList();
+    private List<PoolMetrics> shardPoolMetrics = Collections.emptyList();
 
     private DataSourceFactory() {
     }
@@ -30,45 +94,543 @@ public class DataSourceFactory {
         return instance;
     }
 
-    public void initializeDataSource() {
-        Properties properties = readProperties();
-        BasicDataSource dataSource = new BasicDataSource();
+    /**
+     * Initializes the pools, migrates the schemas and warms the pools up preparing
+     * the {@code statements} on a daemon thread, so the application goes on booting
+     * and the first requests do not pay for it. The operations requesting connections
+     * meanwhile wait for the initialization, but not for the warm-up
+     *
+     * @param statements the statements of the DAOs to be prepared on every connection
+     * @return the future completed with the time the initialization and the warm-up
+     * have taken, or failed with the exception thrown
+     * @see #warmUp(StatementSet...)
+     */
+    public CompletableFuture<Duration> initializeInBackground(StatementSet... statements) {
+        CompletableFuture<Duration> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                getDataSource();
+                warmUp(statements);
+                future.complete(Duration.ofNanos(System.nanoTime() - start));
+            } catch (RuntimeException exception) {
+                LOGGER.log(Level.SEVERE, "Database cannot be initialized", exception);
+                future.completeExceptionally(exception);
+            }
+        }, "database-initializer");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Creates the pools and applies the pending migrations to the primary database
+     * and the shards unless {@code database.schema.migrate} is false, then verifies
+     * the number of the shards. If the configuration is invalid or a migration or
+     * the verification fails, the pools are closed, so the next attempt creates
+     * them anew. Does nothing once the initialization has succeeded
+     *
+     * @throws IllegalArgumentException if a property has an invalid value
+     * @throws IllegalStateException    if a migration fails or the number of the shards
+     *                                  differs from the one recorded in the primary database
+     * @see #verifyShardCount(DataSource, int)
+     */
+    public synchronized void initializeDataSource() {
+        if (this.dataSource != null) {
+            return; // the pools and their JMX registrations would leak
+        }
+        long start = System.nanoTime();
+        DatabaseProperties properties = readProperties();
+        BasicDataSource dataSource = new StatementCachingDataSource();
         dataSource.setDriverClassName(properties.getProperty("database.driver"));
         dataSource.setUrl(properties.getProperty("database.url"));
         dataSource.setUsername(properties.getProperty("database.username"));
         dataSource.setPassword(properties.getProperty("database.password"));
+        int migrations = 0;
+        try {
+            configurePool(dataSource, properties);
+            configureSlowQueryLog(properties);
+            this.poolMetrics = new PoolMetrics(dataSource);
+            configureReplicas(properties);
+            configureShards(properties);
+            if (Boolean.parseBoolean(properties.getProperty("database.schema.migrate", "true"))) {
+                migrations = migrateSchemas(dataSource, properties);
+            }
+            if (!shards.isEmpty()) {
+                verifyShardCount(dataSource, shards.size());
+            }
+        } catch (RuntimeException exception) {
+            closePools(dataSource);
+            throw exception;
+        }
+        // registered once the initialization cannot fail, so a retry does not register it twice
+        properties.ifString("database.metrics.jmxName", JdbcMetrics.getInstance()::registerMBean);
         this.dataSource = dataSource;
-        this.initializeDatabaseSchema();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        int applied = migrations;
+        LOGGER.info(() -> String.format("Database is initialized in %d ms, %d migrations applied",
+                millis, applied));
+    }
+
+    /**
+     * Creates a pool per URL of the {@code database.replica.urls} property. The
+     * replicas share the driver, the credentials and the pool settings of the
+     * primary. The schema is not initialized on the replicas: they are expected
+     * to be kept in sync with the primary by the database
+     *
+     * @param properties the properties with all the overrides applied
+     */
+    private void configureReplicas(DatabaseProperties properties) {
+        String urls = properties.getProperty("database.replica.urls");
+        if (urls == null) {
+            return;
+        }
+        // parsed before the pools are created, so an invalid value leaks none of them
+        properties.ifString("database.replica.balancing",
+                value -> replicaBalancing = ReplicaBalancing.valueOf(value.toUpperCase(Locale.ROOT)));
+        properties.ifLong("database.replica.retryMillis",
+                value -> replicaRetryNanos = TimeUnit.MILLISECONDS.toNanos(value));
+        List<BasicDataSource> replicas = new ArrayList<>();
+        List<PoolMetrics> replicaPoolMetrics = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (url.isBlank()) {
+                continue;
+            }
+            BasicDataSource replica = createSecondaryPool(url.trim(), properties);
+            replica.setDefaultReadOnly(true);
+            replicas.add(replica);
+            replicaPoolMetrics.add(new PoolMetrics(replica));
+        }
+        this.replicaSkippedUntil = new AtomicLongArray(replicas.size());
+        this.replicas = Collections.unmodifiableList(replicas);
+        this.replicaPoolMetrics = Collections.unmodifiableList(replicaPoolMetrics);
+    }
+
+    /**
+     * Creates a pool per URL of the {@code database.shard.urls} property. The order
+     * of the URLs defines the numbers of the shards. The number of the shards cannot
+     * change once the users are spread over them, see {@link #verifyShardCount(DataSource, int)}
+     *
+     * @param properties the properties with all the overrides applied
+     */
+    private void configureShards(DatabaseProperties properties) {
+        String urls = properties.getProperty("database.shard.urls");
+        if (urls == null) {
+            return;
+        }
+        List<BasicDataSource> shards = new ArrayList<>();
+        List<PoolMetrics> shardPoolMetrics = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (!url.isBlank()) {
+                BasicDataSource shard = createSecondaryPool(url.trim(), properties);
+                shards.add(shard);
+                shardPoolMetrics.add(new PoolMetrics(shard));
+            }
+        }
+        this.shards = Collections.unmodifiableList(shards);
+        this.shardPoolMetrics = Collections.unmodifiableList(shardPoolMetrics);
+    }
+
+    /**
+     * Creates a pool of the {@code url} sharing the driver, the credentials and the
+     * pool settings of the primary
+     *
+     * @param url        the JDBC URL of the database
+     * @param properties the properties with all the overrides applied
+     * @return the new pool
+     */
+    private BasicDataSource createSecondaryPool(String url, DatabaseProperties properties) {
+        BasicDataSource dataSource = new StatementCachingDataSource();
+        dataSource.setDriverClassName(properties.getProperty("database.driver"));
+        dataSource.setUrl(url);
+        dataSource.setUsername(properties.getProperty("database.username"));
+        dataSource.setPassword(properties.getProperty("database.password"));
+        configurePool(dataSource, properties);
+        dataSource.setJmxName(null); // the name of the primary must stay unique
+        return dataSource;
     }
 
-    private Properties readProperties() {
+    /**
+     * Applies the {@code database.pool.*} properties to the pool. Properties which
+     * are not set keep the defaults of dbcp2
+     *
+     * @param dataSource the pool to be configured
+     * @param properties the properties with all the overrides applied
+     */
+    private void configurePool(BasicDataSource dataSource, DatabaseProperties properties) {
+        properties.ifInt("database.pool.initialSize", dataSource::setInitialSize);
+        properties.ifInt("database.pool.maxTotal", dataSource::setMaxTotal);
+        properties.ifInt("database.pool.maxIdle", dataSource::setMaxIdle);
+        properties.ifInt("database.pool.minIdle", dataSource::setMinIdle);
+        properties.ifLong("database.pool.maxWaitMillis", dataSource::setMaxWaitMillis);
+        properties.ifString("database.pool.validationQuery", dataSource::setValidationQuery);
+        properties.ifInt("database.pool.validationQueryTimeout", dataSource::setValidationQueryTimeout);
+        properties.ifBoolean("database.pool.testOnBorrow", dataSource::setTestOnBorrow);
+        properties.ifBoolean("database.pool.testWhileIdle", dataSource::setTestWhileIdle);
+        properties.ifLong("database.pool.timeBetweenEvictionRunsMillis", dataSource::setTimeBetweenEvictionRunsMillis);
+        properties.ifLong("database.pool.minEvictableIdleTimeMillis", dataSource::setMinEvictableIdleTimeMillis);
+        properties.ifInt("database.pool.numTestsPerEvictionRun", dataSource::setNumTestsPerEvictionRun);
+        properties.ifBoolean("database.pool.poolPreparedStatements", dataSource::setPoolPreparedStatements);
+        properties.ifInt("database.pool.maxOpenPreparedStatements", dataSource::setMaxOpenPreparedStatements);
+        properties.ifString("database.pool.jmxName", dataSource::setJmxName);
+        properties.ifInt("database.pool.statementCacheCapacity", StatementCache::setCapacity);
+    }
+
+    /**
+     * Applies the {@code database.slowQuery.*} properties to the slow query log
+     *
+     * @param properties the properties with all the overrides applied
+     */
+    private void configureSlowQueryLog(DatabaseProperties properties) {
+        SlowQueryLog slowQueryLog = SlowQueryLog.getInstance();
+        properties.ifLong("database.slowQuery.thresholdMillis", slowQueryLog::setThresholdMillis);
+        properties.ifDouble("database.slowQuery.sampleRate", slowQueryLog::setSampleRate);
+        properties.ifInt("database.slowQuery.topSize", slowQueryLog::setTopSize);
+    }
+
+    private DatabaseProperties readProperties() {
         ClassLoader loader = getClass().getClassLoader();
         try (InputStream inputStream = loader.getResourceAsStream("database.properties")) {
             Properties properties = new Properties();
             properties.load(inputStream);
-            return properties;
+            return new DatabaseProperties(properties, System.getenv(), System.getProperties());
         } catch (IOException exception) {
             throw new RuntimeException(exception);
         }
     }
 
-    @SuppressWarnings("ConstantConditions")
-    private void initializeDatabaseSchema() {
-        ClassLoader loader = getClass().getClassLoader();
-        try (InputStream stream = loader.getResourceAsStream("scripts/schema.sql");
-             Reader reader = new InputStreamReader(stream);
-             Connection connection = getDataSource().getConnection()) {
-            ScriptRunner runner = new ScriptRunner(connection);
-            runner.setLogWriter(null); // turn off logging of SQL script
-            runner.runScript(reader);
-        } catch (Exception exception) {
-            exception.printStackTrace();
+    /**
+     * Applies the pending migrations of {@code scripts/migrations} to the primary
+     * database and of {@code scripts/shard-migrations} to every shard. The lock of
+     * a database not refreshed for {@code database.schema.lockTimeoutMillis} is
+     * taken over
+     *
+     * @param dataSource the primary pool
+     * @param properties the properties with all the overrides applied
+     * @return the number of the migrations applied to all the databases
+     * @throws IllegalStateException if a migration fails
+     */
+    private int migrateSchemas(DataSource dataSource, DatabaseProperties properties) {
+        SchemaMigrator migrator = new SchemaMigrator("scripts/migrations");
+        SchemaMigrator shardMigrator = new SchemaMigrator("scripts/shard-migrations");
+        properties.ifLong("database.schema.lockTimeoutMillis", migrator::setLockTimeoutMillis);
+        properties.ifLong("database.schema.lockTimeoutMillis", shardMigrator::setLockTimeoutMillis);
+        try {
+            int migrations = migrator.migrate(dataSource);
+            for (BasicDataSource shard : shards) {
+                migrations += shardMigrator.migrate(shard);
+            }
+            return migrations;
+        } catch (SQLException | RuntimeException exception) {
+            throw new IllegalStateException("Database schema cannot be migrated", exception);
+        }
+    }
+
+    /**
+     * Records the number of the shards in the primary database on the first start
+     * and verifies it on the next ones. A user lives on the shard its login hashes to
+     * among this number of shards, so with another number about {@code 1/n} of the
+     * users would be looked up on wrong shards and their logins would no longer be
+     * unique. The users are not rebalanced, so the shards cannot be added or removed
+     *
+     * @param dataSource the primary database
+     * @param shardCount the number of the configured shards
+     * @throws IllegalStateException if another number of shards is recorded or the
+     *                               number cannot be read
+     */
+    static void verifyShardCount(DataSource dataSource, int shardCount) {
+        try (Connection connection = dataSource.getConnection()) {
+            Integer recorded = findShardCount(connection);
+            if (recorded == null) {
+                try (PreparedStatement statement = connection.prepareStatement(RECORD_SHARD_COUNT)) {
+                    statement.setInt(1, shardCount);
+                    statement.executeUpdate();
+                    return;
+                } catch (SQLException exception) {
+                    recorded = findShardCount(connection); // recorded by another instance meanwhile
+                    if (recorded == null) {
+                        throw exception;
+                    }
+                }
+            }
+            if (recorded != shardCount) {
+                throw new IllegalStateException(String.format("%d shards are configured, but the users "
+                        + "are spread over %d shards", shardCount, recorded));
+            }
+        } catch (SQLException exception) {
+            throw new IllegalStateException("Number of shards cannot be verified", exception);
+        }
+    }
+
+    private static Integer findShardCount(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(FIND_SHARD_COUNT)) {
+            return resultSet.next() ? resultSet.getInt(1) : null;
+        }
+    }
+
+    /**
+     * Closes the primary pool of a failed initialization and the pools of its
+     * replicas and shards, which also unregisters the pools from JMX
+     *
+     * @param dataSource the primary pool
+     */
+    private void closePools(BasicDataSource dataSource) {
+        List<BasicDataSource> pools = new ArrayList<>();
+        pools.add(dataSource);
+        pools.addAll(replicas);
+        pools.addAll(shards);
+        for (BasicDataSource pool : pools) {
+            try {
+                pool.close();
+            } catch (SQLException exception) {
+                LOGGER.log(Level.WARNING, "Pool of " + pool.getUrl() + " cannot be closed", exception);
+            }
+        }
+        this.replicas = Collections.emptyList();
+        this.replicaPoolMetrics = Collections.emptyList();
+        this.replicaSkippedUntil = new AtomicLongArray(0);
+        this.shards = Collections.emptyList();
+        this.shardPoolMetrics = Collections.emptyList();
+    }
+
+    /**
+     * Warms up every pool, so the first requests after a restart do not pay for
+     * connecting and preparing statements: opens as many connections of the pool
+     * as {@code database.pool.minIdle} or {@code database.pool.initialSize} (at
+     * least one) in parallel, prepares the {@code statements} on each of them and
+     * checks that each answers. The connections stay idle in the pool afterwards.
+     * A replica failing the check is skipped by the reads for
+     * {@code database.replica.retryMillis}, while the primary database or a shard
+     * failing it leaves the factory not ready
+     *
+     * @param statements the statements of the DAOs to be prepared on every connection
+     * @return {@code true} if the primary database and all the shards are ready
+     * @see #isReady()
+     */
+    public boolean warmUp(StatementSet... statements) {
+        getDataSource();
+        long start = System.nanoTime();
+        boolean ready = warmUp(dataSource, statements);
+        for (int replica = 0; replica < replicas.size(); replica++) {
+            if (!warmUp(replicas.get(replica), statements)) {
+                replicaSkippedUntil.set(replica, System.nanoTime() + replicaRetryNanos);
+            }
+        }
+        for (BasicDataSource shard : shards) {
+            ready &= warmUp(shard, statements);
+        }
+        this.ready = ready;
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        String state = ready ? "ready" : "not ready";
+        LOGGER.info(() -> String.format("Pools are warmed up in %d ms, %s", millis, state));
+        return ready;
+    }
+
+    /**
+     * Returns whether or not the last warm-up has found the primary database and all
+     * the shards answering, e.g. for the readiness probe of the application
+     *
+     * @return {@code true} if the pools have been warmed up successfully
+     * @see #warmUp(StatementSet...)
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    private boolean warmUp(BasicDataSource pool, StatementSet[] statements) {
+        int size = Math.max(1, Math.max(pool.getMinIdle(), pool.getInitialSize()));
+        if (pool.getMaxTotal() > 0) {
+            size = Math.min(size, pool.getMaxTotal());
+        }
+        List<Connection> connections = new ArrayList<>();
+        boolean ready = true;
+        // every task holds its connection until all of them are open, so they are distinct
+        try (DatabaseExecutor executor = DatabaseExecutor.bounded(size, 0)) {
+            List<CompletableFuture<Connection>> futures = IntStream.range(0, size)
+                    .mapToObj(task -> executor.submit(() -> openWarm(pool, statements)))
+                    .collect(Collectors.toList());
+            for (CompletableFuture<Connection> future : futures) {
+                try {
+                    connections.add(future.join());
+                } catch (CompletionException exception) {
+                    LOGGER.log(Level.WARNING, "Connection to " + pool.getUrl() + " cannot be warmed up",
+                            exception.getCause());
+                    ready = false;
+                }
+            }
+        }
+        for (Connection connection : connections) {
+            try {
+                connection.close(); // returns the connection into the pool
+            } catch (SQLException exception) {
+                ready = false;
+            }
+        }
+        return ready;
+    }
+
+    private Connection openWarm(BasicDataSource pool, StatementSet[] statements) {
+        try {
+            Connection connection = pool.getConnection();
+            try {
+                for (StatementSet statementSet : statements) {
+                    statementSet.prepareOn(connection);
+                }
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    throw new SQLException("Connection to " + pool.getUrl() + " does not answer");
+                }
+                return connection;
+            } catch (SQLException | RuntimeException exception) {
+                connection.close();
+                throw exception;
+            }
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        }
+    }
+
+    /**
+     * Borrows a connection from the pool recording the time spent waiting for it
+     *
+     * @return the connection borrowed from the pool
+     * @throws SQLException if the connection cannot be borrowed
+     * @see #getPoolMetrics()
+     */
+    public Connection getConnection() throws SQLException {
+        DataSource dataSource = getDataSource();
+        return borrow(dataSource, poolMetrics);
+    }
+
+    /**
+     * Borrows a connection to run queries which need not see the latest writes.
+     * It is taken from a read replica chosen according to the
+     * {@code database.replica.balancing} property, or from the primary if there
+     * are no replicas or none of them is available. A replica which fails to give
+     * a connection is skipped for {@code database.replica.retryMillis}. Reads within a transaction
+     * must use the connection of the transaction instead, so they see its writes
+     *
+     * @return the read-only connection borrowed from a replica or the primary
+     * @throws SQLException if no connection can be borrowed
+     * @see ReplicaBalancing
+     */
+    public Connection getReadOnlyConnection() throws SQLException {
+        getDataSource();
+        if (replicas.isEmpty()) {
+            return getConnection();
+        }
+        int index = chooseReplica();
+        if (index < 0) {
+            return getConnection();
+        }
+        try {
+            return borrow(replicas.get(index), replicaPoolMetrics.get(index));
+        } catch (SQLException exception) {
+            replicaSkippedUntil.set(index, System.nanoTime() + replicaRetryNanos);
+            LOGGER.log(Level.WARNING, "Replica " + replicas.get(index).getUrl()
+                    + " is unavailable, reading from the primary", exception);
+            return getConnection();
         }
     }
 
+    /**
+     * Chooses a replica among the available ones starting from the next one in turn
+     *
+     * @return the index of the replica or {@code -1} if none of them is available
+     */
+    private int chooseReplica() {
+        int first = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        long now = System.nanoTime();
+        int chosen = -1;
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (first + i) % replicas.size();
+            if (replicaSkippedUntil.get(index) - now > 0) {
+                continue;
+            }
+            if (replicaBalancing == ReplicaBalancing.ROUND_ROBIN) {
+                return index;
+            }
+            if (chosen < 0 || replicas.get(index).getNumActive() < replicas.get(chosen).getNumActive()) {
+                chosen = index;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * Returns the number of the shards of the user table
+     *
+     * @return the number of the shards, zero if the table is not sharded
+     */
+    public int getShardCount() {
+        getDataSource();
+        return shards.size();
+    }
+
+    /**
+     * Borrows a connection to the {@code shard} recording the time spent waiting for it
+     *
+     * @param shard the number of the shard in the {@code database.shard.urls} property
+     * @return the connection borrowed from the pool of the {@code shard}
+     * @throws IndexOutOfBoundsException if there is no such shard
+     * @throws SQLException              if the connection cannot be borrowed
+     */
+    public Connection getShardConnection(int shard) throws SQLException {
+        getDataSource();
+        Objects.checkIndex(shard, shards.size());
+        return borrow(shards.get(shard), shardPoolMetrics.get(shard));
+    }
+
+    private Connection borrow(DataSource dataSource, PoolMetrics metrics) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            Connection connection = dataSource.getConnection();
+            long nanos = System.nanoTime() - start;
+            metrics.recordBorrow(nanos);
+            JdbcMetrics.getInstance().recordBorrow(nanos, false);
+            return connection;
+        } catch (SQLException exception) {
+            long nanos = System.nanoTime() - start;
+            metrics.recordBorrowFailure(nanos);
+            JdbcMetrics.getInstance().recordBorrow(nanos, true);
+            throw exception;
+        }
+    }
+
+    public PoolMetrics getPoolMetrics() {
+        getDataSource();
+        return poolMetrics;
+    }
+
+    /**
+     * Returns the metrics of the pools of the read replicas in the order of the
+     * {@code database.replica.urls} property
+     *
+     * @return the metrics of the replica pools, empty if there are no replicas
+     */
+    public List<PoolMetrics> getReplicaPoolMetrics() {
+        getDataSource();
+        return replicaPoolMetrics;
+    }
+
+    /**
+     * Returns the metrics of the pools of the shards in the order of the
+     * {@code database.shard.urls} property
+     *
+     * @return the metrics of the shard pools, empty if there are no shards
+     */
+    public List<PoolMetrics> getShardPoolMetrics() {
+        getDataSource();
+        return shardPoolMetrics;
+    }
+
     public DataSource getDataSource() {
         if (dataSource == null) {
-            initializeDataSource();
+            synchronized (this) {
+                if (dataSource == null) {
+                    initializeDataSource();
+                }
+            }
         }
         return dataSource;
     }
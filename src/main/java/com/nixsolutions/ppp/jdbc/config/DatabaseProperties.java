@@ -0,0 +1,78 @@
+package com.nixsolutions.ppp.jdbc.config;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * The {@code DatabaseProperties} resolves the properties of {@code database.properties}.
+ * Any property, including the ones absent in the file, may be overridden with an
+ * environment variable named after the property in upper case with dots replaced
+ * by underscores ({@code database.pool.maxTotal} is overridden by
+ * {@code DATABASE_POOL_MAXTOTAL}) or with a system property of the same name,
+ * the latter taking precedence
+ */
+class DatabaseProperties {
+
+    private final Properties file;
+
+    private final Map<String, String> environment;
+
+    private final Properties system;
+
+    DatabaseProperties(Properties file, Map<String, String> environment, Properties system) {
+        this.file = Objects.requireNonNull(file);
+        this.environment = Objects.requireNonNull(environment);
+        this.system = Objects.requireNonNull(system);
+    }
+
+    /**
+     * Returns the value of the property with all the overrides applied
+     *
+     * @param key the key of the property
+     * @return the value of the property or {@code null} if it is not set
+     */
+    String getProperty(String key) {
+        String value = system.getProperty(key);
+        if (value == null) {
+            value = environment.get(key.replace('.', '_').toUpperCase(Locale.ROOT));
+        }
+        if (value == null) {
+            value = file.getProperty(key);
+        }
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    String getProperty(String key, String defaultValue) {
+        String value = getProperty(key);
+        return value == null ? defaultValue : value;
+    }
+
+    void ifString(String key, Consumer<String> setter) {
+        String value = getProperty(key);
+        if (value != null) {
+            setter.accept(value);
+        }
+    }
+
+    void ifInt(String key, IntConsumer setter) {
+        ifString(key, value -> setter.accept(Integer.parseInt(value)));
+    }
+
+    void ifLong(String key, LongConsumer setter) {
+        ifString(key, value -> setter.accept(Long.parseLong(value)));
+    }
+
+    void ifDouble(String key, DoubleConsumer setter) {
+        ifString(key, value -> setter.accept(Double.parseDouble(value)));
+    }
+
+    void ifBoolean(String key, Consumer<Boolean> setter) {
+        ifString(key, value -> setter.accept(Boolean.parseBoolean(value)));
+    }
+}
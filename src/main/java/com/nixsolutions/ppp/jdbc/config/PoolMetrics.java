@@ -0,0 +1,104 @@
+package com.nixsolutions.ppp.jdbc.config;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code PoolMetrics} exposes the live state of the connection pool together
+ * with the statistics of borrowing connections from it
+ *
+ * @see DataSourceFactory#getConnection()
+ */
+public class PoolMetrics {
+
+    private final BasicDataSource dataSource;
+
+    private final LongAdder borrowCount = new LongAdder();
+
+    private final LongAdder borrowFailureCount = new LongAdder();
+
+    private final LongAdder borrowWaitNanos = new LongAdder();
+
+    private final LongAccumulator maxBorrowWaitNanos = new LongAccumulator(Math::max, 0);
+
+    PoolMetrics(BasicDataSource dataSource) {
+        this.dataSource = Objects.requireNonNull(dataSource);
+    }
+
+    void recordBorrow(long waitNanos) {
+        borrowCount.increment();
+        recordWait(waitNanos);
+    }
+
+    void recordBorrowFailure(long waitNanos) {
+        borrowFailureCount.increment();
+        recordWait(waitNanos);
+    }
+
+    /**
+     * Returns the number of connections currently borrowed from the pool
+     *
+     * @return the number of active connections
+     */
+    public int getActiveCount() {
+        return dataSource.getNumActive();
+    }
+
+    /**
+     * Returns the number of connections currently waiting in the pool to be borrowed
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleCount() {
+        return dataSource.getNumIdle();
+    }
+
+    public int getMaxTotal() {
+        return dataSource.getMaxTotal();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    /**
+     * Returns the number of attempts to borrow a connection which failed, e.g.
+     * because the pool was exhausted for longer than {@code maxWaitMillis}
+     *
+     * @return the number of failed attempts to borrow a connection
+     */
+    public long getBorrowFailureCount() {
+        return borrowFailureCount.sum();
+    }
+
+    public double getAverageBorrowWaitMillis() {
+        long attempts = getBorrowCount() + getBorrowFailureCount();
+        return attempts == 0 ? 0 : toMillis(borrowWaitNanos.sum()) / attempts;
+    }
+
+    public double getMaxBorrowWaitMillis() {
+        return toMillis(maxBorrowWaitNanos.get());
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowWaitNanos.add(waitNanos);
+        maxBorrowWaitNanos.accumulate(waitNanos);
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics{" + "active=" + getActiveCount() + ", idle=" + getIdleCount()
+                + ", maxTotal=" + getMaxTotal() + ", borrows=" + getBorrowCount()
+                + ", borrowFailures=" + getBorrowFailureCount()
+                + ", averageBorrowWaitMillis=" + getAverageBorrowWaitMillis()
+                + ", maxBorrowWaitMillis=" + getMaxBorrowWaitMillis() + '}';
+    }
+}
@@ -0,0 +1,18 @@
+package com.nixsolutions.ppp.jdbc.config;
+
+/**
+ * The way {@link DataSourceFactory#getReadOnlyConnection()} chooses a read replica
+ */
+public enum ReplicaBalancing {
+
+    /**
+     * The replicas are used in turn
+     */
+    ROUND_ROBIN,
+
+    /**
+     * The replica with the fewest borrowed connections is used, the ties are
+     * broken in turn
+     */
+    LEAST_CONNECTIONS
+}
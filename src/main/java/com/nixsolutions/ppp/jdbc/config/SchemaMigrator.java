@@ -0,0 +1,402 @@
+package com.nixsolutions.ppp.jdbc.config;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.ibatis.jdbc.ScriptRunner;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code SchemaMigrator} brings the schema of a database up to date. The
+ * migrations are the scripts listed in the {@code index.txt} resource of the
+ * location in the order of their versions, named {@code V<version>__<description>.sql}.
+ * Every migration applied is recorded in the {@code schema_history} table with the
+ * checksum of its script, so it is skipped later on. A script must not be changed
+ * once applied: a migration is added instead, and a changed checksum fails the
+ * migration of the database. The history is read and the migrations are applied
+ * while holding the lock of the database, the only row of the {@code schema_lock}
+ * table, so the instances booting at once migrate a database one after another
+ * and every migration is applied once. The holder refreshes the time of the row
+ * after every migration, and a row older than the lock timeout is taken to be left
+ * by an instance killed while migrating: it is taken over, so the lock expires on
+ * its own. The timeout has to exceed the longest migration. The table is created
+ * only if it is missing, as H2 may corrupt a table created concurrently with its
+ * use, so the instances booting at once are serialized once the database has been
+ * migrated by one of them, e.g. when a new version adds migrations.
+ * <p>
+ * The times of the lock are taken from the clocks of the instances in whole seconds
+ * of UTC, so the clocks must not drift apart by a considerable part of the timeout.
+ * An instance migrates one database at a time
+ */
+class SchemaMigrator {
+
+    private final static Logger LOGGER = Logger.getLogger(SchemaMigrator.class.getName());
+
+    private final static String CREATE_HISTORY =
+            "CREATE TABLE IF NOT EXISTS schema_history (version INT PRIMARY KEY, "
+                    + "description VARCHAR(200) NOT NULL, checksum CHAR(64) NOT NULL, "
+                    + "installed_on TIMESTAMP NOT NULL, execution_millis BIGINT NOT NULL)";
+
+    private final static String LOCK_TABLE = "schema_lock";
+
+    private final static String CREATE_LOCK =
+            "CREATE TABLE IF NOT EXISTS schema_lock (id INT PRIMARY KEY, locked_on TIMESTAMP NOT NULL)";
+
+    private final static String LOCK = "INSERT INTO schema_lock (id, locked_on) VALUES (1, ?)";
+
+    private final static String REFRESH = "UPDATE schema_lock SET locked_on = ? WHERE id = 1 AND locked_on = ?";
+
+    private final static String RELEASE_STALE = "DELETE FROM schema_lock WHERE id = 1 AND locked_on < ?";
+
+    private final static String UNLOCK = "DELETE FROM schema_lock WHERE id = 1 AND locked_on = ?";
+
+    /**
+     * The default time after which the lock not refreshed by its holder is taken over
+     */
+    final static long DEFAULT_LOCK_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The {@code SQLSTATE} of a violation of a {@code UNIQUE} or {@code PRIMARY KEY} constraint
+     */
+    private final static String UNIQUE_VIOLATION = "23505";
+
+    /**
+     * The time to wait for another instance to finish migrating the database in
+     * addition to the lock timeout
+     */
+    private final static long LOCK_WAIT_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    /**
+     * The interval between the attempts to take the lock held by another instance
+     */
+    private final static long LOCK_POLL_MILLIS = 500;
+
+    private final static String FIND_APPLIED = "SELECT version, checksum FROM schema_history";
+
+    private final static String RECORD =
+            "INSERT INTO schema_history (version, description, checksum, installed_on, execution_millis) "
+                    + "VALUES (?, ?, ?, CURRENT_TIMESTAMP, ?)";
+
+    private final static Pattern NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    /**
+     * The resource directory of the migrations, e.g. {@code scripts/migrations}
+     */
+    private final String location;
+
+    private long lockTimeoutMillis = DEFAULT_LOCK_TIMEOUT_MILLIS;
+
+    /**
+     * The time of the row of the {@code schema_lock} table written by this instance,
+     * which identifies the lock while it is held
+     */
+    private Timestamp lockedOn;
+
+    SchemaMigrator(String location) {
+        this.location = Objects.requireNonNull(location);
+    }
+
+    /**
+     * Sets the time after which the lock of another instance is taken to be stale
+     * and is taken over. It has to exceed the time the longest migration takes
+     *
+     * @param lockTimeoutMillis the lock timeout in milliseconds
+     * @throws IllegalArgumentException if the {@code lockTimeoutMillis} is not positive
+     */
+    void setLockTimeoutMillis(long lockTimeoutMillis) {
+        if (lockTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Lock timeout must be positive");
+        }
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    /**
+     * Applies the migrations which have not been applied to the database yet
+     *
+     * @param dataSource the database to be migrated
+     * @return the number of the migrations applied
+     * @throws IllegalStateException if a migration cannot be read or has been
+     *                               changed since it was applied, or the lock has
+     *                               been taken over by another instance
+     * @throws SQLException          if a migration fails
+     */
+    int migrate(DataSource dataSource) throws SQLException {
+        List<Migration> migrations = readMigrations();
+        try (Connection connection = dataSource.getConnection()) {
+            lock(connection);
+            try {
+                return migrate(connection, migrations);
+            } finally {
+                unlock(connection);
+            }
+        }
+    }
+
+    private int migrate(Connection connection, List<Migration> migrations) throws SQLException {
+        Map<Integer, String> applied = findApplied(connection);
+        int count = 0;
+        for (Migration migration : migrations) {
+            String checksum = applied.get(migration.version);
+            if (checksum == null) {
+                apply(connection, migration);
+                refreshLock(connection);
+                count++;
+            } else if (!checksum.equals(migration.checksum)) {
+                throw new IllegalStateException("Migration " + migration.name + " of " + location
+                        + " has been changed since it was applied");
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Takes the lock of the database inserting the row of the {@code schema_lock}
+     * table, waiting while another instance holds it. A row older than the lock
+     * timeout is deleted, so the lock of a killed instance is taken over
+     *
+     * @param connection the connection to the database to be migrated
+     * @throws IllegalStateException if the lock is not released in time
+     * @throws SQLException          if the lock cannot be taken
+     */
+    private void lock(Connection connection) throws SQLException {
+        long deadline = System.nanoTime() + LOCK_WAIT_NANOS + TimeUnit.MILLISECONDS.toNanos(lockTimeoutMillis);
+        if (!hasTable(connection, LOCK_TABLE)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_LOCK);
+            }
+        }
+        while (true) {
+            Timestamp now = now();
+            try (PreparedStatement statement = connection.prepareStatement(LOCK)) {
+                statement.setTimestamp(1, now, utc());
+                statement.executeUpdate();
+                commit(connection);
+                lockedOn = now;
+                return;
+            } catch (SQLException exception) {
+                if (!UNIQUE_VIOLATION.equals(exception.getSQLState())) {
+                    throw exception;
+                }
+            }
+            if (releaseStaleLock(connection)) {
+                LOGGER.warning(() -> "Took over the schema lock of " + location + " not refreshed for "
+                        + lockTimeoutMillis + " ms");
+                continue;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("Schema of " + location + " is locked by another instance");
+            }
+            LOGGER.info(() -> "Waiting for another instance to migrate " + location);
+            pause();
+        }
+    }
+
+    /**
+     * Deletes the row of the {@code schema_lock} table if it has not been refreshed
+     * for the lock timeout
+     *
+     * @return {@code true} if the row has been deleted
+     */
+    private boolean releaseStaleLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(RELEASE_STALE)) {
+            statement.setTimestamp(1, Timestamp.from(Instant.now().minusMillis(lockTimeoutMillis)), utc());
+            int deleted = statement.executeUpdate();
+            commit(connection);
+            return deleted > 0;
+        }
+    }
+
+    /**
+     * Moves the time of the lock held by this instance to the current second, so
+     * the other instances do not take it over while the migrations go on
+     *
+     * @throws IllegalStateException if the lock has been taken over by another instance
+     */
+    private void refreshLock(Connection connection) throws SQLException {
+        Timestamp now = now();
+        if (now.equals(lockedOn)) {
+            return; // some databases count only the rows actually changed
+        }
+        try (PreparedStatement statement = connection.prepareStatement(REFRESH)) {
+            statement.setTimestamp(1, now, utc());
+            statement.setTimestamp(2, lockedOn, utc());
+            if (statement.executeUpdate() == 0) {
+                throw new IllegalStateException("Schema lock of " + location + " has been taken over by "
+                        + "another instance, the lock timeout is shorter than a migration");
+            }
+        }
+        commit(connection);
+        lockedOn = now;
+    }
+
+    private static Timestamp now() {
+        return Timestamp.from(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Returns the calendar the times of the lock are written and compared in, so
+     * they do not depend on the time zones of the instances
+     */
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+
+    private static boolean hasTable(Connection connection, String name) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        if (metaData.storesUpperCaseIdentifiers()) {
+            name = name.toUpperCase(Locale.ROOT);
+        } else if (metaData.storesLowerCaseIdentifiers()) {
+            name = name.toLowerCase(Locale.ROOT);
+        }
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(), name, null)) {
+            return tables.next();
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.rollback(); // the failed migration, if any
+        }
+        try (PreparedStatement statement = connection.prepareStatement(UNLOCK)) {
+            statement.setTimestamp(1, lockedOn, utc());
+            statement.executeUpdate(); // nothing is deleted if the lock has been taken over
+        }
+        commit(connection);
+        lockedOn = null;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(LOCK_POLL_MILLIS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the schema lock of " + location, exception);
+        }
+    }
+
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    private Map<Integer, String> findApplied(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_HISTORY);
+            try (ResultSet resultSet = statement.executeQuery(FIND_APPLIED)) {
+                while (resultSet.next()) {
+                    applied.put(resultSet.getInt(1), resultSet.getString(2));
+                }
+            }
+        }
+        return applied;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        ScriptRunner runner = new ScriptRunner(connection);
+        runner.setLogWriter(null); // turn off logging of SQL script
+        runner.setStopOnError(true);
+        runner.runScript(new StringReader(migration.script));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        try (PreparedStatement statement = connection.prepareStatement(RECORD)) {
+            statement.setInt(1, migration.version);
+            statement.setString(2, migration.description);
+            statement.setString(3, migration.checksum);
+            statement.setLong(4, millis);
+            statement.executeUpdate();
+        }
+        commit(connection);
+        LOGGER.info(() -> String.format("Applied migration %s in %d ms", migration.name, millis));
+    }
+
+    private List<Migration> readMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        for (String line : readLines(location + "/index.txt")) {
+            String name = line.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Matcher matcher = NAME.matcher(name);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Migration " + name + " is not named V<version>__<description>.sql");
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (!migrations.isEmpty() && migrations.get(migrations.size() - 1).version >= version) {
+                throw new IllegalStateException("Migration " + name + " is out of order");
+            }
+            String script = String.join("\n", readLines(location + "/" + name));
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), name, script));
+        }
+        return migrations;
+    }
+
+    private List<String> readLines(String resource) {
+        InputStream stream = getClass().getClassLoader().getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IllegalStateException("Resource " + resource + " is not found");
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException exception) {
+            throw new IllegalStateException("Resource " + resource + " cannot be read", exception);
+        }
+        return lines;
+    }
+
+    private static class Migration {
+
+        private final int version;
+
+        private final String description;
+
+        private final String name;
+
+        private final String script;
+
+        /**
+         * The SHA-256 of the script with the line separators normalized, so the
+         * checksum does not depend on the platform the script has been checked out on
+         */
+        private final String checksum;
+
+        private Migration(int version, String description, String name, String script) {
+            this.version = version;
+            this.description = description;
+            this.name = name;
+            this.script = script;
+            this.checksum = DigestUtils.sha256Hex(script);
+        }
+    }
+}
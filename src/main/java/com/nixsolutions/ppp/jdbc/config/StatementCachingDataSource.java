@@ -0,0 +1,25 @@
+package com.nixsolutions.ppp.jdbc.config;
+
+import com.nixsolutions.ppp.jdbc.tool.StatementCache;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.ConnectionFactory;
+
+import java.sql.SQLException;
+
+/**
+ * The {@code StatementCachingDataSource} is the pool attaching a {@link StatementCache}
+ * to every physical connection it opens, so the cache is discarded together with the
+ * connection. If {@code poolPreparedStatements} is enabled, dbcp2 pools the statements
+ * itself and no cache is attached
+ */
+class StatementCachingDataSource extends BasicDataSource {
+
+    @Override
+    protected ConnectionFactory createConnectionFactory() throws SQLException {
+        ConnectionFactory connectionFactory = super.createConnectionFactory();
+        if (isPoolPreparedStatements()) {
+            return connectionFactory;
+        }
+        return () -> StatementCache.attachTo(connectionFactory.createConnection());
+    }
+}
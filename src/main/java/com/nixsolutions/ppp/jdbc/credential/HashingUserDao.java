@@ -0,0 +1,257 @@
+package com.nixsolutions.ppp.jdbc.credential;
+
+import com.nixsolutions.ppp.jdbc.dao.Page;
+import com.nixsolutions.ppp.jdbc.dao.UserDao;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.UserNotFoundException;
+import com.nixsolutions.ppp.jdbc.tool.DatabaseExecutor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * The {@code HashingUserDao} hashes the passwords of the users written through
+ * another {@code UserDao} and verifies them on {@link #authenticate(String, String)}.
+ * Hashing is CPU-bound and slow by design, so it runs on a separate bounded pool of
+ * workers, usually one per processor, and always before the delegate borrows a
+ * connection: a burst of logins neither starves the other requests of processors
+ * nor holds connections while hashing. When the pool and its queue are full, the
+ * operations fail with {@code RejectedExecutionException}.
+ * <p>
+ * The password of a written user is replaced with its hash. A password which is
+ * already a hash, e.g. of an exported user, is written as is. The users read
+ * through this DAO carry the hashes
+ */
+public class HashingUserDao implements UserDao {
+
+    private final static Logger LOGGER = Logger.getLogger(HashingUserDao.class.getName());
+
+    private final UserDao delegate;
+
+    private final PasswordHasher hasher;
+
+    private final DatabaseExecutor workers;
+
+    /**
+     * The number of tasks the passwords of a bulk operation are hashed in
+     */
+    private final int parallelism;
+
+    /**
+     * The hash verified when the login is unknown, so the response time does not
+     * tell whether or not the user exists. Computed on first use
+     */
+    private volatile String unknownUserHash;
+
+    /**
+     * Constructs a new instance hashing with a pool of one worker per processor
+     * which admits up to {@code queueCapacity} waiting tasks. The workers are
+     * daemon threads living as long as the application
+     *
+     * @param delegate      the DAO used to read and write users
+     * @param hasher        the hasher defining the cost of new hashes
+     * @param queueCapacity the maximum number of hashing tasks waiting for a worker
+     * @throws NullPointerException     if the {@code delegate} or {@code hasher} is null
+     * @throws IllegalArgumentException if the {@code queueCapacity} is negative
+     */
+    public HashingUserDao(UserDao delegate, PasswordHasher hasher, int queueCapacity) {
+        this(delegate, hasher, DatabaseExecutor.bounded(Runtime.getRuntime().availableProcessors(),
+                queueCapacity), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new instance hashing on the {@code workers}
+     *
+     * @param delegate    the DAO used to read and write users
+     * @param hasher      the hasher defining the cost of new hashes
+     * @param workers     the executor the passwords are hashed and verified on
+     * @param parallelism the number of tasks the passwords of a bulk operation are
+     *                    hashed in, usually the concurrency of the {@code workers}
+     * @throws NullPointerException     if any of the objects is null
+     * @throws IllegalArgumentException if the {@code parallelism} is not positive
+     */
+    public HashingUserDao(UserDao delegate, PasswordHasher hasher, DatabaseExecutor workers,
+            int parallelism) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.hasher = Objects.requireNonNull(hasher);
+        this.workers = Objects.requireNonNull(workers);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Finds the user by the {@code login} and verifies the {@code password}. If
+     * the stored hash has been made with another cost or the stored password is
+     * plain text, it is replaced with a hash of the current cost
+     *
+     * @param login    the login of the user
+     * @param password the password to be verified
+     * @return the authenticated user or an empty {@code Optional} if the login is
+     * unknown or the password is wrong
+     * @throws NullPointerException if any of the arguments is null
+     * @throws java.util.concurrent.RejectedExecutionException if the workers are saturated
+     * @throws com.nixsolutions.ppp.jdbc.exception.CustomSqlException if any SQL error occurs
+     */
+    public Optional<User> authenticate(String login, String password) {
+        Objects.requireNonNull(login);
+        Objects.requireNonNull(password);
+        User user;
+        try {
+            user = delegate.findByLogin(login);
+        } catch (UserNotFoundException exception) {
+            user = null;
+        }
+        String stored = user == null ? unknownUserHash() : user.getPassword();
+        if (!await(workers.submit(() -> hasher.verify(password, stored))) || user == null) {
+            return Optional.empty();
+        }
+        if (hasher.needsRehash(stored)) {
+            rehash(user, password);
+        }
+        return Optional.of(user);
+    }
+
+    @Override
+    public void create(User user) {
+        hashPasswords(List.of(user));
+        delegate.create(user);
+    }
+
+    @Override
+    public void update(User user) {
+        hashPasswords(List.of(user));
+        delegate.update(user);
+    }
+
+    @Override
+    public void remove(User user) {
+        delegate.remove(user);
+    }
+
+    @Override
+    public List<Long> createAll(Collection<User> users) {
+        hashPasswords(users);
+        return delegate.createAll(users);
+    }
+
+    @Override
+    public void updateAll(Collection<User> users) {
+        hashPasswords(users);
+        delegate.updateAll(users);
+    }
+
+    @Override
+    public void removeAll(Collection<User> users) {
+        delegate.removeAll(users);
+    }
+
+    @Override
+    public void upsert(User user) {
+        hashPasswords(List.of(user));
+        delegate.upsert(user);
+    }
+
+    @Override
+    public List<Long> upsertAll(Collection<User> users) {
+        hashPasswords(users);
+        return delegate.upsertAll(users);
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Page<User> findPage(Long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public User findByLogin(String login) {
+        return delegate.findByLogin(login);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    /**
+     * Replaces the plain text passwords of the {@code users} with their hashes. The
+     * users are split into at most {@link #parallelism} tasks, so a bulk operation
+     * occupies the workers without flooding their queue
+     */
+    private void hashPasswords(Collection<User> users) {
+        Objects.requireNonNull(users);
+        List<User> plain = new ArrayList<>();
+        for (User user : users) {
+            if (user != null && user.getPassword() != null && !PasswordHasher.isHash(user.getPassword())) {
+                plain.add(user);
+            }
+        }
+        int tasks = Math.min(plain.size(), parallelism);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            int first = task;
+            futures.add(workers.submit(() -> {
+                for (int i = first; i < plain.size(); i += tasks) {
+                    User user = plain.get(i);
+                    user.setPassword(hasher.hash(user.getPassword()));
+                }
+                return null;
+            }));
+        }
+        futures.forEach(this::await);
+    }
+
+    private void rehash(User user, String password) {
+        String previous = user.getPassword();
+        user.setPassword(await(workers.submit(() -> hasher.hash(password))));
+        try {
+            delegate.update(user);
+        } catch (RuntimeException exception) {
+            // the user is authenticated anyway, the hash is replaced on the next login
+            user.setPassword(previous);
+            LOGGER.log(Level.WARNING, "Cannot rehash the password of " + user.getLogin(), exception);
+        }
+    }
+
+    private String unknownUserHash() {
+        String hash = unknownUserHash;
+        if (hash == null) {
+            hash = await(workers.submit(() -> hasher.hash(Long.toHexString(System.nanoTime()))));
+            unknownUserHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * Waits for the {@code future} rethrowing the exception it has failed with
+     */
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.nixsolutions.ppp.jdbc.credential;
+
+import org.apache.commons.codec.binary.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Objects;
+
+/**
+ * The {@code PasswordHasher} hashes passwords with salted PBKDF2-HMAC-SHA256. The
+ * number of iterations is the cost factor: every hash and verification takes time
+ * proportional to it. A hash is encoded together with its parameters as
+ * {@code $pbkdf2-sha256$<iterations>$<salt>$<hash>}, so hashes made with another
+ * cost are still verified and can be recognized to be rehashed.
+ * <p>
+ * A stored value which is not in this format is treated as a legacy plain text
+ * password: it is verified by comparison and always needs to be rehashed
+ */
+public class PasswordHasher {
+
+    /**
+     * The default number of iterations, as recommended by OWASP for PBKDF2-HMAC-SHA256
+     */
+    public final static int DEFAULT_ITERATIONS = 600_000;
+
+    private final static String ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private final static String PREFIX = "$pbkdf2-sha256$";
+
+    private final static int SALT_LENGTH = 16;
+
+    private final static int HASH_LENGTH = 32;
+
+    private final static SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+
+    /**
+     * Constructs a hasher with the {@link #DEFAULT_ITERATIONS}
+     */
+    public PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Constructs a hasher with the specified cost
+     *
+     * @param iterations the number of PBKDF2 iterations of new hashes
+     * @throws IllegalArgumentException if the {@code iterations} is not positive
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        this.iterations = iterations;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Hashes the {@code password} with a new random salt
+     *
+     * @param password the password to be hashed
+     * @return the encoded hash
+     * @throws NullPointerException if the {@code password} is null
+     */
+    public String hash(String password) {
+        Objects.requireNonNull(password);
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        return PREFIX + iterations + '$' + Base64.encodeBase64String(salt) + '$'
+                + Base64.encodeBase64String(derive(password, salt, iterations));
+    }
+
+    /**
+     * Verifies the {@code password} against the {@code stored} value in time
+     * independent of the position of the first mismatch
+     *
+     * @param password the password to be verified
+     * @param stored   the encoded hash or a legacy plain text password
+     * @return {@code true} if the {@code password} matches
+     * @throws NullPointerException if any of the arguments is null
+     */
+    public boolean verify(String password, String stored) {
+        Objects.requireNonNull(password);
+        String[] parts = parse(Objects.requireNonNull(stored));
+        if (parts == null) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] expected = Base64.decodeBase64(parts[4]);
+        return MessageDigest.isEqual(expected,
+                derive(password, Base64.decodeBase64(parts[3]), Integer.parseInt(parts[2])));
+    }
+
+    /**
+     * Returns {@code true} if the {@code stored} value is not a hash made with the
+     * current cost, so it should be replaced once the password is known
+     *
+     * @param stored the encoded hash or a legacy plain text password
+     * @return {@code true} if the {@code stored} value should be rehashed
+     * @throws NullPointerException if the {@code stored} value is null
+     */
+    public boolean needsRehash(String stored) {
+        String[] parts = parse(Objects.requireNonNull(stored));
+        return parts == null || Integer.parseInt(parts[2]) != iterations;
+    }
+
+    /**
+     * Returns {@code true} if the {@code value} is an encoded hash of any cost
+     *
+     * @param value the value to be checked
+     * @return {@code true} if the {@code value} is an encoded hash
+     */
+    public static boolean isHash(String value) {
+        return value != null && parse(value) != null;
+    }
+
+    /**
+     * Splits the encoded hash into {@code "", "pbkdf2-sha256", iterations, salt, hash}
+     *
+     * @return the parts of the hash or null if the {@code value} is not an encoded hash
+     */
+    private static String[] parse(String value) {
+        if (!value.startsWith(PREFIX)) {
+            return null;
+        }
+        String[] parts = value.split("\\$", -1);
+        if (parts.length != 5 || parts[2].isEmpty() || parts[2].length() > 9
+                || !parts[2].chars().allMatch(Character::isDigit)
+                || Integer.parseInt(parts[2]) == 0
+                || !Base64.isBase64(parts[3]) || !Base64.isBase64(parts[4])) {
+            return null;
+        }
+        return parts;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_LENGTH * 8);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException(ALGORITHM + " is not available", exception);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
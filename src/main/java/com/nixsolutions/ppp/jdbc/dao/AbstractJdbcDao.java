@@ -2,17 +2,292 @@ package com.nixsolutions.ppp.jdbc.dao;
 
 import com.nixsolutions.ppp.jdbc.config.DataSourceFactory;
 import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+import com.nixsolutions.ppp.jdbc.tool.KeyedConnectionSupplier;
+import com.nixsolutions.ppp.jdbc.tool.RowMapper;
+import com.nixsolutions.ppp.jdbc.tool.Session;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 abstract class AbstractJdbcDao {
 
+    /**
+     * The number of values bound to the {@link #IN_LIST} at once. Shorter lists are
+     * padded with their last value, so every query using the {@code IN_LIST} has
+     * only one SQL text and its statement is prepared only once per connection
+     */
+    final static int IN_LIST_SIZE = 100;
+
+    /**
+     * The list of {@link #IN_LIST_SIZE} placeholders to be used in an {@code IN} condition
+     */
+    final static String IN_LIST = "(" + String.join(", ", Collections.nCopies(IN_LIST_SIZE, "?")) + ")";
+
+    /**
+     * The {@code SQLSTATE} of a violation of a {@code UNIQUE} or {@code PRIMARY KEY} constraint
+     */
+    final static String UNIQUE_VIOLATION = "23505";
+
+    /**
+     * The {@code SQLSTATE} H2 reports when a {@code FOREIGN KEY} refers to a missing row
+     */
+    final static String FOREIGN_KEY_VIOLATION = "23506";
+
+    /**
+     * The default number of rows fetched from the database at once by the streaming
+     * operations
+     */
+    final static int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * The value of {@link #shard} of the DAOs working with the primary database
+     */
+    final static int PRIMARY = -1;
+
+    /**
+     * The number of the shard the DAO works with or {@link #PRIMARY}
+     */
+    private final int shard;
+
+    /**
+     * The suppliers of {@link #createConnection()} and {@link #createReadOnlyConnection()}
+     * keyed by the database of the DAO
+     */
+    private final Supplier<Connection> connections;
+
+    private final Supplier<Connection> readOnlyConnections;
+
+    /**
+     * The number of rows sent to the database at once by the bulk operations
+     */
+    private int batchSize = Session.DEFAULT_BATCH_SIZE;
+
+    /**
+     * The number of rows fetched from the database at once by the streaming operations
+     */
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /**
+     * The number of rows put into one statement by the multi-row operations
+     */
+    private int rowsPerStatement = Session.DEFAULT_ROWS_PER_STATEMENT;
+
+    AbstractJdbcDao() {
+        this(PRIMARY);
+    }
+
+    /**
+     * Constructs the DAO borrowing all its connections from the {@code shard}
+     *
+     * @param shard the number of the shard or {@link #PRIMARY}
+     */
+    AbstractJdbcDao(int shard) {
+        this.shard = shard;
+        Object key = shard == PRIMARY ? KeyedConnectionSupplier.DEFAULT_KEY : shardKey(shard);
+        this.connections = new KeyedConnectionSupplier(key, this::createConnection);
+        this.readOnlyConnections = new KeyedConnectionSupplier(key, this::createReadOnlyConnection);
+    }
+
+    /**
+     * Returns the supplier of the connections for the modifying operations, which
+     * joins the transaction of the database of the DAO
+     */
+    Supplier<Connection> connections() {
+        return connections;
+    }
+
+    /**
+     * Returns the supplier of the connections for the read-only operations. Within a
+     * transaction of the primary database the reads of a replica join it
+     */
+    Supplier<Connection> readOnlyConnections() {
+        return readOnlyConnections;
+    }
+
+    /**
+     * Returns the supplier of the connections to the {@code shard}, which joins only
+     * a transaction of the same shard
+     *
+     * @param shard the number of the shard
+     */
+    Supplier<Connection> shardConnections(int shard) {
+        return new KeyedConnectionSupplier(shardKey(shard), () -> createShardConnection(shard));
+    }
+
+    private static Object shardKey(int shard) {
+        return "shard-" + shard;
+    }
+
     Connection createConnection() {
+        if (isShard()) {
+            return createShardConnection(shard);
+        }
         try {
-            return DataSourceFactory.getInstance().getDataSource().getConnection();
+            return DataSourceFactory.getInstance().getConnection();
         } catch (SQLException exception) {
             throw new CustomSqlException(exception);
         }
     }
+
+    /**
+     * Borrows a connection for the read-only operations, which may come from a
+     * read replica. Within a transaction the operations join it and do not borrow
+     * this connection, so they read their own writes
+     *
+     * @see DataSourceFactory#getReadOnlyConnection()
+     */
+    Connection createReadOnlyConnection() {
+        if (isShard()) {
+            return createShardConnection(shard);
+        }
+        try {
+            return DataSourceFactory.getInstance().getReadOnlyConnection();
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        }
+    }
+
+    Connection createShardConnection(int shard) {
+        try {
+            return DataSourceFactory.getInstance().getShardConnection(shard);
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        }
+    }
+
+    boolean isShard() {
+        return shard != PRIMARY;
+    }
+
+    /**
+     * Sets the number of rows sent to the database at once by the bulk operations
+     *
+     * @param batchSize the number of rows sent to the database at once
+     * @throws IllegalArgumentException if the {@code batchSize} is not positive
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of rows fetched from the database at once by the streaming
+     * operations. Zero lets the driver choose the number as {@link Session#setFetchSize(int)} does
+     *
+     * @param fetchSize the number of rows fetched at once
+     * @throws IllegalArgumentException if the {@code fetchSize} is negative
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("Fetch size must not be negative");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Sets the number of rows put into one statement by the multi-row operations
+     *
+     * @param rowsPerStatement the number of rows sent to the database in one statement
+     * @throws IllegalArgumentException if the {@code rowsPerStatement} is not positive
+     */
+    public void setRowsPerStatement(int rowsPerStatement) {
+        if (rowsPerStatement <= 0) {
+            throw new IllegalArgumentException("Rows per statement must be positive");
+        }
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    int getRowsPerStatement() {
+        return rowsPerStatement;
+    }
+
+    /**
+     * Executes the {@code query} containing the {@link #IN_LIST} for every chunk of
+     * the {@code values} and returns the mapped rows of all the chunks
+     *
+     * @param session the session to execute queries
+     * @param query   the query with exactly one {@code IN_LIST} and no other params
+     * @param mapper  the mapper used to map rows
+     * @param values  the values to be bound to the {@code IN_LIST}
+     * @param <T>     the type to be mapped to
+     * @return the rows of all the chunks
+     */
+    <T> List<T> queryByInList(Session session, String query, RowMapper<T> mapper,
+            Collection<?> values) {
+        List<T> result = new ArrayList<>();
+        List<?> list = new ArrayList<>(values);
+        for (int from = 0; from < list.size(); from += IN_LIST_SIZE) {
+            List<?> chunk = list.subList(from, Math.min(from + IN_LIST_SIZE, list.size()));
+            result.addAll(session.queryForList(query, mapper, pad(chunk)));
+        }
+        return result;
+    }
+
+    /**
+     * Executes the {@code SELECT COUNT(*)} {@code query} containing the {@link #IN_LIST}
+     * for every chunk of the {@code values} and returns the total count
+     *
+     * @param session the session to execute queries
+     * @param query   the counting query with exactly one {@code IN_LIST} and no other params
+     * @param values  the values to be bound to the {@code IN_LIST}
+     * @return the sum of the counts of all the chunks
+     */
+    long countByInList(Session session, String query, Collection<?> values) {
+        return queryByInList(session, query, (resultSet, rowNumber) -> resultSet.getLong(1), values)
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    /**
+     * Returns {@code true} if the {@code exception} is caused by a {@code SQLException}
+     * with the {@code sqlState}
+     *
+     * @param exception the exception to be checked
+     * @param sqlState  the expected {@code SQLSTATE}
+     * @return {@code true} if the cause of the {@code exception} has the {@code sqlState}
+     */
+    boolean hasSqlState(CustomSqlException exception, String sqlState) {
+        return exception.getCause() instanceof SQLException
+                && sqlState.equals(((SQLException) exception.getCause()).getSQLState());
+    }
+
+    /**
+     * Sets the generated {@code ids} to the {@code entities} in their order
+     *
+     * @param entities the created entities
+     * @param ids      the ids generated for the {@code entities}
+     * @param setter   the setter of the id of an entity
+     * @param <T>      the type of the entities
+     */
+    <T> void assignIds(Collection<T> entities, List<Long> ids, BiConsumer<T, Long> setter) {
+        Iterator<Long> id = ids.iterator();
+        for (T entity : entities) {
+            setter.accept(entity, id.next());
+        }
+    }
+
+    private Object[] pad(List<?> chunk) {
+        Object[] params = Arrays.copyOf(chunk.toArray(), IN_LIST_SIZE);
+        Arrays.fill(params, chunk.size(), IN_LIST_SIZE, chunk.get(chunk.size() - 1));
+        return params;
+    }
 }
@@ -0,0 +1,93 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.tool.DatabaseExecutor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The {@code AsyncRoleDao} runs the operations of a {@code RoleDao} on a
+ * {@link DatabaseExecutor}, so the calling thread never blocks on JDBC. Every
+ * future completes with the result of the corresponding {@code RoleDao} method or
+ * fails with the exception it throws, or with {@code RejectedExecutionException}
+ * if the executor is saturated
+ */
+public class AsyncRoleDao {
+
+    private final RoleDao delegate;
+
+    private final DatabaseExecutor executor;
+
+    /**
+     * Constructs a new instance of the {@code AsyncRoleDao} class
+     *
+     * @param delegate the DAO executing the operations
+     * @param executor the executor the operations are run on
+     * @throws NullPointerException if any of the arguments is null
+     */
+    public AsyncRoleDao(RoleDao delegate, DatabaseExecutor executor) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    public CompletableFuture<Void> create(Role role) {
+        return executor.submit(() -> {
+            delegate.create(role);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> update(Role role) {
+        return executor.submit(() -> {
+            delegate.update(role);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> remove(Role role) {
+        return executor.submit(() -> {
+            delegate.remove(role);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Long>> createAll(Collection<Role> roles) {
+        return executor.submit(() -> delegate.createAll(roles));
+    }
+
+    public CompletableFuture<Void> updateAll(Collection<Role> roles) {
+        return executor.submit(() -> {
+            delegate.updateAll(roles);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> removeAll(Collection<Role> roles) {
+        return executor.submit(() -> {
+            delegate.removeAll(roles);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> upsert(Role role) {
+        return executor.submit(() -> {
+            delegate.upsert(role);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Long>> upsertAll(Collection<Role> roles) {
+        return executor.submit(() -> delegate.upsertAll(roles));
+    }
+
+    public CompletableFuture<Role> findById(Long id) {
+        return executor.submit(() -> delegate.findById(id));
+    }
+
+    public CompletableFuture<Role> findByName(String name) {
+        return executor.submit(() -> delegate.findByName(name));
+    }
+}
@@ -0,0 +1,103 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.tool.DatabaseExecutor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The {@code AsyncUserDao} runs the operations of a {@code UserDao} on a
+ * {@link DatabaseExecutor}, so the calling thread never blocks on JDBC. Every
+ * future completes with the result of the corresponding {@code UserDao} method or
+ * fails with the exception it throws, or with {@code RejectedExecutionException}
+ * if the executor is saturated. {@link UserDao#streamAll()} has no counterpart
+ * as the stream holds a connection until it is consumed; use {@link #findPage}
+ * to read users in portions instead
+ */
+public class AsyncUserDao {
+
+    private final UserDao delegate;
+
+    private final DatabaseExecutor executor;
+
+    /**
+     * Constructs a new instance of the {@code AsyncUserDao} class
+     *
+     * @param delegate the DAO executing the operations
+     * @param executor the executor the operations are run on
+     * @throws NullPointerException if any of the arguments is null
+     */
+    public AsyncUserDao(UserDao delegate, DatabaseExecutor executor) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    public CompletableFuture<Void> create(User user) {
+        return executor.submit(() -> {
+            delegate.create(user);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> update(User user) {
+        return executor.submit(() -> {
+            delegate.update(user);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> remove(User user) {
+        return executor.submit(() -> {
+            delegate.remove(user);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Long>> createAll(Collection<User> users) {
+        return executor.submit(() -> delegate.createAll(users));
+    }
+
+    public CompletableFuture<Void> updateAll(Collection<User> users) {
+        return executor.submit(() -> {
+            delegate.updateAll(users);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> removeAll(Collection<User> users) {
+        return executor.submit(() -> {
+            delegate.removeAll(users);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> upsert(User user) {
+        return executor.submit(() -> {
+            delegate.upsert(user);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Long>> upsertAll(Collection<User> users) {
+        return executor.submit(() -> delegate.upsertAll(users));
+    }
+
+    public CompletableFuture<List<User>> findAll() {
+        return executor.submit(delegate::findAll);
+    }
+
+    public CompletableFuture<Page<User>> findPage(Long afterId, int limit) {
+        return executor.submit(() -> delegate.findPage(afterId, limit));
+    }
+
+    public CompletableFuture<User> findByLogin(String login) {
+        return executor.submit(() -> delegate.findByLogin(login));
+    }
+
+    public CompletableFuture<User> findByEmail(String email) {
+        return executor.submit(() -> delegate.findByEmail(email));
+    }
+}
@@ -0,0 +1,220 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.tool.CacheStatistics;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The {@code CachingRoleDao} is a read-through cache in front of another {@code RoleDao}.
+ * Roles found by id or name are kept for the time-to-live and indexed by both of
+ * them, so a role loaded by its name is found by its id without a query and vice
+ * versa. Any modification made through this DAO invalidates the whole cache as the
+ * role table is tiny, and once more when the transaction of the caller completes.
+ * Roles loaded within a transaction bound to the thread are not cached, since they
+ * may not have been committed. Callers always get copies of the cached roles
+ */
+public class CachingRoleDao implements RoleDao {
+
+    private final RoleDao delegate;
+
+    private final long ttlNanos;
+
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry> byName = new ConcurrentHashMap<>();
+
+    private final CacheStatistics statistics = new CacheStatistics();
+
+    /**
+     * Incremented on every invalidation, so a role loaded concurrently with an
+     * invalidation is not put into the cache
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Guards the invalidation against the insertion of a loaded role, so a role is
+     * put into the cache only if no invalidation has happened since it was loaded.
+     * Lookups do not take it
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Constructs a new cache in front of the {@code delegate}
+     *
+     * @param delegate the DAO used to load roles missing in the cache and to modify roles
+     * @param ttl      the time a role stays in the cache after being loaded
+     * @throws NullPointerException     if the {@code delegate} or {@code ttl} is null
+     * @throws IllegalArgumentException if the {@code ttl} is not positive
+     */
+    public CachingRoleDao(RoleDao delegate, Duration ttl) {
+        this.delegate = Objects.requireNonNull(delegate);
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public void create(Role role) {
+        try {
+            delegate.create(role);
+        } finally {
+            invalidateWritten();
+        }
+    }
+
+    @Override
+    public void update(Role role) {
+        try {
+            delegate.update(role);
+        } finally {
+            invalidateWritten();
+        }
+    }
+
+    @Override
+    public void remove(Role role) {
+        try {
+            delegate.remove(role);
+        } finally {
+            invalidateWritten();
+        }
+    }
+
+    @Override
+    public List<Long> createAll(Collection<Role> roles) {
+        try {
+            return delegate.createAll(roles);
+        } finally {
+            invalidateWritten();
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Role> roles) {
+        try {
+            delegate.updateAll(roles);
+        } finally {
+            invalidateWritten();
+        }
+    }
+
+    @Override
+    public void upsert(Role role) {
+        try {
+            delegate.upsert(role);
+        } finally {
+            invalidateWritten();
+        }
+    }
+
+    @Override
+    public List<Long> upsertAll(Collection<Role> roles) {
+        try {
+            return delegate.upsertAll(roles);
+        } finally {
+            invalidateWritten();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Role> roles) {
+        try {
+            delegate.removeAll(roles);
+        } finally {
+            invalidateWritten();
+        }
+    }
+
+    @Override
+    public Role findById(Long id) {
+        Objects.requireNonNull(id);
+        return find(byId, id, delegate::findById);
+    }
+
+    @Override
+    public Role findByName(String name) {
+        Objects.requireNonNull(name);
+        return find(byName, name, delegate::findByName);
+    }
+
+    /**
+     * Removes all the roles from the cache. Must be invoked if roles are modified
+     * bypassing this DAO
+     */
+    public void invalidateAll() {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            byId.clear();
+            byName.clear();
+        }
+    }
+
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Invalidates the cache after a modification and once more when the transaction
+     * of the caller completes, if any, since until then other threads may load and
+     * cache the roles as they were before the modification
+     */
+    private void invalidateWritten() {
+        invalidateAll();
+        if (JdbcTransactionTemplate.isTransactionActive()) {
+            JdbcTransactionTemplate.afterCompletion(this::invalidateAll);
+        }
+    }
+
+    private <K> Role find(Map<K, Entry> index, K key, Function<K, Role> loader) {
+        Entry entry = index.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+            statistics.recordHit();
+            return copyOf(entry.role);
+        }
+        statistics.recordMiss();
+        if (entry != null) {
+            byId.remove(entry.role.getId(), entry);
+            byName.remove(entry.role.getName(), entry);
+            statistics.recordEviction();
+        }
+        if (JdbcTransactionTemplate.isTransactionActive()) {
+            return loader.apply(key); // the delegate joins the transaction, which may roll back
+        }
+        long loadedGeneration = generation.get();
+        Role role = loader.apply(key);
+        entry = new Entry(copyOf(role), System.nanoTime() + ttlNanos);
+        synchronized (lock) {
+            if (generation.get() == loadedGeneration) {
+                byId.put(role.getId(), entry);
+                byName.put(role.getName(), entry);
+            }
+        }
+        return role;
+    }
+
+    private static Role copyOf(Role role) {
+        return new Role(role.getId(), role.getName());
+    }
+
+    private final static class Entry {
+
+        private final Role role;
+
+        private final long expiresAt;
+
+        private Entry(Role role, long expiresAt) {
+            this.role = role;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
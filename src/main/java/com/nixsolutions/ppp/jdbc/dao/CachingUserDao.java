@@ -0,0 +1,319 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.RoleNotFoundException;
+import com.nixsolutions.ppp.jdbc.tool.CacheStatistics;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The {@code CachingUserDao} caches users found by login or email in front of
+ * another {@code UserDao}. Users are stored once keyed by id and indexed by both
+ * login and email, so one entry serves lookups by either of them. The cache is
+ * bounded: once it overflows, the least recently used tenth of the users is evicted
+ * at once. Updating, upserting or removing a user through this DAO invalidates its
+ * entry, and once more when the transaction of the caller completes; the other
+ * operations are delegated as is. Users loaded within a transaction bound to the
+ * thread are not cached, since they may not have been committed. Callers always
+ * get copies of the cached users. The role of a cached user is resolved by its id through a
+ * {@code RoleDao} on every hit, usually a {@link CachingRoleDao}, so a role renamed
+ * after the user has been cached is returned with its new name. <br>
+ * A hit takes no lock: it only records the time of the access in the entry, so the
+ * order of the users is approximate. Loading, invalidating and evicting users are
+ * synchronized on the cache
+ */
+public class CachingUserDao implements UserDao {
+
+    private final UserDao delegate;
+
+    private final RoleDao roleDao;
+
+    private final int maximumSize;
+
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> idsByLogin = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+
+    private final CacheStatistics statistics = new CacheStatistics();
+
+    /**
+     * Incremented on every invalidation, so a user loaded concurrently with an
+     * invalidation is not put into the cache. Guarded by {@code this}
+     */
+    private long generation;
+
+    /**
+     * Constructs a new cache in front of the {@code delegate}
+     *
+     * @param delegate    the DAO used to load users missing in the cache and to modify users
+     * @param roleDao     the DAO used to resolve the roles of the cached users
+     * @param maximumSize the maximum number of users in the cache
+     * @throws NullPointerException     if the {@code delegate} or {@code roleDao} is null
+     * @throws IllegalArgumentException if the {@code maximumSize} is not positive
+     */
+    public CachingUserDao(UserDao delegate, RoleDao roleDao, int maximumSize) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.roleDao = Objects.requireNonNull(roleDao);
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    @Override
+    public void create(User user) {
+        delegate.create(user);
+    }
+
+    @Override
+    public void update(User user) {
+        try {
+            delegate.update(user);
+        } finally {
+            invalidateWritten(List.of(user));
+        }
+    }
+
+    @Override
+    public void remove(User user) {
+        try {
+            delegate.remove(user);
+        } finally {
+            invalidateWritten(List.of(user));
+        }
+    }
+
+    @Override
+    public List<Long> createAll(Collection<User> users) {
+        return delegate.createAll(users);
+    }
+
+    @Override
+    public void updateAll(Collection<User> users) {
+        try {
+            delegate.updateAll(users);
+        } finally {
+            invalidateWritten(users);
+        }
+    }
+
+    @Override
+    public void upsert(User user) {
+        try {
+            delegate.upsert(user);
+        } finally {
+            invalidateWritten(List.of(user));
+        }
+    }
+
+    @Override
+    public List<Long> upsertAll(Collection<User> users) {
+        try {
+            return delegate.upsertAll(users);
+        } finally {
+            invalidateWritten(users);
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<User> users) {
+        try {
+            delegate.removeAll(users);
+        } finally {
+            invalidateWritten(users);
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Page<User> findPage(Long afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public User findByLogin(String login) {
+        return find(idsByLogin, login, User::getLogin, delegate::findByLogin);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return find(idsByEmail, email, User::getEmail, delegate::findByEmail);
+    }
+
+    /**
+     * Removes the user with the id of the {@code user} from the cache. Must be
+     * invoked if the user is modified bypassing this DAO
+     *
+     * @param user the user to be removed from the cache
+     */
+    public synchronized void invalidate(User user) {
+        generation++;
+        if (user != null && user.getId() != null) {
+            removeEntry(user.getId());
+        }
+    }
+
+    /**
+     * Removes all the users from the cache
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        byId.clear();
+        idsByLogin.clear();
+        idsByEmail.clear();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Invalidates the {@code users} after a modification and once more when the
+     * transaction of the caller completes, if any, since until then other threads
+     * may load and cache the users as they were before the modification
+     */
+    private void invalidateWritten(Collection<User> users) {
+        users.forEach(this::invalidate);
+        if (JdbcTransactionTemplate.isTransactionActive()) {
+            List<User> written = new ArrayList<>(users);
+            JdbcTransactionTemplate.afterCompletion(() -> written.forEach(this::invalidate));
+        }
+    }
+
+    private User find(Map<String, Long> index, String key, Function<User, String> keyOf,
+            Function<String, User> loader) {
+        Long id = index.get(key);
+        Entry entry = id == null ? null : byId.get(id);
+        // the index may briefly refer to an entry being replaced by another user
+        if (entry != null && key.equals(keyOf.apply(entry.user))) {
+            User user = copyOf(entry.user);
+            if (resolveRole(user)) {
+                entry.lastAccess = System.nanoTime();
+                statistics.recordHit();
+                return user;
+            }
+        }
+        if (JdbcTransactionTemplate.isTransactionActive()) {
+            statistics.recordMiss();
+            return loader.apply(key); // the delegate joins the transaction, which may roll back
+        }
+        long loadedGeneration;
+        synchronized (this) {
+            loadedGeneration = generation;
+        }
+        statistics.recordMiss();
+        User user = loader.apply(key); // load outside the lock
+        synchronized (this) {
+            if (generation == loadedGeneration && user.getId() != null) {
+                putEntry(copyOf(user));
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Replaces the role of the {@code user} with the current one of the same id
+     *
+     * @param user the copy of a cached user
+     * @return {@code false} if the role no longer exists, so the user is to be reloaded
+     */
+    private boolean resolveRole(User user) {
+        if (user.getRole() == null || user.getRole().getId() == null) {
+            return true;
+        }
+        try {
+            user.setRole(roleDao.findById(user.getRole().getId()));
+            return true;
+        } catch (RoleNotFoundException exception) {
+            return false;
+        }
+    }
+
+    private void putEntry(User user) {
+        removeEntry(user.getId());
+        byId.put(user.getId(), new Entry(user));
+        idsByLogin.put(user.getLogin(), user.getId());
+        idsByEmail.put(user.getEmail(), user.getId());
+        if (byId.size() > maximumSize) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Evicts the least recently used tenth of the users, so the entries are sorted
+     * by their access time only once per that many loads
+     */
+    private void evictLeastRecentlyUsed() {
+        // the access times are copied, as hits go on updating them while sorting
+        List<long[]> accesses = new ArrayList<>(byId.size());
+        byId.forEach((id, entry) -> accesses.add(new long[] {entry.lastAccess, id}));
+        accesses.sort(Comparator.comparingLong(access -> access[0]));
+        int count = Math.min(Math.max(byId.size() - maximumSize, maximumSize / 10), accesses.size());
+        for (long[] access : accesses.subList(0, count)) {
+            removeEntry(access[1]);
+            statistics.recordEviction();
+        }
+    }
+
+    private void removeEntry(Long id) {
+        Entry removed = byId.remove(id);
+        if (removed != null) {
+            idsByLogin.remove(removed.user.getLogin(), id);
+            idsByEmail.remove(removed.user.getEmail(), id);
+        }
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setLogin(user.getLogin());
+        copy.setPassword(user.getPassword());
+        copy.setEmail(user.getEmail());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setBirthday(user.getBirthday() == null ? null : new Date(user.getBirthday().getTime()));
+        Role role = user.getRole();
+        copy.setRole(role == null ? null : new Role(role.getId(), role.getName()));
+        return copy;
+    }
+
+    private final static class Entry {
+
+        private final User user;
+
+        /**
+         * The {@code System.nanoTime()} of the last access, written without a lock
+         */
+        private volatile long lastAccess = System.nanoTime();
+
+        private Entry(User user) {
+            this.user = user;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import org.apache.commons.codec.digest.MurmurHash3;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@code ConsistentHashRing} maps keys to shards. Every shard owns
+ * {@link #VIRTUAL_NODES} points of the ring, so the keys are spread evenly, and a
+ * key belongs to the shard of the first point at or after its hash. When a shard
+ * is appended, only the keys falling on its points move, about {@code 1 / n} of them,
+ * but they move nonetheless, so the number of the shards of stored keys is fixed
+ */
+class ConsistentHashRing {
+
+    /**
+     * The number of points of the ring per shard
+     */
+    final static int VIRTUAL_NODES = 128;
+
+    private final TreeMap<Integer, Integer> ring = new TreeMap<>();
+
+    /**
+     * Constructs the ring of the {@code shardCount} shards numbered from zero
+     *
+     * @param shardCount the number of the shards
+     * @throws IllegalArgumentException if the {@code shardCount} is not positive
+     */
+    ConsistentHashRing(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < VIRTUAL_NODES; node++) {
+                ring.putIfAbsent(hash("shard-" + shard + "#" + node), shard);
+            }
+        }
+    }
+
+    /**
+     * Returns the shard the {@code key} belongs to
+     *
+     * @param key the key, e.g. a login
+     * @return the number of the shard
+     */
+    int shardOf(String key) {
+        Map.Entry<Integer, Integer> point = ring.ceilingEntry(hash(key));
+        return point == null ? ring.firstEntry().getValue() : point.getValue();
+    }
+
+    private static int hash(String key) {
+        return MurmurHash3.hash32x86(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,15 +1,24 @@
 package com.nixsolutions.ppp.jdbc.dao;
 
+import com.nixsolutions.ppp.jdbc.entity.GeneratedRoleRowMapper;
+import com.nixsolutions.ppp.jdbc.entity.GeneratedRoleStatementSetter;
 import com.nixsolutions.ppp.jdbc.entity.Role;
 import com.nixsolutions.ppp.jdbc.entity.User;
 import com.nixsolutions.ppp.jdbc.exception.RoleAlreadyExistsException;
 import com.nixsolutions.ppp.jdbc.exception.RoleNotFoundException;
-import com.nixsolutions.ppp.jdbc.mapper.RoleRowMapper;
 import com.nixsolutions.ppp.jdbc.tool.Session;
+import com.nixsolutions.ppp.jdbc.tool.StatementSet;
 import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @author Serhii Nesterov
@@ -22,6 +31,11 @@ public class JdbcRoleDao extends AbstractJdbcDao implements RoleDao {
      */
     private final static String CREATE = "INSERT INTO role (name) VALUES (?)";
 
+    /**
+     * The {@code MERGE} query creating a role unless the role with the same name exists
+     */
+    private final static String UPSERT = "MERGE INTO role (name) KEY(name) VALUES (?)";
+
     /**
      * The {@code UPDATE} query to update an existing role, namely its name.
      * The role's id is used to figure out what exact role needs to be updated
@@ -39,6 +53,41 @@ public class JdbcRoleDao extends AbstractJdbcDao implements RoleDao {
      */
     private final static String FIND_BY_NAME = "SELECT id, name FROM role WHERE name = ?";
 
+    /**
+     * The {@code SELECT} query to find one role by the specified id
+     */
+    private final static String FIND_BY_ID = "SELECT id, name FROM role WHERE id = ?";
+
+    /**
+     * The {@code SELECT} query to count the roles having any of the ids of the
+     * {@code IN_LIST}
+     */
+    private final static String COUNT_BY_IDS = "SELECT COUNT(*) FROM role WHERE id IN " + IN_LIST;
+
+    /**
+     * The {@code SELECT} query to find ids of the roles having any of the names of
+     * the {@code IN_LIST}
+     */
+    private final static String FIND_IDS_BY_NAMES = "SELECT id, name FROM role WHERE name IN " + IN_LIST;
+
+    /**
+     * The {@code SELECT} query to count the users referring to any of the roles
+     * of the {@code IN_LIST}
+     */
+    private final static String COUNT_USERS_BY_ROLE_IDS = "SELECT COUNT(*) FROM user WHERE role_id IN " + IN_LIST;
+
+    /**
+     * The statements executed by the DAO, to be prepared on the pooled connections
+     * in advance
+     */
+    public final static StatementSet STATEMENTS = new StatementSet()
+            .add(UPDATE, REMOVE, FIND_BY_NAME, FIND_BY_ID, COUNT_BY_IDS, FIND_IDS_BY_NAMES,
+                    COUNT_USERS_BY_ROLE_IDS)
+            .addReturningKeys(CREATE, UPSERT)
+            .addExists(Role.TABLE, "id")
+            .addExists(Role.TABLE, "name")
+            .addExists(User.TABLE, "role_id");
+
     /**
      * The {@code TransactionTemplate} is used to execute queries within a single
      * transaction
@@ -59,10 +108,11 @@ public class JdbcRoleDao extends AbstractJdbcDao implements RoleDao {
     public void create(Role role) {
         Objects.requireNonNull(role);
         Objects.requireNonNull(role.getName());
-        template.execute(super::createConnection, session -> {
+        Long id = template.executeAndReturn(connections(), session -> {
             requireRoleAbsence(session, role.getName());
-            session.execute(CREATE, role.getName());
+            return session.executeAndReturnKeys(CREATE, role.getName()).get(0);
         });
+        role.setId(id);
     }
 
     @Override
@@ -70,7 +120,7 @@ public class JdbcRoleDao extends AbstractJdbcDao implements RoleDao {
         Objects.requireNonNull(role);
         Objects.requireNonNull(role.getId());
         Objects.requireNonNull(role.getName());
-        template.execute(super::createConnection, session -> {
+        template.execute(connections(), session -> {
             requireRoleExistence(session, role.getId());
             ensureNobodyHasRoleOf(session, role);
             session.execute(UPDATE, role.getName(), role.getId());
@@ -81,23 +131,114 @@ public class JdbcRoleDao extends AbstractJdbcDao implements RoleDao {
     public void remove(Role role) {
         Objects.requireNonNull(role);
         Objects.requireNonNull(role.getId());
-        template.execute(super::createConnection, session -> {
+        template.execute(connections(), session -> {
             requireRoleExistence(session, role.getId());
             requireNoReferenceToRole(session, role);
             session.execute(REMOVE, role.getId());
         });
     }
 
+    @Override
+    public List<Long> createAll(Collection<Role> roles) {
+        Objects.requireNonNull(roles);
+        roles.forEach(role -> Objects.requireNonNull(Objects.requireNonNull(role).getName()));
+        if (roles.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = template.executeAndReturn(connections(), session -> {
+            ensureNobodyElseHasNamesOf(session, roles);
+            session.setBatchSize(getBatchSize());
+            return session.executeBatchAndReturnKeys(CREATE, roles, GeneratedRoleStatementSetter::bind);
+        });
+        assignIds(roles, ids, Role::setId);
+        return ids;
+    }
+
+    @Override
+    public void updateAll(Collection<Role> roles) {
+        Objects.requireNonNull(roles);
+        roles.forEach(role -> {
+            Objects.requireNonNull(role);
+            Objects.requireNonNull(role.getId());
+            Objects.requireNonNull(role.getName());
+        });
+        if (roles.isEmpty()) {
+            return;
+        }
+        template.execute(connections(), session -> {
+            requireRolesExistence(session, roles);
+            ensureNobodyElseHasNamesOf(session, roles);
+            session.setBatchSize(getBatchSize());
+            for (Role role : roles) {
+                session.addBatch(UPDATE, GeneratedRoleStatementSetter.forUpdate(role));
+            }
+            session.executeBatch();
+        });
+    }
+
+    @Override
+    public void removeAll(Collection<Role> roles) {
+        Objects.requireNonNull(roles);
+        roles.forEach(role -> Objects.requireNonNull(Objects.requireNonNull(role).getId()));
+        if (roles.isEmpty()) {
+            return;
+        }
+        template.execute(connections(), session -> {
+            requireRolesExistence(session, roles);
+            requireNoReferenceToRoles(session, roles);
+            session.setBatchSize(getBatchSize());
+            for (Role role : roles) {
+                session.addBatch(REMOVE, statement -> statement.setLong(1, role.getId()));
+            }
+            session.executeBatch();
+        });
+    }
+
+    @Override
+    public void upsert(Role role) {
+        Objects.requireNonNull(role);
+        Objects.requireNonNull(role.getName());
+        Long id = template.executeAndReturn(connections(),
+                session -> session.executeAndReturnKeys(UPSERT, role.getName()).get(0));
+        role.setId(id);
+    }
+
+    @Override
+    public List<Long> upsertAll(Collection<Role> roles) {
+        Objects.requireNonNull(roles);
+        roles.forEach(role -> Objects.requireNonNull(Objects.requireNonNull(role).getName()));
+        if (roles.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (roles.stream().map(Role::getName).distinct().count() != roles.size()) {
+            throw new RoleAlreadyExistsException();
+        }
+        List<Long> ids = template.executeAndReturn(connections(), session -> {
+            session.setRowsPerStatement(getRowsPerStatement());
+            return session.executeMultiRowAndReturnKeys(UPSERT, roles, GeneratedRoleStatementSetter::bind);
+        });
+        assignIds(roles, ids, Role::setId);
+        return ids;
+    }
+
+    @Override
+    public Role findById(Long id) {
+        Objects.requireNonNull(id);
+        return template.executeReadOnly(readOnlyConnections(),
+                session -> session.queryForObject(FIND_BY_ID, new GeneratedRoleRowMapper(), id))
+                .orElseThrow(RoleNotFoundException::new);
+    }
+
     @Override
     public Role findByName(String name) {
         Objects.requireNonNull(name);
-        return template.executeAndReturn(super::createConnection,
+        return template.executeReadOnly(readOnlyConnections(),
                 session -> findOptionalByName(session, name))
                 .orElseThrow(RoleNotFoundException::new);
     }
 
     private Optional<Role> findOptionalByName(Session session, String name) {
-        return session.queryForObject(FIND_BY_NAME, new RoleRowMapper(), name);
+        return session.queryForObject(FIND_BY_NAME, new GeneratedRoleRowMapper(), name);
     }
 
     private void requireRoleExistence(Session session, Long id) {
@@ -118,6 +259,49 @@ public class JdbcRoleDao extends AbstractJdbcDao implements RoleDao {
         }
     }
 
+    private void requireRolesExistence(Session session, Collection<Role> roles) {
+        Set<Long> ids = collectIds(roles);
+        if (countByInList(session, COUNT_BY_IDS, ids) != ids.size()) {
+            throw new RoleNotFoundException();
+        }
+    }
+
+    private void requireNoReferenceToRoles(Session session, Collection<Role> roles) {
+        if (countByInList(session, COUNT_USERS_BY_ROLE_IDS, collectIds(roles)) > 0) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Ensures that the names are unique within the {@code roles} and do not belong
+     * to any other role in the database
+     *
+     * @param session the session to execute queries
+     * @param roles   the roles to be verified
+     * @throws RoleAlreadyExistsException if any name repeats or belongs to another role
+     */
+    private void ensureNobodyElseHasNamesOf(Session session, Collection<Role> roles) {
+        Map<String, Long> idsByName = new HashMap<>();
+        for (Role role : roles) {
+            if (idsByName.containsKey(role.getName())) {
+                throw new RoleAlreadyExistsException();
+            }
+            idsByName.put(role.getName(), role.getId());
+        }
+        List<Map.Entry<String, Long>> owners = queryByInList(session, FIND_IDS_BY_NAMES,
+                (resultSet, rowNumber) -> Map.entry(resultSet.getString(2), resultSet.getLong(1)),
+                idsByName.keySet());
+        for (Map.Entry<String, Long> owner : owners) {
+            if (!owner.getValue().equals(idsByName.get(owner.getKey()))) {
+                throw new RoleAlreadyExistsException();
+            }
+        }
+    }
+
+    private Set<Long> collectIds(Collection<Role> roles) {
+        return roles.stream().map(Role::getId).collect(Collectors.toSet());
+    }
+
     private boolean hasRole(Session session, String field, Object value) {
         return session.exists(Role.TABLE, field, value);
     }
@@ -1,5 +1,6 @@
 package com.nixsolutions.ppp.jdbc.dao;
 
+import com.nixsolutions.ppp.jdbc.entity.GeneratedUserStatementSetter;
 import com.nixsolutions.ppp.jdbc.entity.Role;
 import com.nixsolutions.ppp.jdbc.entity.User;
 import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
@@ -8,16 +9,23 @@ import com.nixsolutions.ppp.jdbc.exception.RoleNotFoundException;
 import com.nixsolutions.ppp.jdbc.exception.UserAlreadyExistsException;
 import com.nixsolutions.ppp.jdbc.exception.UserNotFoundException;
 import com.nixsolutions.ppp.jdbc.mapper.UserRowMapper;
-import com.nixsolutions.ppp.jdbc.tool.PreparedStatementSetter;
 import com.nixsolutions.ppp.jdbc.tool.Session;
+import com.nixsolutions.ppp.jdbc.tool.StatementSet;
 import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
 
 import java.sql.Date;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Serhii Nesterov
@@ -28,6 +36,20 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
             "INSERT INTO user (login, password, email, first_name, last_name, birthday, role_id) "
                     + "VALUES (?, ?, ?, ?, ?, ?, ?)";
 
+    /**
+     * The {@code MERGE} query creating a user or updating the user with the same login
+     */
+    private final static String UPSERT =
+            "MERGE INTO user (login, password, email, first_name, last_name, birthday, role_id) KEY(login) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * The {@code INSERT} query of a shard, whose ids are allocated by the shard index
+     */
+    private final static String CREATE_WITH_ID =
+            "INSERT INTO user (login, password, email, first_name, last_name, birthday, role_id, id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
     private final static String FIND_ALL =
             "SELECT u.id, u.login, u.password, u.email, u.first_name, u.last_name, u.birthday, r.id, r.name "
                     + "FROM user u LEFT JOIN role r ON u.role_id = r.id";
@@ -36,12 +58,46 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
 
     private final static String FIND_BY_EMAIL = FIND_ALL + " WHERE u.email = ?";
 
+    private final static String FIND_PAGE = FIND_ALL + " WHERE u.id > ? ORDER BY u.id LIMIT ?";
+
     private final static String UPDATE =
             "UPDATE user SET login = ?, password = ?, email = ?, first_name = ?, last_name = ?, "
                     + "birthday = ?, role_id = ? WHERE id = ?";
 
     private final static String REMOVE = "DELETE FROM user WHERE id = ?";
 
+    private final static String COUNT_BY_IDS = "SELECT COUNT(*) FROM user WHERE id IN " + IN_LIST;
+
+    private final static String COUNT_ROLES_BY_IDS = "SELECT COUNT(*) FROM role WHERE id IN " + IN_LIST;
+
+    private final static String FIND_IDS_BY_LOGINS = "SELECT id, login FROM user WHERE login IN " + IN_LIST;
+
+    private final static String FIND_IDS_BY_EMAILS = "SELECT id, email FROM user WHERE email IN " + IN_LIST;
+
+    /**
+     * The {@code SELECT} query verifying all the conditions of {@link ValidationMode#SINGLE_QUERY}
+     * at once: the existence of the user and its role, and whether or not another
+     * user has the login or email
+     */
+    private final static String VALIDATE =
+            "SELECT EXISTS(SELECT 1 FROM user WHERE id = ?), EXISTS(SELECT 1 FROM role WHERE id = ?), "
+                    + "EXISTS(SELECT 1 FROM user WHERE login = ? AND id IS DISTINCT FROM ?), "
+                    + "EXISTS(SELECT 1 FROM user WHERE email = ? AND id IS DISTINCT FROM ?)";
+
+    /**
+     * The statements executed by the DAO, to be prepared on the pooled connections
+     * in advance. The multi-row statement of {@link #upsertAll(Collection)} depends
+     * on the rows per statement and is prepared on first use
+     */
+    public final static StatementSet STATEMENTS = new StatementSet()
+            .add(CREATE_WITH_ID, FIND_ALL, FIND_BY_LOGIN, FIND_BY_EMAIL, FIND_PAGE, UPDATE, REMOVE,
+                    COUNT_BY_IDS, COUNT_ROLES_BY_IDS, FIND_IDS_BY_LOGINS, FIND_IDS_BY_EMAILS, VALIDATE)
+            .addReturningKeys(CREATE, UPSERT)
+            .addExists(User.TABLE, "id")
+            .addExists(User.TABLE, "login")
+            .addExists(User.TABLE, "email")
+            .addExists(Role.TABLE, "id");
+
     /**
      * The {@code TransactionTemplate} is used to execute queries within a single
      * transaction
@@ -49,25 +105,91 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
     private final TransactionTemplate template;
 
     /**
-     * Constructs a new instance of the {@code JdbcUserDao} class
+     * The way the role existence and the login and email uniqueness are verified
+     * by {@link #create(User)} and {@link #update(User)}
+     */
+    private final ValidationMode validationMode;
+
+    /**
+     * The DAO consulted to verify the role existence instead of querying the role
+     * table within the transaction, usually a {@link CachingRoleDao}. May be null
+     */
+    private final RoleDao roleDao;
+
+    /**
+     * Constructs a new instance of the {@code JdbcUserDao} class verifying every
+     * condition with a separate query
      *
      * @param template the template used to execute SQL statements within a transaction
      * @throws NullPointerException if the {@code template} is null
      */
     public JdbcUserDao(TransactionTemplate template) {
+        this(template, ValidationMode.SEPARATE_QUERIES);
+    }
+
+    /**
+     * Constructs a new instance of the {@code JdbcUserDao} class
+     *
+     * @param template       the template used to execute SQL statements within a transaction
+     * @param validationMode the way the conditions are verified before writing a user
+     * @throws NullPointerException if the {@code template} or {@code validationMode} is null
+     */
+    public JdbcUserDao(TransactionTemplate template, ValidationMode validationMode) {
+        this.template = Objects.requireNonNull(template);
+        this.validationMode = Objects.requireNonNull(validationMode);
+        this.roleDao = null;
+    }
+
+    /**
+     * Constructs a new instance of the {@code JdbcUserDao} class verifying the role
+     * existence with the {@code roleDao}. It pays off if the {@code roleDao} caches
+     * roles, e.g. {@link CachingRoleDao}
+     *
+     * @param template       the template used to execute SQL statements within a transaction
+     * @param validationMode the way the conditions are verified before writing a user
+     * @param roleDao        the DAO used to verify the role existence
+     * @throws NullPointerException if any of the arguments is null
+     */
+    public JdbcUserDao(TransactionTemplate template, ValidationMode validationMode,
+            RoleDao roleDao) {
         this.template = Objects.requireNonNull(template);
+        this.validationMode = Objects.requireNonNull(validationMode);
+        this.roleDao = Objects.requireNonNull(roleDao);
+    }
+
+    /**
+     * Constructs a new instance of the {@code JdbcUserDao} class working with the
+     * {@code shard}. It creates the users with the ids they have, which are allocated
+     * by {@link ShardedUserDao}, and verifies the role existence against the roles
+     * replicated to the {@code shard}. Upserts are not supported
+     *
+     * @param template       the template used to execute SQL statements within a transaction
+     * @param validationMode the way the conditions are verified before writing a user
+     * @param shard          the number of the shard
+     * @throws NullPointerException if the {@code template} or {@code validationMode} is null
+     */
+    JdbcUserDao(TransactionTemplate template, ValidationMode validationMode, int shard) {
+        super(shard);
+        this.template = Objects.requireNonNull(template);
+        this.validationMode = Objects.requireNonNull(validationMode);
+        this.roleDao = null;
     }
 
     @Override
     public void create(User user) {
         requireNonNull(user);
         requireValidBirthday(user.getBirthday());
-        template.execute(super::createConnection, session -> {
-            requireRoleExistence(session, user.getRole());
-            requireLoginAbsence(session, user.getLogin());
-            requireEmailAbsence(session, user.getEmail());
-            session.execute(CREATE, createInsertionSetter(user));
+        Long id = template.executeAndReturn(connections(), session -> {
+            if (validationMode == ValidationMode.SEPARATE_QUERIES) {
+                requireRoleExistence(session, user.getRole());
+                requireLoginAbsence(session, user.getLogin());
+                requireEmailAbsence(session, user.getEmail());
+            } else if (validationMode == ValidationMode.SINGLE_QUERY) {
+                validate(session, user, false);
+            }
+            return executeWithinConstraints(session, List.of(user), false, () -> insert(session, user));
         });
+        user.setId(id);
     }
 
     @Override
@@ -75,12 +197,19 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
         requireNonNull(user);
         requireValidBirthday(user.getBirthday());
         Objects.requireNonNull(user.getId());
-        template.execute(super::createConnection, session -> {
-            requireUserExistence(session, user);
-            requireRoleExistence(session, user.getRole());
-            ensureNobodyHasLoginOf(session, user);
-            ensureNobodyHasEmailOf(session, user);
-            session.execute(UPDATE, createUpdateSetter(user));
+        template.execute(connections(), session -> {
+            if (validationMode == ValidationMode.SEPARATE_QUERIES) {
+                requireUserExistence(session, user);
+                requireRoleExistence(session, user.getRole());
+                ensureNobodyHasLoginOf(session, user);
+                ensureNobodyHasEmailOf(session, user);
+            } else if (validationMode == ValidationMode.SINGLE_QUERY) {
+                validate(session, user, true);
+            }
+            if (executeWithinConstraints(session, List.of(user), false, () -> session.execute(UPDATE,
+                    GeneratedUserStatementSetter.forUpdate(user))) == 0) {
+                throw new UserNotFoundException();
+            }
         });
     }
 
@@ -88,32 +217,200 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
     public void remove(User user) {
         Objects.requireNonNull(user);
         Objects.requireNonNull(user.getId());
-        template.execute(super::createConnection, session -> {
+        template.execute(connections(), session -> {
             requireUserExistence(session, user);
             session.execute(REMOVE, user.getId());
         });
     }
 
+    @Override
+    public List<Long> createAll(Collection<User> users) {
+        Objects.requireNonNull(users);
+        users.forEach(user -> {
+            requireNonNull(user);
+            requireValidBirthday(user.getBirthday());
+        });
+        if (users.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = template.executeAndReturn(connections(), session -> {
+            requireRolesExistence(session, users);
+            ensureNobodyElseHas(session, FIND_IDS_BY_LOGINS, users, User::getLogin, "This login is busy");
+            ensureNobodyElseHas(session, FIND_IDS_BY_EMAILS, users, User::getEmail, "This email is busy");
+            session.setBatchSize(getBatchSize());
+            return insertAll(session, users);
+        });
+        assignIds(users, ids, User::setId);
+        return ids;
+    }
+
+    @Override
+    public void updateAll(Collection<User> users) {
+        Objects.requireNonNull(users);
+        users.forEach(user -> {
+            requireNonNull(user);
+            requireValidBirthday(user.getBirthday());
+            Objects.requireNonNull(user.getId());
+        });
+        if (users.isEmpty()) {
+            return;
+        }
+        template.execute(connections(), session -> {
+            requireUsersExistence(session, users);
+            requireRolesExistence(session, users);
+            ensureNobodyElseHas(session, FIND_IDS_BY_LOGINS, users, User::getLogin, "This login is busy");
+            ensureNobodyElseHas(session, FIND_IDS_BY_EMAILS, users, User::getEmail, "This email is busy");
+            session.setBatchSize(getBatchSize());
+            for (User user : users) {
+                session.addBatch(UPDATE, GeneratedUserStatementSetter.forUpdate(user));
+            }
+            session.executeBatch();
+        });
+    }
+
+    @Override
+    public void removeAll(Collection<User> users) {
+        Objects.requireNonNull(users);
+        users.forEach(user -> Objects.requireNonNull(Objects.requireNonNull(user).getId()));
+        if (users.isEmpty()) {
+            return;
+        }
+        template.execute(connections(), session -> {
+            requireUsersExistence(session, users);
+            session.setBatchSize(getBatchSize());
+            for (User user : users) {
+                session.addBatch(REMOVE, statement -> statement.setLong(1, user.getId()));
+            }
+            session.executeBatch();
+        });
+    }
+
+    @Override
+    public void upsert(User user) {
+        requireNoShard();
+        requireNonNull(user);
+        requireValidBirthday(user.getBirthday());
+        Long id = template.executeAndReturn(connections(),
+                session -> executeWithinConstraints(session, List.of(user), true,
+                        () -> session.executeAndReturnKeys(UPSERT,
+                        GeneratedUserStatementSetter.forInsert(user))).get(0));
+        user.setId(id);
+    }
+
+    @Override
+    public List<Long> upsertAll(Collection<User> users) {
+        requireNoShard();
+        Objects.requireNonNull(users);
+        users.forEach(user -> {
+            requireNonNull(user);
+            requireValidBirthday(user.getBirthday());
+        });
+        if (users.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (users.stream().map(User::getLogin).distinct().count() != users.size()) {
+            throw new UserAlreadyExistsException("This login is busy");
+        }
+        List<Long> ids = template.executeAndReturn(connections(), session -> {
+            session.setRowsPerStatement(getRowsPerStatement());
+            return executeWithinConstraints(session, users, true, () -> session.executeMultiRowAndReturnKeys(UPSERT,
+                    users, GeneratedUserStatementSetter::bind));
+        });
+        assignIds(users, ids, User::setId);
+        return ids;
+    }
+
     @Override
     public List<User> findAll() {
-        return template.executeAndReturn(super::createConnection,
+        return template.executeReadOnly(readOnlyConnections(),
                     session -> session.queryForList(FIND_ALL, new UserRowMapper()));
     }
 
+    @Override
+    public Stream<User> streamAll() {
+        return template.executeAndStream(connections(), session -> {
+            session.setFetchSize(getFetchSize());
+            return session.queryForStream(FIND_ALL, new UserRowMapper());
+        });
+    }
+
+    @Override
+    public Page<User> findPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        long after = afterId == null ? Long.MIN_VALUE : afterId;
+        // one extra row tells whether or not there is the next page
+        List<User> users = template.executeReadOnly(readOnlyConnections(),
+                session -> session.queryForList(FIND_PAGE, new UserRowMapper(), after, limit + 1));
+        if (users.size() <= limit) {
+            return new Page<>(users, null);
+        }
+        List<User> content = users.subList(0, limit);
+        return new Page<>(content, content.get(limit - 1).getId());
+    }
+
     @Override
     public User findByLogin(String login) {
-        return template.executeAndReturn(super::createConnection,
+        return template.executeReadOnly(readOnlyConnections(),
                 session -> findOptionalByLogin(session, login))
                 .orElseThrow(UserNotFoundException::new);
     }
 
     @Override
     public User findByEmail(String email) {
-        return template.executeAndReturn(super::createConnection,
+        return template.executeReadOnly(readOnlyConnections(),
                 session -> findOptionalByEmail(session, email))
                 .orElseThrow(UserNotFoundException::new);
     }
 
+    /**
+     * Finds the ids of the users having any of the {@code logins}
+     *
+     * @param logins the logins to be looked up
+     * @return the ids by the logins, only of the logins which exist
+     * @throws CustomSqlException if any SQL error occurs
+     */
+    Map<String, Long> findIdsByLogins(Collection<String> logins) {
+        if (logins.isEmpty()) {
+            return new HashMap<>();
+        }
+        return template.executeReadOnly(readOnlyConnections(),
+                session -> queryByInList(session, FIND_IDS_BY_LOGINS,
+                        (resultSet, rowNumber) -> Map.entry(resultSet.getString(2), resultSet.getLong(1)),
+                        logins))
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private Long insert(Session session, User user) {
+        if (isShard()) {
+            session.execute(CREATE_WITH_ID, GeneratedUserStatementSetter.forUpdate(user));
+            return user.getId();
+        }
+        return session.executeAndReturnKeys(CREATE, GeneratedUserStatementSetter.forInsert(user)).get(0);
+    }
+
+    private List<Long> insertAll(Session session, Collection<User> users) {
+        if (isShard()) {
+            for (User user : users) {
+                session.addBatch(CREATE_WITH_ID, GeneratedUserStatementSetter.forUpdate(user));
+            }
+            session.executeBatch();
+            return users.stream().map(User::getId).collect(Collectors.toList());
+        }
+        return session.executeBatchAndReturnKeys(CREATE, users, GeneratedUserStatementSetter::bind);
+    }
+
+    /**
+     * The {@code MERGE} of a shard would replace the ids allocated by the shard index
+     */
+    private void requireNoShard() {
+        if (isShard()) {
+            throw new UnsupportedOperationException("Upserts are not supported by a shard");
+        }
+    }
+
     private void ensureNobodyHasLoginOf(Session session, User user) {
         findOptionalByLogin(session, user.getLogin())
                 .ifPresent(other -> {
@@ -144,6 +441,75 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
         return session.queryForObject(query, new UserRowMapper(), field);
     }
 
+    /**
+     * Verifies all the conditions with the single {@link #VALIDATE} query
+     *
+     * @param session  the session to execute queries
+     * @param user     the user to be verified
+     * @param existing whether or not the existence of the {@code user} is to be verified
+     * @throws UserNotFoundException      if the {@code user's id} is wrong
+     * @throws RoleNotFoundException      if the {@code user's role} does not exist
+     * @throws UserAlreadyExistsException if another user has the login or email
+     * @throws CustomSqlException         if any SQL error occurs
+     */
+    private void validate(Session session, User user, boolean existing) {
+        Long id = user.getId();
+        boolean[] conditions = session.queryForObject(VALIDATE,
+                (resultSet, rowNumber) -> new boolean[]{resultSet.getBoolean(1),
+                        resultSet.getBoolean(2), resultSet.getBoolean(3), resultSet.getBoolean(4)},
+                id, user.getRole().getId(), user.getLogin(), id, user.getEmail(), id)
+                .orElseThrow();
+        if (existing && !conditions[0]) {
+            throw new UserNotFoundException();
+        }
+        if (!conditions[1]) {
+            throw new RoleNotFoundException();
+        }
+        if (conditions[2]) {
+            throw new UserAlreadyExistsException("This login is busy");
+        }
+        if (conditions[3]) {
+            throw new UserAlreadyExistsException("This email is busy");
+        }
+    }
+
+    /**
+     * Executes the {@code statement} translating violations of the schema constraints
+     * into the corresponding exceptions. A unique violation is classified by looking up
+     * the owners of the logins and emails of the {@code users}, since the failed
+     * statement leaves the transaction of H2 usable
+     *
+     * @param session   the session the {@code statement} is executed by
+     * @param users     the users written by the {@code statement}
+     * @param upsert    whether or not the {@code users} are merged by login, so the
+     *                  owners of their logins are the users being updated
+     * @param statement the INSERT, UPDATE or MERGE operation to be executed
+     * @param <T>       the type of the result of the {@code statement}
+     * @return the result of the {@code statement}
+     * @throws RoleNotFoundException      if the user's role does not exist
+     * @throws UserAlreadyExistsException if another user has the login or email
+     * @throws CustomSqlException         if any other SQL error occurs
+     */
+    private <T> T executeWithinConstraints(Session session, Collection<User> users,
+            boolean upsert, Supplier<T> statement) {
+        try {
+            return statement.get();
+        } catch (CustomSqlException exception) {
+            if (hasSqlState(exception, UNIQUE_VIOLATION)) {
+                if (!upsert) {
+                    ensureNobodyElseHas(session, FIND_IDS_BY_LOGINS, users, User::getLogin, "This login is busy");
+                }
+                ensureNobodyElseHas(session, FIND_IDS_BY_EMAILS, users, User::getEmail, "This email is busy");
+                // the row collided with has not been committed yet
+                throw new UserAlreadyExistsException();
+            }
+            if (hasSqlState(exception, FOREIGN_KEY_VIOLATION)) {
+                throw new RoleNotFoundException();
+            }
+            throw exception;
+        }
+    }
+
     /**
      * Checks all of the not null fields if they are null. If so, then the method
      * throws {@code NullPointerException}
@@ -183,7 +549,9 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
      * @throws CustomSqlException    if any SQL error occurs
      */
     private void requireRoleExistence(Session session, Role role) {
-        if (!session.exists(Role.TABLE, "id", role.getId())) {
+        if (roleDao != null) {
+            roleDao.findById(role.getId());
+        } else if (!session.exists(Role.TABLE, "id", role.getId())) {
             throw new RoleNotFoundException();
         }
     }
@@ -194,6 +562,70 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
         }
     }
 
+    /**
+     * Verifies whether or not all the ids of the {@code users} exist
+     *
+     * @param session the session to execute queries
+     * @param users   the users to be verified
+     * @throws UserNotFoundException if any of the ids does not exist
+     * @throws CustomSqlException    if any SQL error occurs
+     */
+    private void requireUsersExistence(Session session, Collection<User> users) {
+        Set<Long> ids = users.stream().map(User::getId).collect(Collectors.toSet());
+        if (countByInList(session, COUNT_BY_IDS, ids) != ids.size()) {
+            throw new UserNotFoundException();
+        }
+    }
+
+    /**
+     * Verifies whether or not all the roles of the {@code users} exist
+     *
+     * @param session the session to execute queries
+     * @param users   the users whose roles to be verified
+     * @throws RoleNotFoundException if any of the roles does not exist
+     * @throws CustomSqlException    if any SQL error occurs
+     */
+    private void requireRolesExistence(Session session, Collection<User> users) {
+        Set<Long> ids = users.stream().map(user -> user.getRole().getId()).collect(Collectors.toSet());
+        if (roleDao != null) {
+            ids.forEach(roleDao::findById);
+        } else if (countByInList(session, COUNT_ROLES_BY_IDS, ids) != ids.size()) {
+            throw new RoleNotFoundException();
+        }
+    }
+
+    /**
+     * Ensures that the values of the {@code field} are unique within the {@code users}
+     * and do not belong to any other user in the database. A user may keep its own
+     * value, so the users to be created (having no id) never match the stored ones
+     *
+     * @param session the session to execute queries
+     * @param query   the query selecting an id and the {@code field} by the {@code IN_LIST}
+     * @param users   the users to be verified
+     * @param field   the getter of the unique field
+     * @param message the message of the exception
+     * @throws UserAlreadyExistsException if any value repeats or belongs to another user
+     * @throws CustomSqlException         if any SQL error occurs
+     */
+    private void ensureNobodyElseHas(Session session, String query, Collection<User> users,
+            Function<User, String> field, String message) {
+        Map<String, Long> idsByValue = new HashMap<>();
+        for (User user : users) {
+            if (idsByValue.containsKey(field.apply(user))) {
+                throw new UserAlreadyExistsException(message);
+            }
+            idsByValue.put(field.apply(user), user.getId());
+        }
+        List<Map.Entry<String, Long>> owners = queryByInList(session, query,
+                (resultSet, rowNumber) -> Map.entry(resultSet.getString(2), resultSet.getLong(1)),
+                idsByValue.keySet());
+        for (Map.Entry<String, Long> owner : owners) {
+            if (!owner.getValue().equals(idsByValue.get(owner.getKey()))) {
+                throw new UserAlreadyExistsException(message);
+            }
+        }
+    }
+
     private void requireLoginAbsence(Session session, String login) {
         requireUserAbsence(session, "login", login);
     }
@@ -207,26 +639,4 @@ public class JdbcUserDao extends AbstractJdbcDao implements UserDao {
             throw new UserAlreadyExistsException();
         }
     }
-
-    private PreparedStatementSetter createInsertionSetter(User user) {
-        return statement -> fillFields(statement, user);
-    }
-
-    private PreparedStatementSetter createUpdateSetter(User user) {
-        return statement -> {
-            fillFields(statement, user);
-            statement.setLong(8, user.getId());
-        };
-    }
-
-    private void fillFields(PreparedStatement statement, User user)
-            throws SQLException {
-        statement.setString(1, user.getLogin());
-        statement.setString(2, user.getPassword());
-        statement.setString(3, user.getEmail());
-        statement.setString(4, user.getFirstName());
-        statement.setString(5, user.getLastName());
-        statement.setDate(6, user.getBirthday());
-        statement.setLong(7, user.getRole().getId());
-    }
 }
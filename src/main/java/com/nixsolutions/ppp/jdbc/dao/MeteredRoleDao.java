@@ -0,0 +1,127 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.tool.JdbcMetrics;
+import com.nixsolutions.ppp.jdbc.tool.LatencyHistogram;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * The {@code MeteredRoleDao} records the latency of every operation of another
+ * {@code RoleDao} in {@link JdbcMetrics} under {@code RoleDao.<method>}
+ *
+ * @see MeteredUserDao
+ */
+public class MeteredRoleDao implements RoleDao {
+
+    private final RoleDao delegate;
+
+    private final LatencyHistogram create;
+    private final LatencyHistogram update;
+    private final LatencyHistogram remove;
+    private final LatencyHistogram createAll;
+    private final LatencyHistogram updateAll;
+    private final LatencyHistogram removeAll;
+    private final LatencyHistogram upsert;
+    private final LatencyHistogram upsertAll;
+    private final LatencyHistogram findById;
+    private final LatencyHistogram findByName;
+
+    /**
+     * Constructs a new instance of the {@code MeteredRoleDao} class
+     *
+     * @param delegate the DAO executing the operations
+     * @param metrics  the metrics the latencies are recorded in
+     * @throws NullPointerException if any of the arguments is null
+     */
+    public MeteredRoleDao(RoleDao delegate, JdbcMetrics metrics) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.create = metrics.operation("RoleDao.create");
+        this.update = metrics.operation("RoleDao.update");
+        this.remove = metrics.operation("RoleDao.remove");
+        this.createAll = metrics.operation("RoleDao.createAll");
+        this.updateAll = metrics.operation("RoleDao.updateAll");
+        this.removeAll = metrics.operation("RoleDao.removeAll");
+        this.upsert = metrics.operation("RoleDao.upsert");
+        this.upsertAll = metrics.operation("RoleDao.upsertAll");
+        this.findById = metrics.operation("RoleDao.findById");
+        this.findByName = metrics.operation("RoleDao.findByName");
+    }
+
+    @Override
+    public void create(Role role) {
+        time(create, () -> delegate.create(role));
+    }
+
+    @Override
+    public void update(Role role) {
+        time(update, () -> delegate.update(role));
+    }
+
+    @Override
+    public void remove(Role role) {
+        time(remove, () -> delegate.remove(role));
+    }
+
+    @Override
+    public List<Long> createAll(Collection<Role> roles) {
+        return time(createAll, () -> delegate.createAll(roles));
+    }
+
+    @Override
+    public void updateAll(Collection<Role> roles) {
+        time(updateAll, () -> delegate.updateAll(roles));
+    }
+
+    @Override
+    public void removeAll(Collection<Role> roles) {
+        time(removeAll, () -> delegate.removeAll(roles));
+    }
+
+    @Override
+    public void upsert(Role role) {
+        time(upsert, () -> delegate.upsert(role));
+    }
+
+    @Override
+    public List<Long> upsertAll(Collection<Role> roles) {
+        return time(upsertAll, () -> delegate.upsertAll(roles));
+    }
+
+    @Override
+    public Role findById(Long id) {
+        return time(findById, () -> delegate.findById(id));
+    }
+
+    @Override
+    public Role findByName(String name) {
+        return time(findByName, () -> delegate.findByName(name));
+    }
+
+    /**
+     * Runs the {@code operation} recording its latency in the {@code histogram},
+     * as a failure if it throws
+     */
+    private <T> T time(LatencyHistogram histogram, Supplier<T> operation) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException exception) {
+            histogram.recordFailure(System.nanoTime() - start);
+            throw exception;
+        }
+        histogram.record(System.nanoTime() - start);
+        return result;
+    }
+
+    private void time(LatencyHistogram histogram, Runnable operation) {
+        time(histogram, () -> {
+            operation.run();
+            return null;
+        });
+    }
+}
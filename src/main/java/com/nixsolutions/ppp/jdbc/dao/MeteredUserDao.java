@@ -0,0 +1,151 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.tool.JdbcMetrics;
+import com.nixsolutions.ppp.jdbc.tool.LatencyHistogram;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * The {@code MeteredUserDao} records the latency of every operation of another
+ * {@code UserDao} in {@link JdbcMetrics} under {@code UserDao.<method>}. The
+ * histograms are resolved once, so recording costs two clock reads
+ */
+public class MeteredUserDao implements UserDao {
+
+    private final UserDao delegate;
+
+    private final LatencyHistogram create;
+    private final LatencyHistogram update;
+    private final LatencyHistogram remove;
+    private final LatencyHistogram createAll;
+    private final LatencyHistogram updateAll;
+    private final LatencyHistogram removeAll;
+    private final LatencyHistogram upsert;
+    private final LatencyHistogram upsertAll;
+    private final LatencyHistogram findAll;
+    private final LatencyHistogram streamAll;
+    private final LatencyHistogram findPage;
+    private final LatencyHistogram findByLogin;
+    private final LatencyHistogram findByEmail;
+
+    /**
+     * Constructs a new instance of the {@code MeteredUserDao} class
+     *
+     * @param delegate the DAO executing the operations
+     * @param metrics  the metrics the latencies are recorded in
+     * @throws NullPointerException if any of the arguments is null
+     */
+    public MeteredUserDao(UserDao delegate, JdbcMetrics metrics) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.create = metrics.operation("UserDao.create");
+        this.update = metrics.operation("UserDao.update");
+        this.remove = metrics.operation("UserDao.remove");
+        this.createAll = metrics.operation("UserDao.createAll");
+        this.updateAll = metrics.operation("UserDao.updateAll");
+        this.removeAll = metrics.operation("UserDao.removeAll");
+        this.upsert = metrics.operation("UserDao.upsert");
+        this.upsertAll = metrics.operation("UserDao.upsertAll");
+        this.findAll = metrics.operation("UserDao.findAll");
+        this.streamAll = metrics.operation("UserDao.streamAll");
+        this.findPage = metrics.operation("UserDao.findPage");
+        this.findByLogin = metrics.operation("UserDao.findByLogin");
+        this.findByEmail = metrics.operation("UserDao.findByEmail");
+    }
+
+    @Override
+    public void create(User user) {
+        time(create, () -> delegate.create(user));
+    }
+
+    @Override
+    public void update(User user) {
+        time(update, () -> delegate.update(user));
+    }
+
+    @Override
+    public void remove(User user) {
+        time(remove, () -> delegate.remove(user));
+    }
+
+    @Override
+    public List<Long> createAll(Collection<User> users) {
+        return time(createAll, () -> delegate.createAll(users));
+    }
+
+    @Override
+    public void updateAll(Collection<User> users) {
+        time(updateAll, () -> delegate.updateAll(users));
+    }
+
+    @Override
+    public void removeAll(Collection<User> users) {
+        time(removeAll, () -> delegate.removeAll(users));
+    }
+
+    @Override
+    public void upsert(User user) {
+        time(upsert, () -> delegate.upsert(user));
+    }
+
+    @Override
+    public List<Long> upsertAll(Collection<User> users) {
+        return time(upsertAll, () -> delegate.upsertAll(users));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return time(findAll, () -> delegate.findAll());
+    }
+
+    /**
+     * Records the time of opening the stream only, as it is consumed by the caller
+     */
+    @Override
+    public Stream<User> streamAll() {
+        return time(streamAll, () -> delegate.streamAll());
+    }
+
+    @Override
+    public Page<User> findPage(Long afterId, int limit) {
+        return time(findPage, () -> delegate.findPage(afterId, limit));
+    }
+
+    @Override
+    public User findByLogin(String login) {
+        return time(findByLogin, () -> delegate.findByLogin(login));
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return time(findByEmail, () -> delegate.findByEmail(email));
+    }
+
+    /**
+     * Runs the {@code operation} recording its latency in the {@code histogram},
+     * as a failure if it throws
+     */
+    private <T> T time(LatencyHistogram histogram, Supplier<T> operation) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException exception) {
+            histogram.recordFailure(System.nanoTime() - start);
+            throw exception;
+        }
+        histogram.record(System.nanoTime() - start);
+        return result;
+    }
+
+    private void time(LatencyHistogram histogram, Runnable operation) {
+        time(histogram, () -> {
+            operation.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The {@code Page} is a slice of rows ordered by id together with the cursor to
+ * fetch the next slice
+ *
+ * @param <T> the type of the elements of the page
+ * @see UserDao#findPage(Long, int)
+ */
+public class Page<T> {
+
+    private final List<T> content;
+
+    private final Long nextCursor;
+
+    /**
+     * Constructs a new page
+     *
+     * @param content    the elements of the page
+     * @param nextCursor the id after which the next page starts or {@code null} if
+     *                   this page is the last one
+     * @throws NullPointerException if the {@code content} is null
+     */
+    public Page(List<T> content, Long nextCursor) {
+        this.content = Collections.unmodifiableList(Objects.requireNonNull(content));
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the id to be passed as {@code afterId} to fetch the next page
+     *
+     * @return the cursor of the next page or {@code null} if this page is the last one
+     */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" + "content=" + content + ", nextCursor=" + nextCursor + '}';
+    }
+}
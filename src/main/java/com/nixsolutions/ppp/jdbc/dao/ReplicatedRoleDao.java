@@ -0,0 +1,196 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.config.DataSourceFactory;
+import com.nixsolutions.ppp.jdbc.entity.GeneratedRoleRowMapper;
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+import com.nixsolutions.ppp.jdbc.tool.Propagation;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code ReplicatedRoleDao} writes the roles through another {@code RoleDao}
+ * working with the primary database and replicates them to every shard of
+ * {@link ShardedUserDao} with the same ids, so the role of a user is verified on
+ * its shard. The roles are read through the delegate. A role is not removed while
+ * any shard has a user referring to it.
+ * <p>
+ * The shards are written after the delegate, each in its own transaction. If a
+ * shard fails, the delegate keeps the change: {@link #synchronize()} copies all the
+ * roles of the primary database to the shards again
+ */
+public class ReplicatedRoleDao extends AbstractJdbcDao implements RoleDao {
+
+    /**
+     * The {@code MERGE} query creating or renaming a role of a shard
+     */
+    private final static String REPLICATE = "MERGE INTO role (id, name) KEY(id) VALUES (?, ?)";
+
+    private final static String REMOVE = "DELETE FROM role WHERE id = ?";
+
+    private final static String FIND_ALL = "SELECT id, name FROM role";
+
+    private final static String COUNT_USERS_BY_ROLE_IDS = "SELECT COUNT(*) FROM user WHERE role_id IN " + IN_LIST;
+
+    private final RoleDao delegate;
+
+    /**
+     * The {@code TransactionTemplate} is used to execute queries within a single
+     * transaction
+     */
+    private final TransactionTemplate template;
+
+    /**
+     * Constructs a new instance of the {@code ReplicatedRoleDao} class
+     *
+     * @param delegate the DAO used to read and write the roles of the primary database
+     * @param template the template used to execute SQL statements within a transaction
+     * @throws NullPointerException if any of the arguments is null
+     */
+    public ReplicatedRoleDao(RoleDao delegate, TransactionTemplate template) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.template = Objects.requireNonNull(template);
+    }
+
+    @Override
+    public void create(Role role) {
+        delegate.create(role);
+        replicate(List.of(role));
+    }
+
+    @Override
+    public void update(Role role) {
+        delegate.update(role);
+        replicate(List.of(role));
+    }
+
+    @Override
+    public void remove(Role role) {
+        Objects.requireNonNull(role);
+        Objects.requireNonNull(role.getId());
+        requireNoReferenceToRoles(List.of(role));
+        delegate.remove(role);
+        removeReplicas(List.of(role));
+    }
+
+    @Override
+    public List<Long> createAll(Collection<Role> roles) {
+        List<Long> ids = delegate.createAll(roles);
+        replicate(roles);
+        return ids;
+    }
+
+    @Override
+    public void updateAll(Collection<Role> roles) {
+        delegate.updateAll(roles);
+        replicate(roles);
+    }
+
+    @Override
+    public void removeAll(Collection<Role> roles) {
+        Objects.requireNonNull(roles);
+        roles.forEach(role -> Objects.requireNonNull(Objects.requireNonNull(role).getId()));
+        requireNoReferenceToRoles(roles);
+        delegate.removeAll(roles);
+        removeReplicas(roles);
+    }
+
+    @Override
+    public void upsert(Role role) {
+        delegate.upsert(role);
+        replicate(List.of(role));
+    }
+
+    @Override
+    public List<Long> upsertAll(Collection<Role> roles) {
+        List<Long> ids = delegate.upsertAll(roles);
+        replicate(roles);
+        return ids;
+    }
+
+    @Override
+    public Role findById(Long id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Role findByName(String name) {
+        return delegate.findByName(name);
+    }
+
+    /**
+     * Copies all the roles of the primary database to every shard, e.g. after the
+     * shards are created or a replication has failed
+     *
+     * @throws CustomSqlException if any SQL error occurs
+     */
+    public void synchronize() {
+        List<Role> roles = template.executeReadOnly(connections(),
+                session -> session.queryForList(FIND_ALL, new GeneratedRoleRowMapper()));
+        replicate(roles);
+    }
+
+    private void replicate(Collection<Role> roles) {
+        if (roles.isEmpty()) {
+            return;
+        }
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int number = shard;
+            // a transaction of the calling thread belongs to the primary database
+            template.execute(shardConnections(number), Propagation.REQUIRES_NEW, session -> {
+                session.setBatchSize(getBatchSize());
+                for (Role role : roles) {
+                    session.addBatch(REPLICATE, statement -> {
+                        statement.setLong(1, role.getId());
+                        statement.setString(2, role.getName());
+                    });
+                }
+                session.executeBatch();
+            });
+        }
+    }
+
+    private void removeReplicas(Collection<Role> roles) {
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int number = shard;
+            template.execute(shardConnections(number), Propagation.REQUIRES_NEW, session -> {
+                session.setBatchSize(getBatchSize());
+                for (Role role : roles) {
+                    session.addBatch(REMOVE, statement -> statement.setLong(1, role.getId()));
+                }
+                session.executeBatch();
+            });
+        }
+    }
+
+    /**
+     * Verifies that no user of any shard refers to the {@code roles}
+     *
+     * @param roles the roles to be removed
+     * @throws UnsupportedOperationException if any user refers to any of the roles
+     * @throws CustomSqlException            if any SQL error occurs
+     */
+    private void requireNoReferenceToRoles(Collection<Role> roles) {
+        if (roles.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = roles.stream().map(Role::getId).collect(Collectors.toSet());
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            int number = shard;
+            long references = template.executeAndReturn(shardConnections(number),
+                    Propagation.REQUIRES_NEW, session -> countByInList(session, COUNT_USERS_BY_ROLE_IDS, ids));
+            if (references > 0) {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+
+    private int getShardCount() {
+        return DataSourceFactory.getInstance().getShardCount();
+    }
+}
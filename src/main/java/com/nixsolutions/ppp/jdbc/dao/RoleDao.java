@@ -5,6 +5,9 @@ import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
 import com.nixsolutions.ppp.jdbc.exception.RoleAlreadyExistsException;
 import com.nixsolutions.ppp.jdbc.exception.RoleNotFoundException;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * The {@code RoleDao} is responsible for querying the "Role" storage, containing
  * basic necessary operations to manipulate data of the storage
@@ -16,7 +19,8 @@ public interface RoleDao {
     /**
      * Creates a new {@code Role} in the database if it has not created yet. The
      * method omits the {@code role's id} as it uses {@code AUTO_INCREMENT} in order
-     * to automatically generate the next id value
+     * to automatically generate the next id value, which is set to the {@code role}
+     * once it is created
      *
      * @param role the role to be created
      * @throws NullPointerException       if the {@code role} or its {@code name} is {@code null}
@@ -52,6 +56,91 @@ public interface RoleDao {
             throws RoleNotFoundException, UnsupportedOperationException,
             CustomSqlException;
 
+    /**
+     * Creates all the {@code roles} in the database within a single transaction
+     * sending them in batches. The uniqueness of names is checked for the whole set
+     * before any of the roles is inserted. The generated ids are set to the
+     * {@code roles} once they are created
+     *
+     * @param roles the roles to be created
+     * @return the ids generated for the {@code roles} in their order
+     * @throws NullPointerException       if any of the {@code roles} or its {@code name} is null
+     * @throws RoleAlreadyExistsException if any name already exists or repeats within the {@code roles}
+     * @throws CustomSqlException         if any SQL error occurs
+     * @see #create(Role)
+     */
+    List<Long> createAll(Collection<Role> roles)
+            throws RoleAlreadyExistsException, CustomSqlException;
+
+    /**
+     * Updates all the existing {@code roles} in the database within a single
+     * transaction sending them in batches
+     *
+     * @param roles the roles to be updated
+     * @throws NullPointerException       if any of the {@code roles}, its {@code id} or {@code name} is null
+     * @throws RoleNotFoundException      if an id of any of the {@code roles} is wrong
+     * @throws RoleAlreadyExistsException if another role has a name of any of the {@code roles}
+     * @throws CustomSqlException         if any SQL error occurs
+     * @see #update(Role)
+     */
+    void updateAll(Collection<Role> roles)
+            throws RoleNotFoundException, RoleAlreadyExistsException,
+            CustomSqlException;
+
+    /**
+     * Removes all the {@code roles} from the database within a single transaction
+     * sending them in batches. None of the roles is removed if any user has any of them
+     *
+     * @param roles the roles to be removed
+     * @throws NullPointerException          if any of the {@code roles} or its {@code id} is null
+     * @throws RoleNotFoundException         if any of the {@code roles} not found
+     * @throws UnsupportedOperationException if any user has any of the {@code roles}
+     * @throws CustomSqlException            if any SQL error occurs
+     * @see #remove(Role)
+     */
+    void removeAll(Collection<Role> roles)
+            throws RoleNotFoundException, UnsupportedOperationException,
+            CustomSqlException;
+
+    /**
+     * Creates the {@code role} unless a role with its {@code name} already exists
+     * with a single {@code MERGE} statement. The {@code role's id} is ignored; the
+     * id of the created or existing row is set to the {@code role}
+     *
+     * @param role the role to be created if absent
+     * @throws NullPointerException if the {@code role} or its {@code name} is null
+     * @throws CustomSqlException   if any SQL error occurs
+     */
+    void upsert(Role role) throws CustomSqlException;
+
+    /**
+     * Creates all the absent {@code roles} by their names within a single transaction
+     * sending them in multi-row {@code MERGE} statements. The ids of the created
+     * or existing rows are set to the {@code roles}
+     *
+     * @param roles the roles to be created if absent
+     * @return the ids of the {@code roles} in their order
+     * @throws NullPointerException       if any of the {@code roles} or its {@code name} is null
+     * @throws RoleAlreadyExistsException if a name repeats within the {@code roles}
+     * @throws CustomSqlException         if any SQL error occurs
+     * @see #upsert(Role)
+     */
+    List<Long> upsertAll(Collection<Role> roles)
+            throws RoleAlreadyExistsException, CustomSqlException;
+
+    /**
+     * Finds one role by the specified {@code id}
+     *
+     * @param id the id to search for the {@code Role}
+     * @return the {@code Role} found by its id
+     * @throws NullPointerException  if the {@code id} is null
+     * @throws RoleNotFoundException if any {@code Role} not found
+     * @throws CustomSqlException    if any SQL error occurs
+     * @see #findByName(String)
+     */
+    Role findById(Long id)
+            throws RoleNotFoundException, CustomSqlException;
+
     /**
      * Finds one role by the specified {@code name}
      *
@@ -0,0 +1,742 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.config.DataSourceFactory;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+import com.nixsolutions.ppp.jdbc.exception.UserAlreadyExistsException;
+import com.nixsolutions.ppp.jdbc.exception.UserNotFoundException;
+import com.nixsolutions.ppp.jdbc.tool.DatabaseExecutor;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.Propagation;
+import com.nixsolutions.ppp.jdbc.tool.RowMapper;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The {@code ShardedUserDao} spreads the users over the shards configured with the
+ * {@code database.shard.urls} property. A user lives on the shard chosen by the
+ * consistent hash of its login, so a login is unique as long as it is unique within
+ * its shard, and the lookups by login go to one shard. The global
+ * {@code user_shard_index} table of the primary database allocates the ids and maps
+ * them and the emails to the shards: it keeps the emails unique across the shards
+ * and routes the lookups by email. {@link #findAll()}, {@link #streamAll()} and
+ * {@link #findPage(Long, int)} query all the shards in parallel and merge the users
+ * by id.
+ * <p>
+ * The role existence is verified on the shard a user is written to, so the roles
+ * have to be replicated to every shard with {@link ReplicatedRoleDao}.
+ * <p>
+ * The shards and the index are written in separate transactions, the index always
+ * in its own one, so it never joins a transaction of the calling thread, which
+ * could roll back the index after the shards have committed. A failed write of
+ * a shard reverts the entries of the index written for it, so the index stays
+ * consistent with the shards, but the other shards keep the users of a bulk
+ * operation they have written, and the users created there keep their ids. The
+ * work of the shards is submitted to the executor, but a thread waiting for a piece
+ * of work the executor has not started yet runs it itself. So the scatter neither
+ * deadlocks when called from a thread of the same executor, e.g. through
+ * {@link AsyncUserDao}, nor fails when the executor is saturated. The work of a
+ * shard whose transaction is bound to the calling thread always runs on that thread
+ * within the transaction, any other work always runs in its own transaction.
+ * <p>
+ * The number of the shards cannot change once users are written, as the users are
+ * not rebalanced; {@code DataSourceFactory} refuses to start with another number
+ */
+public class ShardedUserDao extends AbstractJdbcDao implements UserDao {
+
+    private final static String INDEX_CREATE = "INSERT INTO user_shard_index (email, shard) VALUES (?, ?)";
+
+    private final static String INDEX_UPDATE = "UPDATE user_shard_index SET email = ?, shard = ? WHERE id = ?";
+
+    private final static String INDEX_REMOVE = "DELETE FROM user_shard_index WHERE id = ?";
+
+    private final static String INDEX_FIND_BY_ID = "SELECT id, email, shard FROM user_shard_index WHERE id = ?";
+
+    private final static String INDEX_FIND_BY_IDS =
+            "SELECT id, email, shard FROM user_shard_index WHERE id IN " + IN_LIST;
+
+    private final static String INDEX_FIND_SHARD_BY_EMAIL = "SELECT shard FROM user_shard_index WHERE email = ?";
+
+    private final static Comparator<User> BY_ID = Comparator.comparing(User::getId);
+
+    private final static RowMapper<Location> LOCATION_MAPPER = (resultSet, rowNumber) ->
+            new Location(resultSet.getLong(1), resultSet.getString(2), resultSet.getInt(3));
+
+    /**
+     * The {@code TransactionTemplate} is used to execute queries within a single
+     * transaction
+     */
+    private final TransactionTemplate template;
+
+    /**
+     * The DAOs of the shards in the order of their numbers
+     */
+    private final List<JdbcUserDao> shards;
+
+    private final ConsistentHashRing ring;
+
+    /**
+     * The executor running the work of the shards along with the waiting threads
+     */
+    private final DatabaseExecutor executor;
+
+    /**
+     * Constructs a new instance of the {@code ShardedUserDao} class verifying every
+     * condition with a separate query
+     *
+     * @param template the template used to execute SQL statements within a transaction
+     * @param executor the executor running the work of the shards
+     * @throws NullPointerException  if any of the arguments is null
+     * @throws IllegalStateException if no shards are configured
+     */
+    public ShardedUserDao(TransactionTemplate template, DatabaseExecutor executor) {
+        this(template, ValidationMode.SEPARATE_QUERIES, executor);
+    }
+
+    /**
+     * Constructs a new instance of the {@code ShardedUserDao} class. The
+     * {@code executor} should run as many tasks at once as there are shards at least,
+     * so the shards are queried in parallel
+     *
+     * @param template       the template used to execute SQL statements within a transaction
+     * @param validationMode the way the conditions are verified on a shard before writing a user
+     * @param executor       the executor running the work of the shards
+     * @throws NullPointerException  if any of the arguments is null
+     * @throws IllegalStateException if no shards are configured
+     */
+    public ShardedUserDao(TransactionTemplate template, ValidationMode validationMode,
+            DatabaseExecutor executor) {
+        this.template = Objects.requireNonNull(template);
+        Objects.requireNonNull(validationMode);
+        this.executor = Objects.requireNonNull(executor);
+        int shardCount = DataSourceFactory.getInstance().getShardCount();
+        if (shardCount == 0) {
+            throw new IllegalStateException("No shards are configured");
+        }
+        List<JdbcUserDao> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards.add(new JdbcUserDao(template, validationMode, shard));
+        }
+        this.shards = Collections.unmodifiableList(shards);
+        this.ring = new ConsistentHashRing(shardCount);
+    }
+
+    @Override
+    public void create(User user) {
+        requireKeys(user);
+        int shard = ring.shardOf(user.getLogin());
+        user.setId(reserveAll(List.of(new Location(null, user.getEmail(), shard))).get(0));
+        try {
+            runOnShard(shard, dao -> dao.create(user));
+        } catch (RuntimeException exception) {
+            release(List.of(user));
+            user.setId(null);
+            throw exception;
+        }
+    }
+
+    @Override
+    public void update(User user) {
+        requireKeys(user);
+        Objects.requireNonNull(user.getId());
+        Location stored = locate(user.getId());
+        Location target = new Location(user.getId(), user.getEmail(), ring.shardOf(user.getLogin()));
+        if (stored.equals(target)) {
+            runOnShard(target.shard, dao -> dao.update(user));
+            return;
+        }
+        relocate(List.of(target));
+        try {
+            if (stored.shard == target.shard) {
+                runOnShard(target.shard, dao -> dao.update(user));
+            } else {
+                move(user, stored.shard, target.shard);
+            }
+        } catch (RuntimeException exception) {
+            relocate(List.of(stored));
+            throw exception;
+        }
+    }
+
+    @Override
+    public void remove(User user) {
+        Objects.requireNonNull(user);
+        Objects.requireNonNull(user.getId());
+        Location stored = locate(user.getId());
+        runOnShard(stored.shard, dao -> dao.remove(user));
+        release(List.of(user));
+    }
+
+    @Override
+    public List<Long> createAll(Collection<User> users) {
+        Objects.requireNonNull(users);
+        users.forEach(this::requireKeys);
+        if (users.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Location> targets = users.stream()
+                .map(user -> new Location(null, user.getEmail(), ring.shardOf(user.getLogin())))
+                .collect(Collectors.toList());
+        List<Long> ids = reserveAll(targets);
+        assignIds(users, ids, User::setId);
+        Map<Integer, List<User>> groups = groupByShard(users, user -> ring.shardOf(user.getLogin()));
+        Map<Integer, RuntimeException> failures = runOnShards(groups, JdbcUserDao::createAll);
+        failures.keySet().forEach(shard -> {
+            release(groups.get(shard));
+            groups.get(shard).forEach(user -> user.setId(null));
+        });
+        throwFirst(failures);
+        return ids;
+    }
+
+    @Override
+    public void updateAll(Collection<User> users) {
+        Objects.requireNonNull(users);
+        users.forEach(user -> {
+            requireKeys(user);
+            Objects.requireNonNull(user.getId());
+        });
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<Long, Location> stored = locateAll(users);
+        List<Location> changed = new ArrayList<>();
+        Map<Integer, List<User>> staying = new TreeMap<>();
+        List<User> moving = new ArrayList<>();
+        for (User user : users) {
+            Location from = stored.get(user.getId());
+            Location target = new Location(user.getId(), user.getEmail(), ring.shardOf(user.getLogin()));
+            if (!from.equals(target)) {
+                changed.add(target);
+            }
+            if (from.shard == target.shard) {
+                staying.computeIfAbsent(target.shard, shard -> new ArrayList<>()).add(user);
+            } else {
+                moving.add(user);
+            }
+        }
+        relocate(changed);
+        Map<Integer, RuntimeException> failures = runOnShards(staying, JdbcUserDao::updateAll);
+        failures.keySet().forEach(shard -> relocate(locationsOf(staying.get(shard), stored)));
+        for (User user : moving) {
+            Location from = stored.get(user.getId());
+            try {
+                move(user, from.shard, ring.shardOf(user.getLogin()));
+            } catch (RuntimeException exception) {
+                relocate(List.of(from));
+                failures.putIfAbsent(from.shard, exception);
+            }
+        }
+        throwFirst(failures);
+    }
+
+    @Override
+    public void removeAll(Collection<User> users) {
+        Objects.requireNonNull(users);
+        users.forEach(user -> Objects.requireNonNull(Objects.requireNonNull(user).getId()));
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<Long, Location> stored = locateAll(users);
+        Map<Integer, List<User>> groups = groupByShard(users, user -> stored.get(user.getId()).shard);
+        Map<Integer, RuntimeException> failures = runOnShards(groups, JdbcUserDao::removeAll);
+        groups.forEach((shard, group) -> {
+            if (!failures.containsKey(shard)) {
+                release(group);
+            }
+        });
+        throwFirst(failures);
+    }
+
+    @Override
+    public void upsert(User user) {
+        upsertAll(List.of(Objects.requireNonNull(user)));
+    }
+
+    /**
+     * Looks up the logins of the {@code users} on their shards in parallel, then
+     * updates the users which exist with {@link #updateAll(Collection)} and creates
+     * the others with {@link #createAll(Collection)}. Unlike the single {@code MERGE}
+     * of {@link JdbcUserDao}, the users may be written by another operation in between
+     *
+     * @param users the users to be written
+     * @return the ids of the users in their order
+     */
+    @Override
+    public List<Long> upsertAll(Collection<User> users) {
+        Objects.requireNonNull(users);
+        users.forEach(this::requireKeys);
+        if (users.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (users.stream().map(User::getLogin).distinct().count() != users.size()) {
+            throw new UserAlreadyExistsException("This login is busy");
+        }
+        Map<Integer, List<User>> groups = groupByShard(users, user -> ring.shardOf(user.getLogin()));
+        Map<String, Long> ids = new HashMap<>();
+        gather(groups, (dao, group) -> dao.findIdsByLogins(
+                group.stream().map(User::getLogin).collect(Collectors.toList())))
+                .forEach(ids::putAll);
+        List<User> existing = new ArrayList<>();
+        List<User> created = new ArrayList<>();
+        for (User user : users) {
+            user.setId(ids.get(user.getLogin()));
+            (user.getId() == null ? created : existing).add(user);
+        }
+        if (!existing.isEmpty()) {
+            updateAll(existing);
+        }
+        if (!created.isEmpty()) {
+            createAll(created);
+        }
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> findAll() {
+        return gather(JdbcUserDao::findAll).stream()
+                .flatMap(List::stream)
+                .sorted(BY_ID)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the users of all the shards ordered by id. The shards are read page by
+     * page of the fetch size, or of the default one if the driver chooses the fetch
+     * size, and merged, so the stream is not a snapshot of one transaction as the
+     * stream of a single database is
+     *
+     * @return the lazily populated stream of the users
+     */
+    @Override
+    public Stream<User> streamAll() {
+        int pageSize = getFetchSize() == 0 ? DEFAULT_FETCH_SIZE : getFetchSize();
+        Iterator<User> iterator = new MergingIterator(pageSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns the page of the users of all the shards. Every shard returns its first
+     * {@code limit} users after the {@code afterId}, which include all the users of
+     * the merged page
+     *
+     * @param afterId the id after which the page starts or {@code null} for the first page
+     * @param limit   the maximum number of the users of the page
+     * @return the page of the users ordered by id
+     */
+    @Override
+    public Page<User> findPage(Long afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        List<Page<User>> pages = gather(dao -> dao.findPage(afterId, limit));
+        List<User> users = pages.stream()
+                .flatMap(page -> page.getContent().stream())
+                .sorted(BY_ID)
+                .collect(Collectors.toList());
+        if (users.size() <= limit && pages.stream().noneMatch(Page::hasNext)) {
+            return new Page<>(users, null);
+        }
+        List<User> content = users.subList(0, Math.min(limit, users.size()));
+        return new Page<>(content, content.get(content.size() - 1).getId());
+    }
+
+    @Override
+    public User findByLogin(String login) {
+        Objects.requireNonNull(login);
+        return callOnShard(ring.shardOf(login), dao -> dao.findByLogin(login));
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        Objects.requireNonNull(email);
+        // the index is read from the primary, a lagging replica would miss new users
+        int shard = template.executeReadOnly(connections(),
+                session -> session.queryForObject(INDEX_FIND_SHARD_BY_EMAIL,
+                        (resultSet, rowNumber) -> resultSet.getInt(1), email))
+                .orElseThrow(UserNotFoundException::new);
+        return callOnShard(shard, dao -> dao.findByEmail(email));
+    }
+
+    @Override
+    public void setBatchSize(int batchSize) {
+        super.setBatchSize(batchSize);
+        shards.forEach(dao -> dao.setBatchSize(batchSize));
+    }
+
+    @Override
+    public void setFetchSize(int fetchSize) {
+        super.setFetchSize(fetchSize);
+        shards.forEach(dao -> dao.setFetchSize(fetchSize));
+    }
+
+    /**
+     * Moves the {@code user} creating it with its id on the shard of its new login
+     * and removing it from the shard it has lived on
+     *
+     * @param user the user to be moved
+     * @param from the shard the user lives on
+     * @param to   the shard of the new login
+     */
+    private void move(User user, int from, int to) {
+        runOnShard(to, dao -> dao.create(user));
+        try {
+            runOnShard(from, dao -> dao.remove(user));
+        } catch (RuntimeException exception) {
+            runOnShard(to, dao -> dao.remove(user));
+            throw exception;
+        }
+    }
+
+    /**
+     * Allocates the ids of the users whose emails and shards are the {@code locations}
+     *
+     * @param locations the emails and the shards of the users
+     * @return the ids in the order of the {@code locations}
+     * @throws UserAlreadyExistsException if any email repeats or belongs to another user
+     */
+    private List<Long> reserveAll(List<Location> locations) {
+        return withinIndexConstraints(() -> template.executeAndReturn(connections(), Propagation.REQUIRES_NEW, session -> {
+            session.setBatchSize(getBatchSize());
+            return session.executeBatchAndReturnKeys(INDEX_CREATE, locations, (statement, location) -> {
+                statement.setString(1, location.email);
+                statement.setInt(2, location.shard);
+            });
+        }));
+    }
+
+    /**
+     * Writes the emails and the shards of the {@code locations} to the index
+     *
+     * @param locations the entries of the index to be written
+     * @throws UserAlreadyExistsException if any email belongs to another user
+     */
+    private void relocate(List<Location> locations) {
+        if (locations.isEmpty()) {
+            return;
+        }
+        withinIndexConstraints(() -> template.executeAndReturn(connections(), Propagation.REQUIRES_NEW, session -> {
+            session.setBatchSize(getBatchSize());
+            for (Location location : locations) {
+                session.addBatch(INDEX_UPDATE, statement -> {
+                    statement.setString(1, location.email);
+                    statement.setInt(2, location.shard);
+                    statement.setLong(3, location.id);
+                });
+            }
+            return session.executeBatch();
+        }));
+    }
+
+    private void release(Collection<User> users) {
+        template.execute(connections(), Propagation.REQUIRES_NEW, session -> {
+            session.setBatchSize(getBatchSize());
+            for (User user : users) {
+                session.addBatch(INDEX_REMOVE, statement -> statement.setLong(1, user.getId()));
+            }
+            session.executeBatch();
+        });
+    }
+
+    private Location locate(Long id) {
+        return template.executeReadOnly(connections(),
+                session -> session.queryForObject(INDEX_FIND_BY_ID, LOCATION_MAPPER, id))
+                .orElseThrow(UserNotFoundException::new);
+    }
+
+    /**
+     * Finds the entries of the index of all the {@code users}
+     *
+     * @param users the users to be looked up
+     * @return the entries by the ids of the users
+     * @throws UserNotFoundException if any of the ids does not exist
+     */
+    private Map<Long, Location> locateAll(Collection<User> users) {
+        List<Long> ids = users.stream().map(User::getId).distinct().collect(Collectors.toList());
+        Map<Long, Location> locations = template.executeReadOnly(connections(),
+                session -> queryByInList(session, INDEX_FIND_BY_IDS, LOCATION_MAPPER, ids))
+                .stream()
+                .collect(Collectors.toMap(location -> location.id, location -> location));
+        if (locations.size() != ids.size()) {
+            throw new UserNotFoundException();
+        }
+        return locations;
+    }
+
+    private List<Location> locationsOf(List<User> users, Map<Long, Location> locations) {
+        return users.stream().map(user -> locations.get(user.getId())).collect(Collectors.toList());
+    }
+
+    private <T> T withinIndexConstraints(Supplier<T> statement) {
+        try {
+            return statement.get();
+        } catch (CustomSqlException exception) {
+            if (hasSqlState(exception, UNIQUE_VIOLATION)) {
+                throw new UserAlreadyExistsException("This email is busy");
+            }
+            throw exception;
+        }
+    }
+
+    private Map<Integer, List<User>> groupByShard(Collection<User> users, Function<User, Integer> shardOf) {
+        return users.stream().collect(Collectors.groupingBy(shardOf, TreeMap::new, Collectors.toList()));
+    }
+
+    private void runOnShard(int shard, Consumer<JdbcUserDao> action) {
+        callOnShard(shard, dao -> {
+            action.accept(dao);
+            return null;
+        });
+    }
+
+    private <T> T callOnShard(int shard, Function<JdbcUserDao, T> function) {
+        return function.apply(shards.get(shard)); // nothing to run in parallel
+    }
+
+    /**
+     * Runs the {@code action} on the shards of the {@code groups} in parallel and
+     * waits for all of them
+     *
+     * @param groups the users by shard
+     * @param action the action taking the DAO of a shard and the users of the shard
+     * @return the exceptions by the shards which have failed
+     */
+    private Map<Integer, RuntimeException> runOnShards(Map<Integer, List<User>> groups,
+            BiConsumer<JdbcUserDao, List<User>> action) {
+        Map<Integer, ShardTask<Void>> tasks = new LinkedHashMap<>();
+        groups.forEach((shard, group) -> tasks.put(shard, new ShardTask<>(shard, () -> {
+            action.accept(shards.get(shard), group);
+            return null;
+        })));
+        Map<Integer, RuntimeException> failures = new LinkedHashMap<>();
+        tasks.forEach((shard, task) -> {
+            try {
+                task.join();
+            } catch (RuntimeException exception) {
+                failures.put(shard, exception);
+            }
+        });
+        return failures;
+    }
+
+    private <T> List<T> gather(Function<JdbcUserDao, T> query) {
+        return joinAll(IntStream.range(0, shards.size())
+                .mapToObj(shard -> new ShardTask<>(shard, () -> query.apply(shards.get(shard))))
+                .collect(Collectors.toList()));
+    }
+
+    private <T> List<T> gather(Map<Integer, List<User>> groups, BiFunction<JdbcUserDao, List<User>, T> query) {
+        return joinAll(groups.entrySet().stream()
+                .map(group -> new ShardTask<>(group.getKey(),
+                        () -> query.apply(shards.get(group.getKey()), group.getValue())))
+                .collect(Collectors.toList()));
+    }
+
+    private <T> List<T> joinAll(List<ShardTask<T>> tasks) {
+        List<T> results = new ArrayList<>();
+        for (ShardTask<T> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw exception;
+        }
+    }
+
+    private void throwFirst(Map<Integer, RuntimeException> failures) {
+        if (!failures.isEmpty()) {
+            throw failures.values().iterator().next();
+        }
+    }
+
+    private void requireKeys(User user) {
+        Objects.requireNonNull(user);
+        Objects.requireNonNull(user.getLogin());
+        Objects.requireNonNull(user.getEmail());
+    }
+
+    /**
+     * The work of a shard submitted to the executor. It runs once, either on the
+     * executor or on the thread joining it before the executor has started it, so
+     * the joining thread never waits for a task queued behind it. The work of a
+     * shard whose transaction is bound to the creating thread is not submitted:
+     * it runs on the joining thread, so it always joins the transaction
+     *
+     * @param <T> the type of the result of the work
+     */
+    private class ShardTask<T> {
+
+        private final Supplier<T> work;
+
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private ShardTask(int shard, Supplier<T> work) {
+            this.work = work;
+            if (JdbcTransactionTemplate.isTransactionActive(shards.get(shard).connections())) {
+                return; // only the joining thread can see the transaction
+            }
+            executor.submit(() -> {
+                if (started.compareAndSet(false, true)) {
+                    try {
+                        result.complete(work.get());
+                    } catch (Throwable exception) {
+                        result.completeExceptionally(exception);
+                    }
+                }
+                return null;
+            });
+        }
+
+        /**
+         * Waits for the result of the work, running it on the current thread if the
+         * executor has not started it or has rejected it
+         */
+        private T join() {
+            if (started.compareAndSet(false, true)) {
+                return work.get();
+            }
+            return ShardedUserDao.this.join(result);
+        }
+    }
+
+    /**
+     * The entry of the {@code user_shard_index} table
+     */
+    private static class Location {
+
+        private final Long id;
+
+        private final String email;
+
+        private final int shard;
+
+        private Location(Long id, String email, int shard) {
+            this.id = id;
+            this.email = email;
+            this.shard = shard;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Location location = (Location) o;
+            return shard == location.shard && Objects.equals(id, location.id)
+                    && Objects.equals(email, location.email);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, email, shard);
+        }
+    }
+
+    /**
+     * Merges the users of the shards read page by page into one sequence ordered by id
+     */
+    private class MergingIterator implements Iterator<User> {
+
+        private final int pageSize;
+
+        private final PriorityQueue<ShardCursor> cursors =
+                new PriorityQueue<>(Comparator.comparing(cursor -> cursor.users.peek().getId()));
+
+        private MergingIterator(int pageSize) {
+            this.pageSize = pageSize;
+            List<Page<User>> pages = gather(dao -> dao.findPage(null, pageSize));
+            for (int shard = 0; shard < pages.size(); shard++) {
+                ShardCursor cursor = new ShardCursor(shard);
+                cursor.load(pages.get(shard));
+                if (!cursor.users.isEmpty()) {
+                    cursors.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !cursors.isEmpty();
+        }
+
+        @Override
+        public User next() {
+            ShardCursor cursor = cursors.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            User user = cursor.users.poll();
+            if (cursor.users.isEmpty() && cursor.nextCursor != null) {
+                cursor.load(callOnShard(cursor.shard, dao -> dao.findPage(cursor.nextCursor, pageSize)));
+            }
+            if (!cursor.users.isEmpty()) {
+                cursors.add(cursor);
+            }
+            return user;
+        }
+    }
+
+    /**
+     * The users of the current page of a shard not merged yet
+     */
+    private static class ShardCursor {
+
+        private final int shard;
+
+        private Deque<User> users = new ArrayDeque<>();
+
+        private Long nextCursor;
+
+        private ShardCursor(int shard) {
+            this.shard = shard;
+        }
+
+        private void load(Page<User> page) {
+            users = new ArrayDeque<>(page.getContent());
+            nextCursor = page.getNextCursor();
+        }
+    }
+}
@@ -7,7 +7,9 @@ import com.nixsolutions.ppp.jdbc.exception.RoleNotFoundException;
 import com.nixsolutions.ppp.jdbc.exception.UserAlreadyExistsException;
 import com.nixsolutions.ppp.jdbc.exception.UserNotFoundException;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * The {@code UserDao} is responsible for querying the "User" storage, containing
@@ -19,7 +21,8 @@ public interface UserDao {
 
     /**
      * Creates a new {@code User} in the database. {@code user's id} is ignored
-     * as {@code AUTO_INCREMENT} is used to generate a new identification
+     * as {@code AUTO_INCREMENT} is used to generate a new identification, which
+     * is set to the {@code user} once it is created
      *
      * @param user the user to be created
      * @throws NullPointerException       if the {@code user} or any of its not null fields is null
@@ -59,6 +62,91 @@ public interface UserDao {
      */
     void remove(User user) throws UserNotFoundException, CustomSqlException;
 
+    /**
+     * Creates all the {@code users} in the database within a single transaction
+     * sending them in batches. The uniqueness of logins and emails is checked for
+     * the whole set before any of the users is inserted. The generated ids are set
+     * to the {@code users} once they are created
+     *
+     * @param users the users to be created
+     * @return the ids generated for the {@code users} in their order
+     * @throws NullPointerException       if any of the {@code users} or any of its not null fields is null
+     * @throws RoleNotFoundException      if a role of any of the {@code users} not found
+     * @throws UserAlreadyExistsException if any login or email already exists or repeats within the {@code users}
+     * @throws InvalidBirthdayException   if a birthday of any of the {@code users} is invalid
+     * @throws CustomSqlException         if any SQL error occurs
+     * @see #create(User)
+     */
+    List<Long> createAll(Collection<User> users)
+            throws RoleNotFoundException, UserAlreadyExistsException,
+            InvalidBirthdayException, CustomSqlException;
+
+    /**
+     * Updates all the existing {@code users} in the database within a single
+     * transaction sending them in batches
+     *
+     * @param users the users to be updated
+     * @throws NullPointerException       if any of the {@code users} or any of its not null fields is null
+     * @throws RoleNotFoundException      if a role of any of the {@code users} not found
+     * @throws UserNotFoundException      if an id of any of the {@code users} is wrong
+     * @throws UserAlreadyExistsException if another user has a login or email of any of the {@code users}
+     * @throws InvalidBirthdayException   if a birthday of any of the {@code users} is invalid
+     * @throws CustomSqlException         if any SQL error occurs
+     * @see #update(User)
+     */
+    void updateAll(Collection<User> users) throws RoleNotFoundException,
+            UserNotFoundException, UserAlreadyExistsException,
+            InvalidBirthdayException, CustomSqlException;
+
+    /**
+     * Removes all the existing {@code users} from the database within a single
+     * transaction sending them in batches
+     *
+     * @param users the users to be removed
+     * @throws NullPointerException  if any of the {@code users} or its {@code id} is null
+     * @throws UserNotFoundException if an id of any of the {@code users} is wrong
+     * @throws CustomSqlException    if any SQL error occurs
+     * @see #remove(User)
+     */
+    void removeAll(Collection<User> users)
+            throws UserNotFoundException, CustomSqlException;
+
+    /**
+     * Creates the {@code user} or updates the user having its {@code login} with a
+     * single {@code MERGE} statement, so no read precedes the write. The role and
+     * the email uniqueness are verified by the database constraints. The {@code user's
+     * id} is ignored; the id of the created or updated row is set to the {@code user}
+     *
+     * @param user the user to be created or updated
+     * @throws NullPointerException       if the {@code user} or any of its not null fields is null
+     * @throws RoleNotFoundException      if the {@code user's role} not found
+     * @throws UserAlreadyExistsException if another user has the specified {@code email}
+     * @throws InvalidBirthdayException   if the specified {@code birthday} is invalid (later than the current date)
+     * @throws CustomSqlException         if any SQL error occurs
+     */
+    void upsert(User user)
+            throws RoleNotFoundException, UserAlreadyExistsException,
+            InvalidBirthdayException, CustomSqlException;
+
+    /**
+     * Creates or updates all the {@code users} by their logins within a single
+     * transaction sending them in multi-row {@code MERGE} statements. The ids of
+     * the created or updated rows are set to the {@code users}
+     *
+     * @param users the users to be created or updated
+     * @return the ids of the {@code users} in their order
+     * @throws NullPointerException       if any of the {@code users} or any of its not null fields is null
+     * @throws RoleNotFoundException      if a role of any of the {@code users} not found
+     * @throws UserAlreadyExistsException if another user has an email of any of the {@code users}
+     *                                    or a login repeats within the {@code users}
+     * @throws InvalidBirthdayException   if a birthday of any of the {@code users} is invalid
+     * @throws CustomSqlException         if any SQL error occurs
+     * @see #upsert(User)
+     */
+    List<Long> upsertAll(Collection<User> users)
+            throws RoleNotFoundException, UserAlreadyExistsException,
+            InvalidBirthdayException, CustomSqlException;
+
     /**
      * Finds and returns all the users in the database
      *
@@ -69,6 +157,37 @@ public interface UserDao {
      */
     List<User> findAll() throws CustomSqlException;
 
+    /**
+     * Returns all the users in the database as a lazily populated stream. Users are
+     * fetched while the stream is consumed, so memory consumption does not depend on
+     * the number of users. <br>
+     * The stream must be closed, e.g. in the try-with-resources block: it holds a
+     * pooled connection with an open transaction until it is closed. The stream
+     * closes itself once all the users are read or reading them fails, but a stream
+     * left before its end, e.g. by {@code findFirst()} or {@code limit(long)}, leaks
+     * the connection unless it is closed
+     *
+     * @return the stream of all the users in the database
+     * @throws CustomSqlException if any SQL error occurs, also while the stream is consumed
+     * @see #findAll()
+     */
+    Stream<User> streamAll() throws CustomSqlException;
+
+    /**
+     * Finds and returns at most {@code limit} users with ids greater than {@code afterId}
+     * ordered by id. The page is located by seeking the primary key index rather than
+     * skipping rows, so any page is fetched as fast as the first one
+     *
+     * @param afterId the id after which the page starts ({@link Page#getNextCursor()}
+     *                of the previous page) or {@code null} to fetch the first page
+     * @param limit   the maximum number of users in the page
+     * @return the page of the users with the cursor of the next page
+     * @throws IllegalArgumentException if the {@code limit} is not positive
+     * @throws CustomSqlException       if any SQL error occurs
+     * @see #findAll()
+     */
+    Page<User> findPage(Long afterId, int limit) throws CustomSqlException;
+
     /**
      * Finds and return the {@code User} by its login
      *
@@ -0,0 +1,26 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+/**
+ * The {@code ValidationMode} defines how {@link JdbcUserDao} verifies the existence
+ * of a user's role and the uniqueness of its login and email before writing the user
+ */
+public enum ValidationMode {
+
+    /**
+     * Every condition is verified with a separate query before the statement is
+     * executed
+     */
+    SEPARATE_QUERIES,
+
+    /**
+     * All the conditions are verified with one query before the statement is executed
+     */
+    SINGLE_QUERY,
+
+    /**
+     * Nothing is verified in advance. The statement is executed right away and
+     * the violations of the {@code UNIQUE} and {@code FOREIGN KEY} constraints of
+     * the schema are translated into the corresponding exceptions
+     */
+    CONSTRAINTS
+}
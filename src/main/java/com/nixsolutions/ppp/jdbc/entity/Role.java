@@ -1,5 +1,8 @@
 package com.nixsolutions.ppp.jdbc.entity;
 
+import com.nixsolutions.ppp.jdbc.mapper.MappedEntity;
+
+@MappedEntity
 public class Role extends AbstractEntity {
     public final static String TABLE = "role";
     private String name;
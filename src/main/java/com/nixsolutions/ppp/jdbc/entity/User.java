@@ -1,7 +1,10 @@
 package com.nixsolutions.ppp.jdbc.entity;
 
+import com.nixsolutions.ppp.jdbc.mapper.MappedEntity;
+
 import java.sql.Date;
 
+@MappedEntity
 public class User extends AbstractEntity {
     public final static String TABLE = "user";
     private String login;
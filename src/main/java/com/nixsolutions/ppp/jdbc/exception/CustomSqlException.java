@@ -2,6 +2,10 @@ package com.nixsolutions.ppp.jdbc.exception;
 
 public class CustomSqlException extends RuntimeException {
 
+    public CustomSqlException(String message) {
+        super(message);
+    }
+
     public CustomSqlException(Throwable cause) {
         super(cause);
     }
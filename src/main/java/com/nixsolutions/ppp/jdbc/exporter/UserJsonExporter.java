@@ -0,0 +1,183 @@
+package com.nixsolutions.ppp.jdbc.exporter;
+
+import com.google.gson.stream.JsonWriter;
+import com.nixsolutions.ppp.jdbc.dao.UserDao;
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.entity.User;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The {@code UserJsonExporter} writes all the users as a JSON array or as JSON
+ * lines, one object per line. The users are read with {@link UserDao#streamAll()}
+ * and written one by one with Gson's {@code JsonWriter}, so neither the list of
+ * users nor the JSON document is held in memory. The fields are named as by Gson,
+ * the birthday is formatted as {@code yyyy-mm-dd} and null fields are omitted,
+ * which is the format of the objects read by {@code UserImporter}. Only uncompressed
+ * JSON lines can be imported back, the importer reads neither JSON arrays nor gzip
+ */
+public class UserJsonExporter {
+
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    private final UserDao userDao;
+
+    private boolean prettyPrinting;
+
+    /**
+     * Constructs a new instance of the {@code UserJsonExporter} class
+     *
+     * @param userDao the DAO used to read users
+     * @throws NullPointerException if the {@code userDao} is null
+     */
+    public UserJsonExporter(UserDao userDao) {
+        this.userDao = Objects.requireNonNull(userDao);
+    }
+
+    /**
+     * Sets whether or not the JSON array is indented. It is compact by default
+     *
+     * @param prettyPrinting {@code true} to indent the JSON
+     */
+    public void setPrettyPrinting(boolean prettyPrinting) {
+        this.prettyPrinting = prettyPrinting;
+    }
+
+    /**
+     * Exports the users into the {@code file} replacing it. The users are written
+     * as JSON lines if the name of the file ends with {@code .jsonl} or {@code .ndjson},
+     * otherwise as a JSON array. The file is compressed with gzip if its name ends
+     * with {@code .gz}, e.g. {@code users.jsonl.gz}
+     *
+     * @param file the file to be written
+     * @return the number of exported users
+     * @throws NullPointerException if the {@code file} is null
+     * @throws IOException          if the file cannot be written
+     * @throws com.nixsolutions.ppp.jdbc.exception.CustomSqlException if any SQL error occurs
+     */
+    public long export(Path file) throws IOException {
+        Objects.requireNonNull(file);
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean gzip = name.endsWith(".gz");
+        if (gzip) {
+            name = name.substring(0, name.length() - ".gz".length());
+        }
+        boolean jsonLines = name.endsWith(".jsonl") || name.endsWith(".ndjson");
+        try (OutputStream output = Files.newOutputStream(file)) {
+            return export(output, gzip, jsonLines);
+        }
+    }
+
+    /**
+     * Exports the users into the {@code output}. The {@code output} is flushed but
+     * not closed. If an error occurs while the users are read, the JSON written
+     * so far is incomplete
+     *
+     * @param output the stream to write the JSON into
+     * @param gzip   {@code true} to compress the JSON with gzip
+     * @return the number of exported users
+     * @throws NullPointerException if the {@code output} is null
+     * @throws IOException          if the JSON cannot be written
+     * @throws com.nixsolutions.ppp.jdbc.exception.CustomSqlException if any SQL error occurs
+     */
+    public long export(OutputStream output, boolean gzip) throws IOException {
+        return export(output, gzip, false);
+    }
+
+    /**
+     * Exports the users into the {@code output} as JSON lines, which can be imported
+     * by {@code UserImporter}. The JSON is never indented. The {@code output} is
+     * flushed but not closed. If an error occurs while the users are read, the
+     * lines written so far are complete
+     *
+     * @param output the stream to write the JSON lines into
+     * @param gzip   {@code true} to compress the JSON lines with gzip
+     * @return the number of exported users
+     * @throws NullPointerException if the {@code output} is null
+     * @throws IOException          if the JSON cannot be written
+     * @throws com.nixsolutions.ppp.jdbc.exception.CustomSqlException if any SQL error occurs
+     */
+    public long exportJsonLines(OutputStream output, boolean gzip) throws IOException {
+        return export(output, gzip, true);
+    }
+
+    private long export(OutputStream output, boolean gzip, boolean jsonLines) throws IOException {
+        Objects.requireNonNull(output);
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(output, BUFFER_SIZE) : null;
+        // the writers are not closed as they would close the output
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                gzip ? compressed : output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        JsonWriter json = new JsonWriter(writer);
+        if (jsonLines) {
+            json.setLenient(true); // allows a top-level value per line
+        } else if (prettyPrinting) {
+            json.setIndent("  ");
+        }
+        long count = 0;
+        if (!jsonLines) {
+            json.beginArray();
+        }
+        try (Stream<User> users = userDao.streamAll()) {
+            for (Iterator<User> iterator = users.iterator(); iterator.hasNext(); count++) {
+                write(json, iterator.next());
+                if (jsonLines) {
+                    writer.write('\n');
+                }
+            }
+        }
+        if (!jsonLines) {
+            json.endArray();
+        }
+        json.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        output.flush();
+        return count;
+    }
+
+    private void write(JsonWriter json, User user) throws IOException {
+        json.beginObject();
+        writeField(json, "id", user.getId());
+        writeField(json, "login", user.getLogin());
+        writeField(json, "password", user.getPassword());
+        writeField(json, "email", user.getEmail());
+        writeField(json, "firstName", user.getFirstName());
+        writeField(json, "lastName", user.getLastName());
+        if (user.getBirthday() != null) {
+            json.name("birthday").value(user.getBirthday().toString());
+        }
+        Role role = user.getRole();
+        if (role != null) {
+            json.name("role").beginObject();
+            writeField(json, "id", role.getId());
+            writeField(json, "name", role.getName());
+            json.endObject();
+        }
+        json.endObject();
+    }
+
+    private void writeField(JsonWriter json, String name, String value) throws IOException {
+        if (value != null) {
+            json.name(name).value(value);
+        }
+    }
+
+    private void writeField(JsonWriter json, String name, Long value) throws IOException {
+        if (value != null) {
+            json.name(name).value(value);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.nixsolutions.ppp.jdbc.importer;
+
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.entity.User;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses comma separated lines whose columns are named by the header line:
+ * {@code login, password, email, first_name, last_name, birthday, role}. The order
+ * of the columns is arbitrary and {@code birthday} may be omitted. Values may be
+ * quoted with double quotes, a quote inside a quoted value is doubled. Quoted
+ * values must not span several lines
+ */
+final class CsvUserParser implements UserParser {
+
+    private final static String[] MANDATORY_COLUMNS =
+            {"login", "password", "email", "first_name", "last_name", "role"};
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    /**
+     * Constructs a parser of the lines following the {@code header}
+     *
+     * @param header the first line of the file naming the columns
+     * @throws IllegalArgumentException if any mandatory column is missing
+     */
+    CsvUserParser(String header) {
+        List<String> columns = split(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        for (int i = 0; i < columns.size(); i++) {
+            indexes.put(columns.get(i).trim().toLowerCase(), i);
+        }
+        for (String column : MANDATORY_COLUMNS) {
+            if (!indexes.containsKey(column)) {
+                throw new IllegalArgumentException("Missing column " + column);
+            }
+        }
+    }
+
+    @Override
+    public User parse(String line) {
+        List<String> values = split(line);
+        User user = new User();
+        user.setLogin(mandatory(values, "login"));
+        user.setPassword(mandatory(values, "password"));
+        user.setEmail(mandatory(values, "email"));
+        user.setFirstName(mandatory(values, "first_name"));
+        user.setLastName(mandatory(values, "last_name"));
+        String birthday = optional(values, "birthday");
+        user.setBirthday(birthday == null ? null : Date.valueOf(birthday));
+        Role role = new Role();
+        role.setName(mandatory(values, "role"));
+        user.setRole(role);
+        return user;
+    }
+
+    private String mandatory(List<String> values, String column) {
+        String value = optional(values, column);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + column);
+        }
+        return value;
+    }
+
+    private String optional(List<String> values, String column) {
+        Integer index = indexes.get(column);
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+
+    private static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted value");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,118 @@
+package com.nixsolutions.ppp.jdbc.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * The position in an import file up to which all the rows have been committed,
+ * together with the counters of the import. It is saved next to the file after
+ * every committed chunk, so an interrupted import continues from the last chunk
+ */
+final class ImportCheckpoint {
+
+    private final static String SUFFIX = ".checkpoint";
+
+    private final Path path;
+
+    private long offset;
+
+    private long lineNumber;
+
+    private long rowsRead;
+
+    private long rowsImported;
+
+    private long rowsRejected;
+
+    private ImportCheckpoint(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Loads the checkpoint of the {@code file} or returns the checkpoint of its
+     * beginning if the file has not been imported partially
+     *
+     * @param file the file to be imported
+     * @return the checkpoint of the {@code file}
+     * @throws IOException if the checkpoint cannot be read
+     */
+    static ImportCheckpoint of(Path file) throws IOException {
+        ImportCheckpoint checkpoint = new ImportCheckpoint(file.resolveSibling(file.getFileName() + SUFFIX));
+        if (Files.exists(checkpoint.path)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(checkpoint.path, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+            checkpoint.offset = Long.parseLong(properties.getProperty("offset"));
+            checkpoint.lineNumber = Long.parseLong(properties.getProperty("lineNumber"));
+            checkpoint.rowsRead = Long.parseLong(properties.getProperty("rowsRead"));
+            checkpoint.rowsImported = Long.parseLong(properties.getProperty("rowsImported"));
+            checkpoint.rowsRejected = Long.parseLong(properties.getProperty("rowsRejected"));
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Moves the checkpoint forward and writes it replacing the previous one atomically
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    void save(long offset, long lineNumber, long rowsRead, long rowsImported,
+            long rowsRejected) throws IOException {
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        Properties properties = new Properties();
+        properties.setProperty("offset", String.valueOf(offset));
+        properties.setProperty("lineNumber", String.valueOf(lineNumber));
+        properties.setProperty("rowsRead", String.valueOf(rowsRead));
+        properties.setProperty("rowsImported", String.valueOf(rowsImported));
+        properties.setProperty("rowsRejected", String.valueOf(rowsRejected));
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Removes the checkpoint once the whole file is imported
+     *
+     * @throws IOException if the checkpoint cannot be removed
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    boolean isStarted() {
+        return offset > 0;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    long getRowsRead() {
+        return rowsRead;
+    }
+
+    long getRowsImported() {
+        return rowsImported;
+    }
+
+    long getRowsRejected() {
+        return rowsRejected;
+    }
+}
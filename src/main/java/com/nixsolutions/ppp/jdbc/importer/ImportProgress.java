@@ -0,0 +1,75 @@
+package com.nixsolutions.ppp.jdbc.importer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of the progress of an import reported after every
+ * committed chunk. The counters include the rows committed before the import
+ * was resumed, the rate is measured for the current run only
+ */
+public class ImportProgress {
+
+    private final long rowsRead;
+
+    private final long rowsImported;
+
+    private final long rowsRejected;
+
+    private final long rowsReadInRun;
+
+    private final long elapsedNanos;
+
+    private final boolean done;
+
+    ImportProgress(long rowsRead, long rowsImported, long rowsRejected, long rowsReadInRun,
+            long elapsedNanos, boolean done) {
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.rowsReadInRun = rowsReadInRun;
+        this.elapsedNanos = elapsedNanos;
+        this.done = done;
+    }
+
+    /**
+     * Returns the number of data lines read from the file, rejected ones included
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Returns the number of users created or updated. A login repeating within
+     * a chunk is written once
+     */
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    /**
+     * Returns the number of lines which are malformed or refer to a missing role
+     * or a birthday in the future
+     */
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsReadInRun * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportProgress{read=%d, imported=%d, rejected=%d, elapsed=%dms, "
+                        + "rowsPerSecond=%.0f, done=%b}", rowsRead, rowsImported, rowsRejected,
+                getElapsedMillis(), getRowsPerSecond(), done);
+    }
+}
@@ -0,0 +1,62 @@
+package com.nixsolutions.ppp.jdbc.importer;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.entity.User;
+
+import java.sql.Date;
+
+/**
+ * Parses lines each holding one JSON object with the fields {@code login, password,
+ * email, firstName, lastName, birthday, role}. The {@code birthday} is formatted as
+ * {@code yyyy-mm-dd} and may be omitted; the {@code role} is either a name or an
+ * object with the {@code name}, as written by the JSON export
+ */
+final class JsonLinesUserParser implements UserParser {
+
+    @Override
+    public User parse(String line) {
+        JsonObject object;
+        try {
+            object = JsonParser.parseString(line).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException exception) {
+            throw new IllegalArgumentException("Malformed JSON object", exception);
+        }
+        User user = new User();
+        user.setLogin(mandatory(object, "login"));
+        user.setPassword(mandatory(object, "password"));
+        user.setEmail(mandatory(object, "email"));
+        user.setFirstName(mandatory(object, "firstName"));
+        user.setLastName(mandatory(object, "lastName"));
+        String birthday = optional(object, "birthday");
+        user.setBirthday(birthday == null ? null : Date.valueOf(birthday));
+        JsonElement role = object.get("role");
+        Role reference = new Role();
+        reference.setName(role != null && role.isJsonObject()
+                ? mandatory(role.getAsJsonObject(), "name") : mandatory(object, "role"));
+        user.setRole(reference);
+        return user;
+    }
+
+    private String mandatory(JsonObject object, String field) {
+        String value = optional(object, field);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        return value;
+    }
+
+    private String optional(JsonObject object, String field) {
+        JsonElement value = object.get(field);
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        if (!value.isJsonPrimitive()) {
+            throw new IllegalArgumentException("Field " + field + " must be a string");
+        }
+        return value.getAsString();
+    }
+}
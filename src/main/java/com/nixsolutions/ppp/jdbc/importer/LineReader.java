@@ -0,0 +1,106 @@
+package com.nixsolutions.ppp.jdbc.importer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads UTF-8 lines of a file keeping the byte offset of the next line, so an
+ * import can be resumed from the middle of the file. Only one line is held in
+ * memory at once
+ */
+final class LineReader implements Closeable {
+
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream input;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+
+    private int position;
+
+    private int limit;
+
+    private long offset;
+
+    private long lineNumber;
+
+    /**
+     * Opens the {@code file} positioned at the {@code offset}
+     *
+     * @param file       the file to be read
+     * @param offset     the byte offset of the first line to be read
+     * @param lineNumber the number of the lines preceding the {@code offset}
+     * @throws IOException if the file cannot be opened
+     */
+    LineReader(Path file, long offset, long lineNumber) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channel.position(offset);
+        this.input = Channels.newInputStream(channel);
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Reads the next line without its terminator
+     *
+     * @return the next line or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    String readLine() throws IOException {
+        line.reset();
+        while (true) {
+            if (position == limit) {
+                limit = Math.max(input.read(buffer, 0, BUFFER_SIZE), 0);
+                position = 0;
+                if (limit == 0) {
+                    return line.size() == 0 ? null : decode();
+                }
+            }
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            line.write(buffer, start, position - start);
+            offset += position - start;
+            if (position < limit) {
+                position++; // skip the line feed
+                offset++;
+                return decode();
+            }
+        }
+    }
+
+    /**
+     * Returns the byte offset of the line following the last one read
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the number of the last line read, starting with 1
+     */
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private String decode() {
+        lineNumber++;
+        String decoded = line.toString(StandardCharsets.UTF_8);
+        return decoded.endsWith("\r") ? decoded.substring(0, decoded.length() - 1) : decoded;
+    }
+}
@@ -0,0 +1,283 @@
+package com.nixsolutions.ppp.jdbc.importer;
+
+import com.nixsolutions.ppp.jdbc.dao.RoleDao;
+import com.nixsolutions.ppp.jdbc.dao.UserDao;
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.RoleNotFoundException;
+import com.nixsolutions.ppp.jdbc.exception.UserAlreadyExistsException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@code UserImporter} loads users from a CSV ({@code *.csv}) or JSON lines
+ * ({@code *.jsonl}, {@code *.ndjson}) file. The file is streamed line by line and
+ * the users are written in chunks with {@link UserDao#upsertAll(java.util.Collection)},
+ * so the memory used does not depend on the file size and a user with an existing
+ * login is updated. Every chunk is committed in its own transaction.
+ * <p>
+ * Lines which are malformed, have a birthday in the future or refer to a missing
+ * role are rejected and logged; the roles are resolved by name once per distinct
+ * name. Lines whose email is taken by another user, either in the database or by
+ * an earlier line of the chunk, are rejected as well: a chunk failing on a taken
+ * email is written again user by user to find them. After every committed chunk
+ * a checkpoint is saved next to the file, so an import interrupted by an error or
+ * a crash continues from the first uncommitted chunk when it is started again.
+ * The checkpoint is removed once the file is imported.
+ * <p>
+ * The importer is not thread-safe
+ *
+ * @see CsvUserParser
+ * @see JsonLinesUserParser
+ */
+public class UserImporter {
+
+    /**
+     * The default number of lines written within one transaction
+     */
+    public final static int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final static Logger LOGGER = Logger.getLogger(UserImporter.class.getName());
+
+    private final UserDao userDao;
+
+    private final RoleDao roleDao;
+
+    /**
+     * The ids of the roles by their names, null for a missing role
+     */
+    private final Map<String, Long> roleIds = new HashMap<>();
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private Consumer<ImportProgress> progressListener = progress -> LOGGER.info(progress::toString);
+
+    /**
+     * Constructs a new instance of the {@code UserImporter} class
+     *
+     * @param userDao the DAO used to write users
+     * @param roleDao the DAO used to resolve roles by name, usually a caching one
+     * @throws NullPointerException if any of the arguments is null
+     */
+    public UserImporter(UserDao userDao, RoleDao roleDao) {
+        this.userDao = Objects.requireNonNull(userDao);
+        this.roleDao = Objects.requireNonNull(roleDao);
+    }
+
+    /**
+     * Sets the number of lines written within one transaction and between two
+     * checkpoints
+     *
+     * @param chunkSize the number of lines in a chunk
+     * @throws IllegalArgumentException if the {@code chunkSize} is not positive
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sets the listener notified after every committed chunk and once the import
+     * is done. By default the progress is logged
+     *
+     * @param progressListener the listener of the progress
+     * @throws NullPointerException if the {@code progressListener} is null
+     */
+    public void setProgressListener(Consumer<ImportProgress> progressListener) {
+        this.progressListener = Objects.requireNonNull(progressListener);
+    }
+
+    /**
+     * Imports all the users of the {@code file} or the rest of them if a checkpoint
+     * of a previous import exists
+     *
+     * @param file the CSV or JSON lines file to be imported
+     * @return the final progress of the import
+     * @throws NullPointerException     if the {@code file} is null
+     * @throws IllegalArgumentException if the extension of the {@code file} is unknown
+     *                                  or the CSV header misses a mandatory column
+     * @throws IOException              if the file cannot be read or the checkpoint cannot be written
+     * @throws RuntimeException         if a chunk cannot be written, e.g. because the
+     *                                  database is unavailable; the import can be resumed
+     *                                  once the cause is removed
+     */
+    public ImportProgress importFile(Path file) throws IOException {
+        Objects.requireNonNull(file);
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean csv = name.endsWith(".csv");
+        if (!csv && !name.endsWith(".jsonl") && !name.endsWith(".ndjson")) {
+            throw new IllegalArgumentException("Unknown format of " + file);
+        }
+        ImportCheckpoint checkpoint = ImportCheckpoint.of(file);
+        if (checkpoint.isStarted()) {
+            LOGGER.info(() -> "Resuming import of " + file + " from line " + (checkpoint.getLineNumber() + 1));
+        }
+        long start = System.nanoTime();
+        Run run = new Run(checkpoint, start);
+        UserParser parser = csv ? null : new JsonLinesUserParser();
+        try (LineReader reader = new LineReader(file, 0, 0)) {
+            if (csv) {
+                String header = reader.readLine();
+                if (header == null) {
+                    throw new IllegalArgumentException("Missing CSV header in " + file);
+                }
+                parser = new CsvUserParser(header);
+            }
+        }
+        try (LineReader reader = new LineReader(file, checkpoint.getOffset(), checkpoint.getLineNumber())) {
+            if (csv && !checkpoint.isStarted()) {
+                reader.readLine(); // the header
+            }
+            Map<String, User> chunk = new LinkedHashMap<>();
+            Map<String, String> loginsByEmail = new HashMap<>();
+            int lineCount = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                run.rowsRead++;
+                lineCount++;
+                User user = parse(parser, line, reader.getLineNumber(), run);
+                if (user != null) {
+                    add(chunk, loginsByEmail, user, reader.getLineNumber(), run);
+                }
+                if (lineCount == chunkSize) {
+                    write(chunk, run);
+                    checkpoint.save(reader.getOffset(), reader.getLineNumber(),
+                            run.rowsRead, run.rowsImported, run.rowsRejected);
+                    progressListener.accept(run.progress(false));
+                    chunk.clear();
+                    loginsByEmail.clear();
+                    lineCount = 0;
+                }
+            }
+            write(chunk, run);
+        }
+        checkpoint.delete();
+        ImportProgress progress = run.progress(true);
+        progressListener.accept(progress);
+        return progress;
+    }
+
+    /**
+     * Adds the {@code user} to the {@code chunk} replacing the previous line of its
+     * login, unless another login of the chunk has the same email
+     */
+    private void add(Map<String, User> chunk, Map<String, String> loginsByEmail, User user,
+            long lineNumber, Run run) {
+        String owner = loginsByEmail.get(user.getEmail());
+        if (owner != null && !owner.equals(user.getLogin())) {
+            reject(lineNumber, "Email of " + user.getLogin() + " repeats the one of " + owner, run);
+            return;
+        }
+        User previous = chunk.put(user.getLogin(), user); // the last line of a login wins
+        if (previous != null) {
+            loginsByEmail.remove(previous.getEmail());
+        }
+        loginsByEmail.put(user.getEmail(), user.getLogin());
+    }
+
+    private User parse(UserParser parser, String line, long lineNumber, Run run) {
+        try {
+            User user = parser.parse(line);
+            if (user.getBirthday() != null && user.getBirthday().after(new java.util.Date())) {
+                throw new IllegalArgumentException("Birthday is later than the current date");
+            }
+            return user;
+        } catch (IllegalArgumentException exception) {
+            reject(lineNumber, exception.getMessage(), run);
+            return null;
+        }
+    }
+
+    /**
+     * Resolves the roles of the {@code chunk} rejecting the users with a missing
+     * role and writes the rest of them
+     */
+    private void write(Map<String, User> chunk, Run run) {
+        List<User> users = new ArrayList<>(chunk.size());
+        for (User user : chunk.values()) {
+            String roleName = user.getRole().getName();
+            if (!roleIds.containsKey(roleName)) {
+                roleIds.put(roleName, findRoleId(roleName));
+            }
+            Long roleId = roleIds.get(roleName);
+            if (roleId == null) {
+                reject(-1, "Role " + roleName + " not found for " + user.getLogin(), run);
+            } else {
+                user.setRole(new Role(roleId, roleName));
+                users.add(user);
+            }
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+        try {
+            userDao.upsertAll(users);
+            run.rowsImported += users.size();
+        } catch (UserAlreadyExistsException exception) {
+            // the emails of some users are taken, the rest are written one by one
+            for (User user : users) {
+                try {
+                    userDao.upsert(user);
+                    run.rowsImported++;
+                } catch (UserAlreadyExistsException rejected) {
+                    reject(-1, rejected.getMessage() + " for " + user.getLogin(), run);
+                }
+            }
+        }
+    }
+
+    private Long findRoleId(String name) {
+        try {
+            return roleDao.findByName(name).getId();
+        } catch (RoleNotFoundException exception) {
+            return null;
+        }
+    }
+
+    private void reject(long lineNumber, String reason, Run run) {
+        run.rowsRejected++;
+        if (LOGGER.isLoggable(Level.WARNING)) {
+            LOGGER.warning(lineNumber < 0 ? "Rejected: " + reason
+                    : "Rejected line " + lineNumber + ": " + reason);
+        }
+    }
+
+    /**
+     * The counters of one invocation of {@link #importFile(Path)}
+     */
+    private static final class Run {
+        private final long start;
+        private final long rowsReadBefore;
+        private long rowsRead;
+        private long rowsImported;
+        private long rowsRejected;
+
+        private Run(ImportCheckpoint checkpoint, long start) {
+            this.start = start;
+            this.rowsReadBefore = checkpoint.getRowsRead();
+            this.rowsRead = checkpoint.getRowsRead();
+            this.rowsImported = checkpoint.getRowsImported();
+            this.rowsRejected = checkpoint.getRowsRejected();
+        }
+
+        private ImportProgress progress(boolean done) {
+            return new ImportProgress(rowsRead, rowsImported, rowsRejected,
+                    rowsRead - rowsReadBefore, System.nanoTime() - start, done);
+        }
+    }
+}
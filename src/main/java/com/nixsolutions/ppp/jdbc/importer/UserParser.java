@@ -0,0 +1,20 @@
+package com.nixsolutions.ppp.jdbc.importer;
+
+import com.nixsolutions.ppp.jdbc.entity.User;
+
+/**
+ * Parses one line of an import file into a user. The role of the user is
+ * referred to by its name only and resolved by {@link UserImporter}
+ */
+@FunctionalInterface
+interface UserParser {
+
+    /**
+     * Parses the {@code line} into a user
+     *
+     * @param line the line to be parsed
+     * @return the user whose role has only a name
+     * @throws IllegalArgumentException if the {@code line} is malformed or misses a mandatory field
+     */
+    User parse(String line);
+}
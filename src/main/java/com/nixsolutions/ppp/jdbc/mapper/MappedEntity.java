@@ -0,0 +1,33 @@
+package com.nixsolutions.ppp.jdbc.mapper;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a subclass of {@code AbstractEntity} to have its mapping code generated
+ * at compile time. For an entity {@code E} two classes are generated into its
+ * package:
+ * <ul>
+ *     <li>{@code GeneratedERowMapper} is a {@code RowMapper<E>} reading the columns
+ *     by index: {@code id} first, followed by the fields of {@code E} in declaration
+ *     order. A field referencing another {@code MappedEntity} is read in place
+ *     from the columns of the referenced entity, as a join selects them</li>
+ *     <li>{@code GeneratedEStatementSetter} is a {@code PreparedStatementSetter}
+ *     binding the fields of {@code E} except {@code id} in declaration order, a
+ *     referenced entity being bound by its id, optionally followed by {@code id}
+ *     itself as {@code UPDATE ... WHERE id = ?} requires</li>
+ * </ul>
+ * The fields are accessed through their getters and setters, static and transient
+ * fields are skipped. The generated code uses neither reflection nor boxing apart
+ * from the nullable wrapper types of the entity itself
+ *
+ * @see com.nixsolutions.ppp.jdbc.processor.MappedEntityProcessor
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface MappedEntity {
+}
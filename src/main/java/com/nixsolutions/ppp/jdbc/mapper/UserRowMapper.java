@@ -6,11 +6,73 @@ import com.nixsolutions.ppp.jdbc.tool.RowMapper;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 
+/**
+ * Maps a row of the {@code user} table joined with the {@code role} table to a
+ * {@code User}. In the {@link Mode#BY_INDEX} mode, the default one, an instance
+ * must not be shared between threads as it keeps the state of the result set
+ * being mapped
+ */
 public class UserRowMapper implements RowMapper<User> {
 
+    private final static String[] COLUMNS = {
+            "user.id", "user.login", "user.password", "user.email", "user.first_name",
+            "user.last_name", "user.birthday", "role.id", "role.name"
+    };
+
+    private final static int USER_ID = 0;
+    private final static int LOGIN = 1;
+    private final static int PASSWORD = 2;
+    private final static int EMAIL = 3;
+    private final static int FIRST_NAME = 4;
+    private final static int LAST_NAME = 5;
+    private final static int BIRTHDAY = 6;
+    private final static int ROLE_ID = 7;
+    private final static int ROLE_NAME = 8;
+
+    /**
+     * Describes how the columns of a row are looked up
+     */
+    public enum Mode {
+
+        /**
+         * Every column of every row is looked up by its label
+         */
+        BY_LABEL,
+
+        /**
+         * The indexes of the columns are resolved once per {@code ResultSet} and
+         * every row is read by them. Users of the same result set having the same
+         * role share one {@code Role} instance
+         */
+        BY_INDEX
+    }
+
+    private final Mode mode;
+
+    private final int[] indexes = new int[COLUMNS.length];
+
+    private final Map<Long, Role> roles = new HashMap<>();
+
+    private ResultSet resolvedResultSet;
+
+    public UserRowMapper() {
+        this(Mode.BY_INDEX);
+    }
+
+    public UserRowMapper(Mode mode) {
+        this.mode = Objects.requireNonNull(mode);
+    }
+
     @Override
     public User mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+        return mode == Mode.BY_INDEX ? mapByIndex(resultSet) : mapByLabel(resultSet);
+    }
+
+    private User mapByLabel(ResultSet resultSet) throws SQLException {
         Role role = new Role();
         role.setId(resultSet.getLong("role.id"));
         role.setName(resultSet.getString("role.name"));
@@ -27,4 +89,40 @@ public class UserRowMapper implements RowMapper<User> {
 
         return user;
     }
+
+    private User mapByIndex(ResultSet resultSet) throws SQLException {
+        if (resultSet != resolvedResultSet) {
+            resolve(resultSet);
+        }
+
+        User user = new User();
+        user.setId(resultSet.getLong(indexes[USER_ID]));
+        user.setLogin(resultSet.getString(indexes[LOGIN]));
+        user.setPassword(resultSet.getString(indexes[PASSWORD]));
+        user.setEmail(resultSet.getString(indexes[EMAIL]));
+        user.setFirstName(resultSet.getString(indexes[FIRST_NAME]));
+        user.setLastName(resultSet.getString(indexes[LAST_NAME]));
+        user.setBirthday(resultSet.getDate(indexes[BIRTHDAY]));
+        user.setRole(internRole(resultSet));
+
+        return user;
+    }
+
+    private Role internRole(ResultSet resultSet) throws SQLException {
+        long id = resultSet.getLong(indexes[ROLE_ID]);
+        Role role = roles.get(id);
+        if (role == null) {
+            role = new Role(id, resultSet.getString(indexes[ROLE_NAME]));
+            roles.put(id, role);
+        }
+        return role;
+    }
+
+    private void resolve(ResultSet resultSet) throws SQLException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            indexes[i] = resultSet.findColumn(COLUMNS[i]);
+        }
+        roles.clear();
+        resolvedResultSet = resultSet;
+    }
 }
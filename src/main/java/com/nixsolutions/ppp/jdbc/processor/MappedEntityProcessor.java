@@ -0,0 +1,388 @@
+package com.nixsolutions.ppp.jdbc.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the {@code RowMapper} and {@code PreparedStatementSetter} of every
+ * class annotated with {@code MappedEntity}. The processor is compiled ahead of
+ * the rest of the sources, so it refers to the annotation and the generated
+ * interfaces by name only
+ */
+@SupportedAnnotationTypes(MappedEntityProcessor.MAPPED_ENTITY)
+public class MappedEntityProcessor extends AbstractProcessor {
+
+    final static String MAPPED_ENTITY = "com.nixsolutions.ppp.jdbc.mapper.MappedEntity";
+
+    private final static String ABSTRACT_ENTITY = "com.nixsolutions.ppp.jdbc.entity.AbstractEntity";
+
+    private final static String ROW_MAPPER = "com.nixsolutions.ppp.jdbc.tool.RowMapper";
+
+    private final static String STATEMENT_SETTER = "com.nixsolutions.ppp.jdbc.tool.PreparedStatementSetter";
+
+    private final static String ID = "id";
+
+    /**
+     * The supported column types: the {@code ResultSet} getter and the
+     * {@code PreparedStatement} setter suffix with the {@code java.sql.Types}
+     * constant used to bind null
+     */
+    private final static Map<String, String[]> TYPES = Map.ofEntries(
+            Map.entry("long", new String[]{"Long", "BIGINT"}),
+            Map.entry("int", new String[]{"Int", "INTEGER"}),
+            Map.entry("short", new String[]{"Short", "SMALLINT"}),
+            Map.entry("double", new String[]{"Double", "DOUBLE"}),
+            Map.entry("float", new String[]{"Float", "REAL"}),
+            Map.entry("boolean", new String[]{"Boolean", "BOOLEAN"}),
+            Map.entry("java.lang.Long", new String[]{"Long", "BIGINT"}),
+            Map.entry("java.lang.Integer", new String[]{"Int", "INTEGER"}),
+            Map.entry("java.lang.Short", new String[]{"Short", "SMALLINT"}),
+            Map.entry("java.lang.Double", new String[]{"Double", "DOUBLE"}),
+            Map.entry("java.lang.Float", new String[]{"Float", "REAL"}),
+            Map.entry("java.lang.Boolean", new String[]{"Boolean", "BOOLEAN"}),
+            Map.entry("java.lang.String", new String[]{"String", "VARCHAR"}),
+            Map.entry("java.math.BigDecimal", new String[]{"BigDecimal", "DECIMAL"}),
+            Map.entry("java.sql.Date", new String[]{"Date", "DATE"}),
+            Map.entry("java.sql.Time", new String[]{"Time", "TIME"}),
+            Map.entry("java.sql.Timestamp", new String[]{"Timestamp", "TIMESTAMP"}),
+            Map.entry("byte[]", new String[]{"Bytes", "VARBINARY"})
+    );
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(MAPPED_ENTITY);
+        if (annotation == null) {
+            return false;
+        }
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(annotation)) {
+            try {
+                TypeElement entity = requireEntity(element);
+                write(entity, "Generated" + entity.getSimpleName() + "RowMapper", generateRowMapper(entity));
+                write(entity, "Generated" + entity.getSimpleName() + "StatementSetter",
+                        generateStatementSetter(entity));
+            } catch (InvalidEntityException exception) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        exception.getMessage(), exception.element);
+            } catch (IOException exception) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot write the generated mapping: " + exception.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    private String generateRowMapper(TypeElement entity) {
+        String name = entity.getQualifiedName().toString();
+        StringBuilder body = new StringBuilder();
+        readEntity(body, entity, "entity", new int[]{1}, new ArrayDeque<>());
+        return header(entity)
+                + "public final class Generated" + entity.getSimpleName() + "RowMapper implements "
+                + ROW_MAPPER + "<" + name + "> {\n\n"
+                + "    @Override\n"
+                + "    public " + name + " mapRow(java.sql.ResultSet resultSet, int rowNumber)\n"
+                + "            throws java.sql.SQLException {\n"
+                + body
+                + "        return entity;\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    /**
+     * Appends the statements reading the {@code entity} starting from the column
+     * {@code column[0]} and advancing it. Referenced entities are read recursively
+     */
+    private void readEntity(StringBuilder body, TypeElement entity, String variable, int[] column,
+            Deque<TypeElement> path) {
+        if (path.contains(entity)) {
+            throw new InvalidEntityException(entity, "Cyclic reference to " + entity.getSimpleName());
+        }
+        path.push(entity);
+        String name = entity.getQualifiedName().toString();
+        body.append("        ").append(name).append(' ').append(variable)
+                .append(" = new ").append(name).append("();\n");
+        for (VariableElement field : fieldsOf(entity)) {
+            String setter = variable + "." + accessor(entity, field, "set") + "(";
+            TypeElement reference = referenceOf(field);
+            if (reference != null) {
+                String nested = variable + capitalize(field.getSimpleName().toString());
+                readEntity(body, reference, nested, column, path);
+                body.append("        ").append(setter).append(nested).append(".getId() == null ? null : ")
+                        .append(nested).append(");\n");
+                continue;
+            }
+            String type = typeOf(field);
+            String getter = "resultSet.get" + TYPES.get(type)[0] + "(" + column[0]++ + ")";
+            if (field.asType().getKind().isPrimitive() || !type.startsWith("java.lang.")
+                    || type.equals("java.lang.String")) {
+                body.append("        ").append(setter).append(getter).append(");\n");
+            } else {
+                // a wrapper is read as a primitive and boxed only if the column is not null
+                String value = variable + capitalize(field.getSimpleName().toString());
+                body.append("        ").append(unbox(type)).append(' ').append(value)
+                        .append(" = ").append(getter).append(";\n")
+                        .append("        ").append(setter).append("resultSet.wasNull() ? null : ")
+                        .append(value).append(");\n");
+            }
+        }
+        path.pop();
+    }
+
+    private String generateStatementSetter(TypeElement entity) {
+        String name = entity.getQualifiedName().toString();
+        String className = "Generated" + entity.getSimpleName() + "StatementSetter";
+        StringBuilder body = new StringBuilder();
+        int parameter = 1;
+        for (VariableElement field : fieldsOf(entity)) {
+            if (field.getSimpleName().contentEquals(ID)) {
+                continue;
+            }
+            String getter = "entity." + accessor(entity, field, "get") + "()";
+            TypeElement reference = referenceOf(field);
+            if (reference != null) {
+                bindNullable(body, reference.getQualifiedName().toString(), getter, parameter++, true);
+            } else {
+                String type = typeOf(field);
+                if (field.asType().getKind().isPrimitive() || !type.startsWith("java.lang.")
+                        || type.equals("java.lang.String")) {
+                    body.append("        statement.set").append(TYPES.get(type)[0]).append("(offset + ")
+                            .append(parameter++).append(", ").append(getter).append(");\n");
+                } else {
+                    bindNullable(body, type, getter, parameter++, false);
+                }
+            }
+        }
+        int parameterCount = parameter - 1;
+        return header(entity)
+                + "public final class " + className + " implements " + STATEMENT_SETTER + " {\n\n"
+                + "    /**\n"
+                + "     * The number of parameters bound by {@link #bind}\n"
+                + "     */\n"
+                + "    public final static int PARAMETER_COUNT = " + parameterCount + ";\n\n"
+                + "    private final " + name + " entity;\n\n"
+                + "    private final boolean withId;\n\n"
+                + "    private " + className + "(" + name + " entity, boolean withId) {\n"
+                + "        this.entity = java.util.Objects.requireNonNull(entity);\n"
+                + "        this.withId = withId;\n"
+                + "    }\n\n"
+                + "    /**\n"
+                + "     * Returns the setter binding all the fields of the {@code entity} except its id\n"
+                + "     */\n"
+                + "    public static " + className + " forInsert(" + name + " entity) {\n"
+                + "        return new " + className + "(entity, false);\n"
+                + "    }\n\n"
+                + "    /**\n"
+                + "     * Returns the setter binding all the fields of the {@code entity} followed by its id\n"
+                + "     */\n"
+                + "    public static " + className + " forUpdate(" + name + " entity) {\n"
+                + "        return new " + className + "(entity, true);\n"
+                + "    }\n\n"
+                + "    @Override\n"
+                + "    public void setValues(java.sql.PreparedStatement statement) throws java.sql.SQLException {\n"
+                + "        if (withId) {\n"
+                + "            bindWithId(statement, entity);\n"
+                + "        } else {\n"
+                + "            bind(statement, entity);\n"
+                + "        }\n"
+                + "    }\n\n"
+                + "    public static void bind(java.sql.PreparedStatement statement, " + name + " entity)\n"
+                + "            throws java.sql.SQLException {\n"
+                + "        bind(statement, entity, 0);\n"
+                + "    }\n\n"
+                + "    /**\n"
+                + "     * Binds all the fields of the {@code entity} except its id to the parameters\n"
+                + "     * following the first {@code offset} ones, e.g. to a row of a multi-row statement\n"
+                + "     */\n"
+                + "    public static void bind(java.sql.PreparedStatement statement, " + name + " entity,\n"
+                + "            int offset) throws java.sql.SQLException {\n"
+                + body
+                + "    }\n\n"
+                + "    public static void bindWithId(java.sql.PreparedStatement statement, " + name + " entity)\n"
+                + "            throws java.sql.SQLException {\n"
+                + "        bind(statement, entity);\n"
+                + "        statement.setLong(" + (parameterCount + 1) + ", entity.getId());\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    private void bindNullable(StringBuilder body, String type, String getter, int parameter,
+            boolean reference) {
+        String value = "value" + parameter;
+        body.append("        ").append(type).append(' ').append(value).append(" = ").append(getter).append(";\n");
+        String condition = reference ? value + " == null || " + value + ".getId() == null" : value + " == null";
+        String argument = reference ? value + ".getId()" : value;
+        String[] jdbc = reference ? TYPES.get("java.lang.Long") : TYPES.get(type);
+        body.append("        if (").append(condition).append(") {\n")
+                .append("            statement.setNull(offset + ").append(parameter).append(", java.sql.Types.")
+                .append(jdbc[1]).append(");\n")
+                .append("        } else {\n")
+                .append("            statement.set").append(jdbc[0]).append("(offset + ").append(parameter)
+                .append(", ").append(argument).append(");\n")
+                .append("        }\n");
+    }
+
+    private TypeElement requireEntity(Element element) {
+        if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new InvalidEntityException(element, "@MappedEntity must annotate a concrete class");
+        }
+        TypeElement entity = (TypeElement) element;
+        TypeElement abstractEntity = processingEnv.getElementUtils().getTypeElement(ABSTRACT_ENTITY);
+        if (abstractEntity == null || !processingEnv.getTypeUtils().isSubtype(
+                processingEnv.getTypeUtils().erasure(entity.asType()),
+                processingEnv.getTypeUtils().erasure(abstractEntity.asType()))) {
+            throw new InvalidEntityException(entity, "@MappedEntity must annotate a subclass of AbstractEntity");
+        }
+        boolean hasDefaultConstructor = ElementFilter.constructorsIn(entity.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty()
+                        && constructor.getModifiers().contains(Modifier.PUBLIC));
+        if (!hasDefaultConstructor) {
+            throw new InvalidEntityException(entity, "@MappedEntity requires a public no-arg constructor");
+        }
+        return entity;
+    }
+
+    /**
+     * Returns the mapped fields of the {@code entity} with the ones of its
+     * superclasses first, so {@code id} of {@code AbstractEntity} comes first
+     */
+    private List<VariableElement> fieldsOf(TypeElement entity) {
+        Deque<TypeElement> hierarchy = new ArrayDeque<>();
+        for (TypeElement type = entity; type != null; type = superclassOf(type)) {
+            hierarchy.push(type);
+        }
+        List<VariableElement> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (TypeElement type : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                if (referenceOf(field) == null && !TYPES.containsKey(typeOf(field))) {
+                    throw new InvalidEntityException(field, "Unsupported column type " + field.asType());
+                }
+                if (names.add(field.getSimpleName().toString())) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private TypeElement superclassOf(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    /**
+     * Returns the entity referenced by the {@code field} or null if the field is a column
+     */
+    private TypeElement referenceOf(VariableElement field) {
+        if (field.asType().getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement type = (TypeElement) ((DeclaredType) field.asType()).asElement();
+        boolean mapped = type.getAnnotationMirrors().stream().anyMatch(mirror ->
+                ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+                        .contentEquals(MAPPED_ENTITY));
+        return mapped ? type : null;
+    }
+
+    private String typeOf(VariableElement field) {
+        return processingEnv.getTypeUtils().erasure(field.asType()).toString();
+    }
+
+    /**
+     * Returns the name of the public getter or setter of the {@code field} declared
+     * by the {@code entity} or any of its superclasses
+     */
+    private String accessor(TypeElement entity, VariableElement field, String prefix) {
+        String property = capitalize(field.getSimpleName().toString());
+        List<String> candidates = new ArrayList<>(List.of(prefix + property));
+        if (prefix.equals("get") && field.asType().getKind() == TypeKind.BOOLEAN) {
+            candidates.add(0, "is" + property);
+        }
+        int parameters = prefix.equals("set") ? 1 : 0;
+        for (ExecutableElement method : ElementFilter.methodsIn(
+                processingEnv.getElementUtils().getAllMembers(entity))) {
+            if (method.getModifiers().contains(Modifier.PUBLIC)
+                    && method.getParameters().size() == parameters
+                    && candidates.contains(method.getSimpleName().toString())) {
+                return method.getSimpleName().toString();
+            }
+        }
+        throw new InvalidEntityException(field, "Missing public " + candidates.get(0) + " of " + field);
+    }
+
+    private String header(TypeElement entity) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        return (packageName.isEmpty() ? "" : "package " + packageName + ";\n\n")
+                + "/**\n"
+                + " * Generated from {@link " + entity.getSimpleName() + "}, do not edit\n"
+                + " */\n"
+                + "@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")\n";
+    }
+
+    private void write(TypeElement entity, String simpleName, String source) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        String name = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(name, entity).openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    private static String unbox(String wrapper) {
+        return wrapper.equals("java.lang.Integer") ? "int"
+                : wrapper.substring("java.lang.".length()).toLowerCase();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private final static class InvalidEntityException extends RuntimeException {
+
+        private final static long serialVersionUID = 1L;
+
+        /**
+         * The element the error is reported on. It is only used within one round of
+         * the processing, so it is never serialized
+         */
+        private final transient Element element;
+
+        private InvalidEntityException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
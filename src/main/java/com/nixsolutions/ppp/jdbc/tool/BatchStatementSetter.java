@@ -0,0 +1,25 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * This interface is used to put values of one item of a batch into the
+ * {@code PreparedStatement}
+ *
+ * @param <T> the type of the items of the batch
+ * @see PreparedStatementSetter
+ */
+@FunctionalInterface
+public interface BatchStatementSetter<T> {
+
+    /**
+     * Puts values of the {@code item} into the {@code statement}. They must be
+     * strictly in order
+     *
+     * @param statement the statement to put the values into
+     * @param item      the item whose values are put into the statement
+     * @throws SQLException if any SQL error occurs
+     */
+    void setValues(PreparedStatement statement, T item) throws SQLException;
+}
@@ -0,0 +1,59 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code CacheStatistics} accumulates hit, miss and eviction counters of a cache.
+ * The counters are backed by {@code LongAdder}, so they can be updated concurrently
+ * without contention
+ */
+public class CacheStatistics {
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the ratio of hits to all the lookups or {@code 1.0} if there was
+     * no lookup yet
+     *
+     * @return the hit ratio in the range from {@code 0.0} to {@code 1.0}
+     */
+    public double getHitRatio() {
+        long hitCount = getHitCount();
+        long lookupCount = hitCount + getMissCount();
+        return lookupCount == 0 ? 1.0 : (double) hitCount / lookupCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{" + "hits=" + getHitCount() + ", misses="
+                + getMissCount() + ", evictions=" + getEvictionCount() + '}';
+    }
+}
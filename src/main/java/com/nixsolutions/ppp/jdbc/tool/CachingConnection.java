@@ -0,0 +1,36 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import org.apache.commons.dbcp2.DelegatingConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The {@code CachingConnection} is a physical connection of a pool with its
+ * {@link StatementCache} attached. The pool closes the physical connection when it
+ * evicts or invalidates it, which closes the cached statements as well
+ *
+ * @see StatementCache#attachTo(Connection)
+ */
+class CachingConnection extends DelegatingConnection<Connection> {
+
+    private final StatementCache statementCache;
+
+    CachingConnection(Connection connection, int capacity) {
+        super(connection);
+        this.statementCache = new StatementCache(connection, capacity);
+    }
+
+    StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            statementCache.clear();
+        } finally {
+            super.close();
+        }
+    }
+}
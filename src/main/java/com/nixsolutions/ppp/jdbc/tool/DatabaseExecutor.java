@@ -0,0 +1,187 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import com.nixsolutions.ppp.jdbc.config.DataSourceFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The {@code DatabaseExecutor} runs blocking JDBC work off the calling thread.
+ * At most {@code concurrency} tasks run at once, which is usually the size of the
+ * connection pool, and at most {@code queueCapacity} more wait for their turn.
+ * Any further task is not queued: its future fails at once with
+ * {@code RejectedExecutionException}, so a saturated pool pushes back on the
+ * callers instead of blocking them or piling up work
+ */
+public class DatabaseExecutor implements AutoCloseable {
+
+    private final static AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final ExecutorService executor;
+
+    /**
+     * Limits the number of tasks admitted to the executor, running or waiting
+     */
+    private final Semaphore admission;
+
+    /**
+     * Limits the number of tasks running at once. The bounded executor has just
+     * as many threads, while virtual threads wait for a permit before running
+     */
+    private final Semaphore running;
+
+    private final int capacity;
+
+    private DatabaseExecutor(ExecutorService executor, int concurrency, int queueCapacity) {
+        this.executor = executor;
+        this.capacity = concurrency + queueCapacity;
+        this.admission = new Semaphore(capacity);
+        this.running = new Semaphore(concurrency);
+    }
+
+    /**
+     * Creates an executor backed by a fixed pool of {@code concurrency} daemon threads
+     *
+     * @param concurrency   the maximum number of tasks running at once
+     * @param queueCapacity the maximum number of tasks waiting to be run
+     * @return the new executor
+     * @throws IllegalArgumentException if the {@code concurrency} is not positive or
+     *                                  the {@code queueCapacity} is negative
+     */
+    public static DatabaseExecutor bounded(int concurrency, int queueCapacity) {
+        requireValidSizes(concurrency, queueCapacity);
+        ThreadFactory threadFactory = task -> {
+            Thread thread = new Thread(task, "database-executor-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ExecutorService executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        return new DatabaseExecutor(executor, concurrency, queueCapacity);
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task. The number of tasks
+     * running at once is still limited, so no more connections are requested than
+     * the pool has. Requires JDK 21 or later at runtime
+     *
+     * @param concurrency   the maximum number of tasks running at once
+     * @param queueCapacity the maximum number of tasks waiting to be run
+     * @return the new executor
+     * @throws IllegalArgumentException      if the {@code concurrency} is not positive or
+     *                                       the {@code queueCapacity} is negative
+     * @throws UnsupportedOperationException if the runtime has no virtual threads
+     */
+    public static DatabaseExecutor virtual(int concurrency, int queueCapacity) {
+        requireValidSizes(concurrency, queueCapacity);
+        return new DatabaseExecutor(newVirtualThreadPerTaskExecutor(), concurrency, queueCapacity);
+    }
+
+    /**
+     * Creates an executor running as many tasks at once as the connection pool of
+     * {@link DataSourceFactory} has connections
+     *
+     * @param queueCapacity  the maximum number of tasks waiting to be run
+     * @param virtualThreads whether or not to run the tasks on virtual threads
+     * @return the new executor
+     * @throws IllegalArgumentException      if the {@code queueCapacity} is negative
+     * @throws UnsupportedOperationException if virtual threads are requested but unavailable
+     * @see #bounded(int, int)
+     * @see #virtual(int, int)
+     */
+    public static DatabaseExecutor forConnectionPool(int queueCapacity, boolean virtualThreads) {
+        int maxTotal = DataSourceFactory.getInstance().getPoolMetrics().getMaxTotal();
+        // a negative maxTotal means the pool is unbounded
+        int concurrency = maxTotal > 0 ? maxTotal : Runtime.getRuntime().availableProcessors() * 2;
+        return virtualThreads ? virtual(concurrency, queueCapacity) : bounded(concurrency, queueCapacity);
+    }
+
+    /**
+     * Runs the {@code task} asynchronously
+     *
+     * @param task the task to be run
+     * @param <T>  the type of the result of the {@code task}
+     * @return the future completed with the result of the {@code task}, or failed with
+     * the exception it has thrown or with {@code RejectedExecutionException} if the
+     * executor is saturated or closed
+     * @throws NullPointerException if the {@code task} is null
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        Objects.requireNonNull(task);
+        if (!admission.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Too many pending database tasks"));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> run(task), executor);
+        } catch (RejectedExecutionException exception) {
+            admission.release();
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+
+    /**
+     * Returns the number of tasks running or waiting to be run
+     *
+     * @return the number of pending tasks
+     */
+    public int getPendingCount() {
+        return capacity - admission.availablePermits();
+    }
+
+    /**
+     * Stops accepting new tasks. The tasks already submitted are completed
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Supplier<T> task) {
+        try {
+            running.acquireUninterruptibly();
+            try {
+                return task.get();
+            } finally {
+                running.release();
+            }
+        } finally {
+            admission.release();
+        }
+    }
+
+    private static void requireValidSizes(int concurrency, int queueCapacity) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity must not be negative");
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            // looked up at runtime as the sources target JDK 11
+            MethodHandle factory = MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            return (ExecutorService) factory.invokeExact();
+        } catch (NoSuchMethodException | IllegalAccessException exception) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or later", exception);
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code JdbcMetrics} collects the latencies of the SQL statements executed by
+ * sessions, keyed by their fingerprints as the {@link SlowQueryLog} computes them,
+ * of the DAO operations, keyed by their names, and of committing and rolling back
+ * transactions and borrowing connections. Every histogram counts the failed
+ * operations too, so the rollbacks are the count of {@link #getRollbacks()}. The
+ * histograms are created on the first use and never removed. At most
+ * {@value #MAX_STATEMENTS} fingerprints of at most {@value #MAX_QUERIES} SQL texts
+ * are tracked, the statements beyond share the {@value #OTHER_STATEMENTS} histogram. The metrics are read with the getters,
+ * which take snapshots, or through JMX once {@link #registerMBean(String)} is invoked
+ *
+ * @see LatencyHistogram
+ */
+public class JdbcMetrics implements JdbcMetricsMXBean {
+
+    private final static JdbcMetrics INSTANCE = new JdbcMetrics();
+
+    /**
+     * The maximum number of fingerprints tracked, so statements built with inlined
+     * values cannot exhaust the memory with histograms
+     */
+    private final static int MAX_STATEMENTS = 256;
+
+    /**
+     * The maximum number of SQL texts whose fingerprints are remembered, e.g. the
+     * multi-row statements of every number of rows per statement
+     */
+    private final static int MAX_QUERIES = 4096;
+
+    final static String OTHER_STATEMENTS = "<other>";
+
+    private final Map<String, LatencyHistogram> statements = new ConcurrentHashMap<>();
+
+    /**
+     * The histograms of the {@link #statements} by the SQL texts, so the fingerprint
+     * of a text is computed once
+     */
+    private final Map<String, LatencyHistogram> statementsByQuery = new ConcurrentHashMap<>();
+
+    private final Map<String, LatencyHistogram> operations = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram commits = new LatencyHistogram();
+
+    private final LatencyHistogram rollbacks = new LatencyHistogram();
+
+    private final LatencyHistogram borrows = new LatencyHistogram();
+
+    JdbcMetrics() {
+    }
+
+    public static JdbcMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the histogram of the fingerprint of the {@code query}, creating it on
+     * the first use, or the {@value #OTHER_STATEMENTS} histogram if too many
+     * fingerprints or SQL texts are tracked
+     *
+     * @param query the SQL statement
+     * @return the histogram of the {@code query}
+     */
+    public LatencyHistogram statement(String query) {
+        LatencyHistogram histogram = statementsByQuery.get(query);
+        if (histogram != null) {
+            return histogram;
+        }
+        if (statementsByQuery.size() >= MAX_QUERIES) {
+            // a text which cannot be remembered would be fingerprinted on every call
+            return histogram(statements, OTHER_STATEMENTS);
+        }
+        String fingerprint = SlowQueryLog.fingerprintOf(query);
+        histogram = statements.get(fingerprint);
+        if (histogram == null) {
+            histogram = histogram(statements, statements.size() < MAX_STATEMENTS ? fingerprint : OTHER_STATEMENTS);
+        }
+        statementsByQuery.putIfAbsent(query, histogram);
+        return histogram;
+    }
+
+    /**
+     * Returns the histogram of the operation, creating it on the first use. The
+     * callers are expected to resolve it once and keep it
+     *
+     * @param name the name of the operation, e.g. {@code UserDao.create}
+     * @return the histogram of the operation
+     */
+    public LatencyHistogram operation(String name) {
+        return histogram(operations, name);
+    }
+
+    LatencyHistogram commitHistogram() {
+        return commits;
+    }
+
+    LatencyHistogram rollbackHistogram() {
+        return rollbacks;
+    }
+
+    /**
+     * Records the time spent borrowing a connection from the pool
+     *
+     * @param nanos  the time spent in nanoseconds
+     * @param failed whether or not the connection has not been borrowed
+     */
+    public void recordBorrow(long nanos, boolean failed) {
+        if (failed) {
+            borrows.recordFailure(nanos);
+        } else {
+            borrows.record(nanos);
+        }
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getStatements() {
+        return snapshotOf(statements);
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getOperations() {
+        return snapshotOf(operations);
+    }
+
+    @Override
+    public LatencySnapshot getCommits() {
+        return commits.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getRollbacks() {
+        return rollbacks.snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getBorrows() {
+        return borrows.snapshot();
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server
+     *
+     * @param objectName the name to register the metrics with
+     * @throws IllegalStateException if the metrics cannot be registered
+     */
+    public void registerMBean(String objectName) {
+        Objects.requireNonNull(objectName);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(objectName));
+        } catch (JMException exception) {
+            throw new IllegalStateException("Cannot register JDBC metrics as " + objectName, exception);
+        }
+    }
+
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> histograms, String key) {
+        LatencyHistogram histogram = histograms.get(key);
+        return histogram != null ? histogram : histograms.computeIfAbsent(key, ignored -> new LatencyHistogram());
+    }
+
+    private static Map<String, LatencySnapshot> snapshotOf(Map<String, LatencyHistogram> histograms) {
+        Map<String, LatencySnapshot> snapshots = new TreeMap<>();
+        histograms.forEach((key, histogram) -> snapshots.put(key, histogram.snapshot()));
+        return snapshots;
+    }
+}
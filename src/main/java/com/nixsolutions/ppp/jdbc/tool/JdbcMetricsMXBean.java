@@ -0,0 +1,19 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link JdbcMetrics}
+ */
+public interface JdbcMetricsMXBean {
+
+    Map<String, LatencySnapshot> getStatements();
+
+    Map<String, LatencySnapshot> getOperations();
+
+    LatencySnapshot getCommits();
+
+    LatencySnapshot getRollbacks();
+
+    LatencySnapshot getBorrows();
+}
@@ -1,38 +1,211 @@
 package com.nixsolutions.ppp.jdbc.tool;
 
+import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class JdbcTransactionTemplate implements TransactionTemplate {
 
+    /**
+     * The transactions running on the current thread by the keys of the databases
+     * they work with. They are shared by all the templates, so DAOs created with
+     * different templates join each other
+     *
+     * @see KeyedConnectionSupplier
+     */
+    private final static ThreadLocal<Map<Object, Scope>> CURRENT_SCOPES =
+            ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Returns whether or not any transaction begun by a template is bound to the
+     * current thread. The operations of the thread join it, so what they read may
+     * not have been committed yet and may still be rolled back
+     *
+     * @return {@code true} if the current thread runs within a transaction
+     */
+    public static boolean isTransactionActive() {
+        Map<Object, Scope> scopes = CURRENT_SCOPES.get();
+        if (scopes.isEmpty()) {
+            CURRENT_SCOPES.remove();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether or not a transaction of the database of the {@code supplier}
+     * begun by a template is bound to the current thread, so the operations using
+     * the {@code supplier} on this thread join it
+     *
+     * @param supplier the supplier of the connections to the database
+     * @return {@code true} if the current thread runs within a transaction of the database
+     * @throws NullPointerException if the {@code supplier} is null
+     */
+    public static boolean isTransactionActive(Supplier<Connection> supplier) {
+        Object key = KeyedConnectionSupplier.keyOf(Objects.requireNonNull(supplier));
+        return isTransactionActive() && CURRENT_SCOPES.get().containsKey(key);
+    }
+
+    /**
+     * Runs the {@code action} on the current thread after each of the transactions
+     * bound to it completes, whether it is committed or rolled back, or right away
+     * if no transaction is bound
+     *
+     * @param action the action to be run, e.g. the invalidation of a cache
+     * @throws NullPointerException if the {@code action} is null
+     */
+    public static void afterCompletion(Runnable action) {
+        Objects.requireNonNull(action);
+        if (!isTransactionActive()) {
+            action.run();
+            return;
+        }
+        CURRENT_SCOPES.get().values().forEach(scope -> scope.completionActions.add(action));
+    }
+
     @Override
     public <T> T executeAndReturn(Supplier<Connection> supplier, Function<Session, T> function) {
-        try (Session session = SessionFactory.openSession(supplier.get())) {
-            Transaction transaction = session.beginTransaction();
+        return executeAndReturn(supplier, Propagation.REQUIRED, function);
+    }
+
+    @Override
+    public <T> T executeAndReturn(Supplier<Connection> supplier, Propagation propagation,
+            Function<Session, T> function) {
+        Objects.requireNonNull(propagation);
+        Object key = KeyedConnectionSupplier.keyOf(supplier);
+        Scope current = CURRENT_SCOPES.get().get(key);
+        if (current != null && propagation == Propagation.REQUIRED) {
             try {
-                T result = function.apply(session); // execute operations
-                transaction.commit();
-                return result;
+                return function.apply(current.session); // join the current transaction
             } catch (RuntimeException exception) {
-                transaction.rollback();
+                current.rollbackOnly = true; // the caller may catch it, the work may not commit
                 throw exception;
             }
         }
+        try (Session session = SessionFactory.openSession(supplier.get())) {
+            Scope scope = new Scope(session);
+            CURRENT_SCOPES.get().put(key, scope);
+            try {
+                Transaction transaction = session.beginTransaction();
+                try {
+                    T result = function.apply(session); // execute operations
+                    if (scope.rollbackOnly) {
+                        throw new CustomSqlException(
+                                "Transaction rolled back because a joined operation has failed");
+                    }
+                    transaction.commit();
+                    return result;
+                } catch (RuntimeException exception) {
+                    transaction.rollback();
+                    throw exception;
+                }
+            } finally {
+                restore(key, current);
+                scope.completionActions.forEach(Runnable::run);
+            }
+        }
     }
 
     @Override
-    public void execute(Supplier<Connection> supplier, Consumer<Session> consumer) {
+    public <T> T executeReadOnly(Supplier<Connection> supplier, Function<Session, T> function) {
+        Scope current = CURRENT_SCOPES.get().get(KeyedConnectionSupplier.keyOf(supplier));
+        if (current != null) {
+            return function.apply(current.session); // read within the current transaction
+        }
         try (Session session = SessionFactory.openSession(supplier.get())) {
+            return function.apply(session); // execute operations in the auto-commit mode
+        }
+    }
+
+    @Override
+    public <T> Stream<T> executeAndStream(Supplier<Connection> supplier,
+            Function<Session, Stream<T>> function) {
+        Scope current = CURRENT_SCOPES.get().get(KeyedConnectionSupplier.keyOf(supplier));
+        if (current != null) {
+            return function.apply(current.session); // the current transaction outlives the stream
+        }
+        Session session = SessionFactory.openSession(supplier.get());
+        try {
             Transaction transaction = session.beginTransaction();
             try {
-                consumer.accept(session); // execute operations
-                transaction.commit();
+                return function.apply(session) // open the cursor
+                        .onClose(() -> commitAndClose(session, transaction));
             } catch (RuntimeException exception) {
                 transaction.rollback();
                 throw exception;
             }
+        } catch (RuntimeException exception) {
+            session.close();
+            throw exception;
+        }
+    }
+
+    @Override
+    public void execute(Supplier<Connection> supplier, Consumer<Session> consumer) {
+        execute(supplier, Propagation.REQUIRED, consumer);
+    }
+
+    @Override
+    public void execute(Supplier<Connection> supplier, Propagation propagation,
+            Consumer<Session> consumer) {
+        executeAndReturn(supplier, propagation, session -> {
+            consumer.accept(session); // execute operations
+            return null;
+        });
+    }
+
+    private void commitAndClose(Session session, Transaction transaction) {
+        try (session) {
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Binds the suspended transaction of the database back to the current thread, if any
+     */
+    private static void restore(Object key, Scope suspended) {
+        Map<Object, Scope> scopes = CURRENT_SCOPES.get();
+        if (suspended != null) {
+            scopes.put(key, suspended);
+        } else {
+            scopes.remove(key);
+            if (scopes.isEmpty()) {
+                CURRENT_SCOPES.remove();
+            }
+        }
+    }
+
+    /**
+     * The session of a transaction begun by the template
+     */
+    private final static class Scope {
+
+        private final Session session;
+
+        /**
+         * Set if an operation joining the transaction has failed. The transaction
+         * rolls back then even if the failure was caught before reaching the template
+         */
+        private boolean rollbackOnly;
+
+        /**
+         * The actions to be run once the transaction completes
+         *
+         * @see #afterCompletion(Runnable)
+         */
+        private final List<Runnable> completionActions = new ArrayList<>();
+
+        private Scope(Session session) {
+            this.session = session;
         }
     }
 }
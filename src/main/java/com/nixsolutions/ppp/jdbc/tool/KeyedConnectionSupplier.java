@@ -0,0 +1,56 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import java.sql.Connection;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * The {@code KeyedConnectionSupplier} supplies connections to the database named by
+ * its key. {@link JdbcTransactionTemplate} binds a transaction to the current thread
+ * under the key of its supplier, and an operation joins only the transaction bound
+ * under the key of its own supplier, so a nested operation on another database, e.g.
+ * a shard, never runs on the connection of the outer transaction. Any other supplier
+ * is assumed to connect to the {@link #DEFAULT_KEY} database
+ */
+public final class KeyedConnectionSupplier implements Supplier<Connection> {
+
+    /**
+     * The key of the primary database, also used for the suppliers not being
+     * {@code KeyedConnectionSupplier}. The read replicas of the primary database
+     * share it, so the reads within a transaction of the primary join it
+     */
+    public final static Object DEFAULT_KEY = "primary";
+
+    private final Object key;
+
+    private final Supplier<Connection> supplier;
+
+    /**
+     * Constructs a supplier of the connections to the database named by the {@code key}
+     *
+     * @param key      the key of the database compared with {@code equals}
+     * @param supplier the supplier used to create a {@code Connection}
+     * @throws NullPointerException if any of the arguments is null
+     */
+    public KeyedConnectionSupplier(Object key, Supplier<Connection> supplier) {
+        this.key = Objects.requireNonNull(key);
+        this.supplier = Objects.requireNonNull(supplier);
+    }
+
+    @Override
+    public Connection get() {
+        return supplier.get();
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the key of the database the {@code supplier} connects to
+     */
+    static Object keyOf(Supplier<Connection> supplier) {
+        return supplier instanceof KeyedConnectionSupplier
+                ? ((KeyedConnectionSupplier) supplier).key : DEFAULT_KEY;
+    }
+}
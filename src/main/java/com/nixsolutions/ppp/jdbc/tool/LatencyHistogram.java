@@ -0,0 +1,115 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code LatencyHistogram} counts latencies in log-linear buckets: every power
+ * of two is split into {@value #SUB_BUCKET_COUNT} buckets, so a percentile is off
+ * by at most 12.5%. All the buckets are allocated up front and backed by
+ * {@code LongAdder}, so recording neither allocates nor contends. Reading
+ * percentiles sums the buckets and is meant for occasional snapshots
+ */
+public class LatencyHistogram {
+
+    private final static int SUB_BUCKET_BITS = 3;
+
+    private final static int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough buckets for any non-negative {@code long}
+     */
+    private final static int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+
+    private final LongAdder failureCount = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records the latency of a successful operation
+     *
+     * @param nanos the time the operation took in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets[indexOf(value)].increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Records the latency of an operation which has thrown an exception
+     *
+     * @param nanos the time the operation took in nanoseconds
+     */
+    public void recordFailure(long nanos) {
+        failureCount.increment();
+        record(nanos);
+    }
+
+    /**
+     * Returns the current state of the histogram. Operations recorded concurrently
+     * may be partially reflected
+     *
+     * @return the snapshot of the histogram
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        long max = maxNanos.get();
+        return new LatencySnapshot(count, failureCount.sum(), totalNanos.sum(), max,
+                percentile(counts, count, max, 0.5), percentile(counts, count, max, 0.9),
+                percentile(counts, count, max, 0.99), percentile(counts, count, max, 0.999));
+    }
+
+    private static long percentile(long[] counts, long count, long max, double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long lowestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        return (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long highestValueOf(int index) {
+        return index == BUCKET_COUNT - 1 ? Long.MAX_VALUE : lowestValueOf(index + 1) - 1;
+    }
+}
@@ -0,0 +1,88 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of a {@link LatencyHistogram}. The percentiles are the
+ * upper bounds of the buckets they fall into, but never above the maximum
+ */
+public class LatencySnapshot {
+
+    private final long count;
+
+    private final long failureCount;
+
+    private final long totalNanos;
+
+    private final long maxNanos;
+
+    private final long p50Nanos;
+
+    private final long p90Nanos;
+
+    private final long p99Nanos;
+
+    private final long p999Nanos;
+
+    LatencySnapshot(long count, long failureCount, long totalNanos, long maxNanos,
+            long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos) {
+        this.count = count;
+        this.failureCount = failureCount;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of operations which have thrown an exception. They are
+     * included into {@link #getCount()} and the latencies as well
+     *
+     * @return the number of failed operations
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    public double getMeanMillis() {
+        return count == 0 ? 0 : toMillis(totalNanos) / count;
+    }
+
+    public double getMaxMillis() {
+        return toMillis(maxNanos);
+    }
+
+    public double getP50Millis() {
+        return toMillis(p50Nanos);
+    }
+
+    public double getP90Millis() {
+        return toMillis(p90Nanos);
+    }
+
+    public double getP99Millis() {
+        return toMillis(p99Nanos);
+    }
+
+    public double getP999Millis() {
+        return toMillis(p999Nanos);
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{" + "count=" + count + ", failures=" + failureCount
+                + ", meanMillis=" + getMeanMillis() + ", p50Millis=" + getP50Millis()
+                + ", p90Millis=" + getP90Millis() + ", p99Millis=" + getP99Millis()
+                + ", p999Millis=" + getP999Millis() + ", maxMillis=" + getMaxMillis() + '}';
+    }
+}
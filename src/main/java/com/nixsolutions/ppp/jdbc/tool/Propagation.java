@@ -0,0 +1,24 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+/**
+ * Describes how an operation of {@link TransactionTemplate} relates to the
+ * transaction already running on the current thread
+ */
+public enum Propagation {
+
+    /**
+     * Joins the current transaction, using its session and connection, so the
+     * operation is committed or rolled back together with it. If the operation
+     * fails, the current transaction is marked rollback-only: even if the failure
+     * is caught, the transaction rolls back and its template throws
+     * {@link com.nixsolutions.ppp.jdbc.exception.CustomSqlException} instead of
+     * committing. Begins a new transaction if there is none
+     */
+    REQUIRED,
+
+    /**
+     * Always begins a new transaction on a new connection. The current
+     * transaction, if any, is suspended until the new one completes
+     */
+    REQUIRES_NEW
+}
@@ -0,0 +1,82 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * The {@code ResultSetSpliterator} maps rows of the {@code ResultSet} one by one
+ * while they are requested. It does not split the {@code ResultSet}. Once the rows
+ * are exhausted or reading them fails, it runs the end action, e.g. closing the
+ * stream it backs, so a stream consumed to its end releases its resources by itself
+ *
+ * @param <T> the type of values to be mapped to
+ */
+class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+
+    private final ResultSet resultSet;
+
+    private final RowMapper<T> mapper;
+
+    private int rowNumber;
+
+    /**
+     * The action run once the rows are exhausted or reading fails, null once it has run
+     */
+    private Runnable endAction;
+
+    ResultSetSpliterator(ResultSet resultSet, RowMapper<T> mapper) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.resultSet = Objects.requireNonNull(resultSet);
+        this.mapper = Objects.requireNonNull(mapper);
+    }
+
+    /**
+     * Sets the action run once the rows are exhausted or reading them fails
+     *
+     * @param endAction the action to be run at most once
+     */
+    void setEndAction(Runnable endAction) {
+        this.endAction = endAction;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        T row;
+        try {
+            if (!resultSet.next()) {
+                end();
+                return false;
+            }
+            row = mapper.mapRow(resultSet, ++rowNumber);
+        } catch (SQLException exception) {
+            throw endOnFailure(new CustomSqlException(exception));
+        } catch (RuntimeException exception) {
+            throw endOnFailure(exception);
+        }
+        action.accept(row);
+        return true;
+    }
+
+    private void end() {
+        Runnable action = endAction;
+        endAction = null;
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    private RuntimeException endOnFailure(RuntimeException exception) {
+        try {
+            end();
+        } catch (RuntimeException suppressed) {
+            exception.addSuppressed(suppressed);
+        }
+        return exception;
+    }
+}
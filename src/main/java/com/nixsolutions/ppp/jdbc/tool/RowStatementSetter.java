@@ -0,0 +1,26 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * This interface is used to put values of one item into its row of a multi-row
+ * {@code PreparedStatement}, e.g. {@code INSERT ... VALUES (?, ?), (?, ?)}
+ *
+ * @param <T> the type of the items
+ * @see BatchStatementSetter
+ */
+@FunctionalInterface
+public interface RowStatementSetter<T> {
+
+    /**
+     * Puts values of the {@code item} into the {@code statement} starting with the
+     * parameter {@code offset + 1}. They must be strictly in order
+     *
+     * @param statement the statement to put the values into
+     * @param item      the item whose values are put into the statement
+     * @param offset    the number of parameters of the preceding rows
+     * @throws SQLException if any SQL error occurs
+     */
+    void setValues(PreparedStatement statement, T item, int offset) throws SQLException;
+}
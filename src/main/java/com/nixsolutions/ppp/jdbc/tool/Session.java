@@ -2,8 +2,10 @@ package com.nixsolutions.ppp.jdbc.tool;
 
 import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * The {@code Session} class is designed for simplification of working with a database.
@@ -14,6 +16,16 @@ import java.util.Optional;
  */
 public interface Session extends AutoCloseable {
 
+    /**
+     * The default number of rows sent to the database in one batch
+     */
+    int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * The default number of rows sent to the database in one multi-row statement
+     */
+    int DEFAULT_ROWS_PER_STATEMENT = 100;
+
     /**
      * Begins a transaction switching auto committing to false.
      * Each of queries is executed in a single transaction after invoking
@@ -73,16 +85,46 @@ public interface Session extends AutoCloseable {
     <T> List<T> queryForList(String query, RowMapper<T> mapper,
             Object... params) throws CustomSqlException;
 
+    /**
+     * Sets the number of rows fetched from the database at once by the streams
+     * returned by {@link #queryForStream(String, RowMapper, Object...)}. Zero lets
+     * the driver choose the number
+     *
+     * @param fetchSize the number of rows fetched at once
+     * @throws IllegalArgumentException if the {@code fetchSize} is negative
+     */
+    void setFetchSize(int fetchSize);
+
+    /**
+     * Executes the {@code query} and returns a lazily populated {@code Stream<T>}
+     * of the mapped objects. Rows are fetched from the database while the stream
+     * is consumed, so the whole result is never held in memory. The stream has to
+     * be closed to release the cursor; it closes itself once the rows are exhausted
+     * or reading them fails, and it is closed with the session at the latest
+     *
+     * @param query  the query to be executed (SELECT operation)
+     * @param mapper the mapper used to map values from {@code ResultSet} into {@code <T>}
+     * @param params the params to be placed in the {@code query} (strictly in order)
+     * @param <T>    the type to be mapped to
+     * @return the {@code Stream<T>} of the objects fetched by the {@code query}
+     * @throws NullPointerException if the {@code query} or {@code mapper} is null
+     * @throws CustomSqlException   if any SQL error occurs, also while the stream is consumed
+     * @see #queryForList(String, RowMapper, Object...)
+     */
+    <T> Stream<T> queryForStream(String query, RowMapper<T> mapper,
+            Object... params) throws CustomSqlException;
+
     /**
      * Executes the {@code query} (INSERT, UPDATE or DELETE) using {@code params}
      *
      * @param query  the query to be executed (INSERT, UPDATE or DELETE operation)
      * @param params the params to be placed in the {@code query} (strictly in order)
+     * @return the number of rows affected by the {@code query}
      * @throws NullPointerException if the {@code query} is null
      * @throws CustomSqlException   if any SQL error occurs
      * @see #execute(String, PreparedStatementSetter)
      */
-    void execute(String query, Object... params) throws CustomSqlException;
+    int execute(String query, Object... params) throws CustomSqlException;
 
     /**
      * Executes the {@code query} (INSERT, UPDATE or DELETE) using {@code setter}.
@@ -91,13 +133,143 @@ public interface Session extends AutoCloseable {
      *
      * @param query  the query to be executed (INSERT, UPDATE or DELETE operation)
      * @param setter the setter used to put params into {@code PreparedStatement}
+     * @return the number of rows affected by the {@code query}
      * @throws NullPointerException if the {@code query} or {@code setter} is null
      * @throws CustomSqlException   if any SQL error occurs
      * @see #execute(String, Object...)
      */
-    void execute(String query, PreparedStatementSetter setter)
+    int execute(String query, PreparedStatementSetter setter)
+            throws CustomSqlException;
+
+    /**
+     * Executes the {@code query} (INSERT) using {@code params} and returns the keys
+     * generated by the database, so the inserted rows need not be read back
+     *
+     * @param query  the query to be executed (INSERT operation)
+     * @param params the params to be placed in the {@code query} (strictly in order)
+     * @return the generated keys in the order of the inserted rows
+     * @throws NullPointerException if the {@code query} is null
+     * @throws CustomSqlException   if any SQL error occurs
+     * @see #executeAndReturnKeys(String, PreparedStatementSetter)
+     */
+    List<Long> executeAndReturnKeys(String query, Object... params) throws CustomSqlException;
+
+    /**
+     * Executes the {@code query} (INSERT) using {@code setter} and returns the keys
+     * generated by the database
+     *
+     * @param query  the query to be executed (INSERT operation)
+     * @param setter the setter used to put params into {@code PreparedStatement}
+     * @return the generated keys in the order of the inserted rows
+     * @throws NullPointerException if the {@code query} or {@code setter} is null
+     * @throws CustomSqlException   if any SQL error occurs
+     * @see #executeAndReturnKeys(String, Object...)
+     */
+    List<Long> executeAndReturnKeys(String query, PreparedStatementSetter setter)
             throws CustomSqlException;
 
+    /**
+     * Sets the number of rows after which the pending batch is sent to the database
+     * automatically. The default value is {@link #DEFAULT_BATCH_SIZE}
+     *
+     * @param batchSize the number of rows sent to the database at once
+     * @throws IllegalArgumentException if the {@code batchSize} is not positive
+     * @see #addBatch(String, PreparedStatementSetter)
+     */
+    void setBatchSize(int batchSize);
+
+    /**
+     * Adds a row of the {@code query} (INSERT, UPDATE or DELETE) to the pending batch.
+     * The batch is sent to the database as soon as it reaches the batch size, when
+     * a row of another query is added or when {@link #executeBatch()} is invoked.
+     * Rows which have not been sent are discarded when the session is closed
+     *
+     * @param query  the query to be executed (INSERT, UPDATE or DELETE operation)
+     * @param setter the setter used to put params of the row into {@code PreparedStatement}
+     * @throws NullPointerException if the {@code query} or {@code setter} is null
+     * @throws CustomSqlException   if any SQL error occurs
+     * @see #executeBatch()
+     */
+    void addBatch(String query, PreparedStatementSetter setter)
+            throws CustomSqlException;
+
+    /**
+     * Sends the rest of the pending batch to the database
+     *
+     * @return the number of rows affected by all the rows added to the batch since
+     * the previous invocation of this method
+     * @throws CustomSqlException if any SQL error occurs
+     * @see #addBatch(String, PreparedStatementSetter)
+     */
+    int executeBatch() throws CustomSqlException;
+
+    /**
+     * Executes the {@code query} (INSERT) for each of the {@code items} in batches
+     * of the batch size and returns the keys generated by the database. The pending
+     * batch, if any, is executed first
+     *
+     * @param query  the query to be executed (INSERT operation)
+     * @param items  the items to be inserted
+     * @param setter the setter used to put params of an item into {@code PreparedStatement}
+     * @param <T>    the type of the items
+     * @return the generated keys in the order of the {@code items}
+     * @throws NullPointerException if any of the arguments is null
+     * @throws CustomSqlException   if any SQL error occurs
+     */
+    <T> List<Long> executeBatchAndReturnKeys(String query, Collection<? extends T> items,
+            BatchStatementSetter<T> setter) throws CustomSqlException;
+
+    /**
+     * Sets the number of rows put into one statement by the multi-row operations.
+     * The default value is {@link #DEFAULT_ROWS_PER_STATEMENT}
+     *
+     * @param rowsPerStatement the number of rows sent to the database in one statement
+     * @throws IllegalArgumentException if the {@code rowsPerStatement} is not positive
+     * @see #executeMultiRow(String, Collection, RowStatementSetter)
+     */
+    void setRowsPerStatement(int rowsPerStatement);
+
+    /**
+     * Executes the single-row {@code query} (INSERT or MERGE) ending with a
+     * {@code VALUES} row for all the {@code items}. The row is repeated for as many
+     * items as fit into one statement, so the items are sent in chunks of the rows
+     * per statement with one round-trip each. The remaining items, fewer than the
+     * rows per statement, are sent in one batch of the {@code query}, so only two
+     * SQL texts are used whatever the number of the items
+     *
+     * @param query  the query with one row of placeholders, e.g. {@code INSERT ... VALUES (?, ?)}
+     * @param items  the items to be written
+     * @param setter the setter used to put params of an item into its row
+     * @param <T>    the type of the items
+     * @return the number of rows affected by all the chunks
+     * @throws NullPointerException     if any of the arguments is null
+     * @throws IllegalArgumentException if the {@code query} does not end with a {@code VALUES} row,
+     *                                  e.g. it has an {@code ON DUPLICATE KEY} clause after the row
+     * @throws CustomSqlException       if any SQL error occurs
+     * @see #setRowsPerStatement(int)
+     */
+    <T> int executeMultiRow(String query, Collection<? extends T> items,
+            RowStatementSetter<T> setter) throws CustomSqlException;
+
+    /**
+     * Executes the single-row {@code query} (INSERT or MERGE) for all the {@code items}
+     * in chunks as {@link #executeMultiRow(String, Collection, RowStatementSetter)} does
+     * and returns the keys of the written rows. H2 returns the key of a row updated
+     * by {@code MERGE} as well
+     *
+     * @param query  the query with one row of placeholders, e.g. {@code INSERT ... VALUES (?, ?)}
+     * @param items  the items to be written
+     * @param setter the setter used to put params of an item into its row
+     * @param <T>    the type of the items
+     * @return the keys in the order of the {@code items}
+     * @throws NullPointerException     if any of the arguments is null
+     * @throws IllegalArgumentException if the {@code query} does not end with a {@code VALUES} row,
+     *                                  e.g. it has an {@code ON DUPLICATE KEY} clause after the row
+     * @throws CustomSqlException       if any SQL error occurs
+     */
+    <T> List<Long> executeMultiRowAndReturnKeys(String query, Collection<? extends T> items,
+            RowStatementSetter<T> setter) throws CustomSqlException;
+
     /**
      * This method closes the current transaction and connection (returns it into the pool).
      * Used in the try-with-resources constructions
@@ -5,6 +5,7 @@ import java.sql.Connection;
 public class SessionFactory {
 
     public static Session openSession(Connection connection) {
-        return new SimpleJdbcSession(connection, new SimpleJdbcTransaction(connection));
+        return new SimpleJdbcSession(connection, new SimpleJdbcTransaction(connection),
+                StatementCache.of(connection));
     }
 }
@@ -6,11 +6,17 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Serhii Nesterov
@@ -24,20 +30,80 @@ class SimpleJdbcSession implements Session {
      */
     private final static String EXISTS_BY_FIELD = "SELECT 1 FROM %s WHERE %s = ? LIMIT 1";
 
+    /**
+     * The keyword preceding the row repeated by the multi-row operations
+     */
+    private final static String VALUES = "VALUES";
+
+    private final static JdbcMetrics METRICS = JdbcMetrics.getInstance();
+
+    private final static SlowQueryLog SLOW_QUERY_LOG = SlowQueryLog.getInstance();
+
     private final Connection connection;
 
     private final Transaction transaction;
 
+    /**
+     * The cache of prepared statements bound to the physical connection. Statements
+     * taken from the cache are never closed by the session
+     */
+    private final StatementCache statementCache;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private int fetchSize;
+
+    private int rowsPerStatement = DEFAULT_ROWS_PER_STATEMENT;
+
+    /**
+     * The statements of the streams which have not been closed yet
+     */
+    private final Set<Statement> openCursors = new HashSet<>();
+
+    /**
+     * The query of the pending batch or {@code null} if there is no pending batch
+     */
+    private String batchQuery;
+
+    private PreparedStatement batchStatement;
+
+    /**
+     * The number of rows added to the pending batch but not sent to the database yet
+     */
+    private int batchRowCount;
+
+    /**
+     * The number of rows affected by the batch since the last {@link #executeBatch()}
+     */
+    private int batchUpdateCount;
+
     /**
      * Constructs a new session with the {@code connection} and {@code transaction}
      *
      * @param connection the connection to work with the database
      * @param transaction the transaction within which queries are executed
-     * @throws NullPointerException if the {@code connection} or {@code transaction} is null
+     * @param statementCache the cache of prepared statements of the {@code connection}
+     * @throws NullPointerException if any of the arguments is null
      */
-    public SimpleJdbcSession(Connection connection, Transaction transaction) {
+    public SimpleJdbcSession(Connection connection, Transaction transaction,
+            StatementCache statementCache) {
         this.connection = Objects.requireNonNull(connection);
         this.transaction = Objects.requireNonNull(transaction);
+        this.statementCache = Objects.requireNonNull(statementCache);
+    }
+
+    /**
+     * Returns the SQL text of {@link #exists(String, String, Object)}
+     *
+     * @param table the table to query to
+     * @param field the field to be filtered
+     * @return the query selecting a row by the {@code field}
+     * @throws NullPointerException if the {@code table} or {@code field} is null
+     */
+    static String existsQuery(String table, String field) {
+        Objects.requireNonNull(table);
+        Objects.requireNonNull(field);
+        return String.format(EXISTS_BY_FIELD, table, field);
     }
 
     @Override
@@ -50,7 +116,7 @@ class SimpleJdbcSession implements Session {
     public boolean exists(String table, String field, Object value) {
         Objects.requireNonNull(table);
         Objects.requireNonNull(field);
-        String query = String.format(EXISTS_BY_FIELD, table, field);
+        String query = existsQuery(table, field);
         return queryForBoolean(query, (resultSet, rowNumber) -> resultSet.next(), value);
     }
 
@@ -68,30 +134,198 @@ class SimpleJdbcSession implements Session {
     }
 
     @Override
-    public void execute(String query, Object... params) {
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("Fetch size must not be negative");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public <T> Stream<T> queryForStream(String query, RowMapper<T> mapper,
+            Object... params) {
         Objects.requireNonNull(query);
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        Objects.requireNonNull(mapper);
+        PreparedStatement statement = null;
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            // the cursor may stay open while other queries run, so its statement is not cached
+            statement = connection.prepareStatement(query,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
             fillPreparedStatement(statement, params);
-            statement.executeUpdate();
+            ResultSet resultSet = statement.executeQuery();
+            Statement cursor = statement;
+            openCursors.add(cursor);
+            failed = false;
+            ResultSetSpliterator<T> spliterator = new ResultSetSpliterator<>(resultSet, mapper);
+            Stream<T> stream = StreamSupport.stream(spliterator, false)
+                    .onClose(() -> closeCursor(cursor));
+            spliterator.setEndAction(stream::close); // runs the close actions added later as well
+            return stream;
+        } catch (SQLException exception) {
+            if (statement != null) {
+                closeQuietly(statement);
+            }
+            throw new CustomSqlException(exception);
+        } finally {
+            record(query, start, failed, -1, params);
+        }
+    }
+
+    @Override
+    public int execute(String query, Object... params) {
+        Objects.requireNonNull(query);
+        long start = System.nanoTime();
+        boolean failed = true;
+        int updateCount = -1;
+        try {
+            PreparedStatement statement = statementCache.prepare(query);
+            fillPreparedStatement(statement, params);
+            updateCount = statement.executeUpdate();
+            failed = false;
+            return updateCount;
         } catch (SQLException exception) {
             throw new CustomSqlException(exception);
+        } finally {
+            record(query, start, failed, updateCount, params);
         }
     }
 
     @Override
-    public void execute(String query, PreparedStatementSetter setter) {
+    public int execute(String query, PreparedStatementSetter setter) {
         Objects.requireNonNull(query);
         Objects.requireNonNull(setter);
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        int updateCount = -1;
+        try {
+            PreparedStatement statement = statementCache.prepare(query);
             setter.setValues(statement);
-            statement.executeUpdate();
+            updateCount = statement.executeUpdate();
+            failed = false;
+            return updateCount;
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        } finally {
+            record(query, start, failed, updateCount, null);
+        }
+    }
+
+    @Override
+    public List<Long> executeAndReturnKeys(String query, Object... params) {
+        return executeAndReturnKeys(query, statement -> fillPreparedStatement(statement, params), params);
+    }
+
+    @Override
+    public List<Long> executeAndReturnKeys(String query, PreparedStatementSetter setter) {
+        return executeAndReturnKeys(query, setter, null);
+    }
+
+    @Override
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void addBatch(String query, PreparedStatementSetter setter) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(setter);
+        try {
+            if (batchQuery != null && !batchQuery.equals(query)) {
+                flushBatch();
+                batchQuery = null;
+                batchStatement = null;
+            }
+            if (batchStatement == null) {
+                batchStatement = statementCache.prepare(query);
+                batchQuery = query;
+            }
+            setter.setValues(batchStatement);
+            batchStatement.addBatch();
+            if (++batchRowCount >= batchSize) {
+                flushBatch();
+            }
+        } catch (SQLException exception) {
+            discardBatch();
+            throw new CustomSqlException(exception);
+        }
+    }
+
+    @Override
+    public int executeBatch() {
+        try {
+            flushBatch();
+            return batchUpdateCount;
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        } finally {
+            discardBatch();
+        }
+    }
+
+    @Override
+    public <T> List<Long> executeBatchAndReturnKeys(String query,
+            Collection<? extends T> items, BatchStatementSetter<T> setter) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(items);
+        Objects.requireNonNull(setter);
+        executeBatch();
+        List<Long> keys = new ArrayList<>(items.size());
+        try {
+            PreparedStatement statement = statementCache.prepare(query, Statement.RETURN_GENERATED_KEYS);
+            int rowCount = 0;
+            try {
+                for (T item : items) {
+                    setter.setValues(statement, item);
+                    statement.addBatch();
+                    if (++rowCount % batchSize == 0) {
+                        executeBatchAndCollectKeys(query, statement, keys);
+                    }
+                }
+                if (rowCount % batchSize != 0) {
+                    executeBatchAndCollectKeys(query, statement, keys);
+                }
+            } catch (SQLException exception) {
+                statement.clearBatch();
+                throw exception;
+            }
         } catch (SQLException exception) {
             throw new CustomSqlException(exception);
         }
+        return keys;
+    }
+
+    @Override
+    public void setRowsPerStatement(int rowsPerStatement) {
+        if (rowsPerStatement <= 0) {
+            throw new IllegalArgumentException("Rows per statement must be positive");
+        }
+        this.rowsPerStatement = rowsPerStatement;
+    }
+
+    @Override
+    public <T> int executeMultiRow(String query, Collection<? extends T> items,
+            RowStatementSetter<T> setter) {
+        return executeMultiRow(query, items, setter, null);
+    }
+
+    @Override
+    public <T> List<Long> executeMultiRowAndReturnKeys(String query,
+            Collection<? extends T> items, RowStatementSetter<T> setter) {
+        List<Long> keys = new ArrayList<>(items.size());
+        executeMultiRow(query, items, setter, keys);
+        return keys;
     }
 
     @Override
     public void close() {
+        discardBatch();
+        new ArrayList<>(openCursors).forEach(this::closeCursor);
         transaction.close();
         try {
             connection.close();
@@ -123,13 +357,266 @@ class SimpleJdbcSession implements Session {
             QueryHandler<T> queryHandler, Object... params) {
         Objects.requireNonNull(query);
         Objects.requireNonNull(mapper);
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        int rowCount = -1;
+        try {
+            PreparedStatement statement = statementCache.prepare(query);
             fillPreparedStatement(statement, params);
             try (ResultSet resultSet = statement.executeQuery()) {
-                return queryHandler.apply(resultSet, mapper); // handle results
+                Object result = queryHandler.apply(resultSet, mapper); // handle results
+                rowCount = result instanceof Collection ? ((Collection<?>) result).size()
+                        : ((Optional<?>) result).isPresent() ? 1 : 0;
+                failed = false;
+                return result;
+            }
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        } finally {
+            record(query, start, failed, rowCount, params);
+        }
+    }
+
+    private List<Long> executeAndReturnKeys(String query, PreparedStatementSetter setter,
+            Object[] params) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(setter);
+        long start = System.nanoTime();
+        boolean failed = true;
+        List<Long> keys = new ArrayList<>();
+        try {
+            PreparedStatement statement = statementCache.prepare(query, Statement.RETURN_GENERATED_KEYS);
+            setter.setValues(statement);
+            statement.executeUpdate();
+            collectKeys(statement, keys);
+            failed = false;
+            return keys;
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        } finally {
+            record(query, start, failed, keys.size(), params);
+        }
+    }
+
+    /**
+     * Executes the {@code query} for the {@code items} in chunks of the rows per
+     * statement collecting the generated keys into the {@code keys} unless it is null.
+     * The items which do not fill a chunk are sent in a batch of the single-row
+     * {@code query}, so no SQL text depends on the number of the items. The pending
+     * batch, if any, is executed first
+     */
+    private <T> int executeMultiRow(String query, Collection<? extends T> items,
+            RowStatementSetter<T> setter, List<Long> keys) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(items);
+        Objects.requireNonNull(setter);
+        int rowStart = query.toUpperCase(Locale.ROOT).lastIndexOf(VALUES) + VALUES.length();
+        int rowEnd = rowStart < VALUES.length() ? -1 : endOfRow(query, rowStart);
+        if (rowEnd < 0 || !query.substring(rowEnd).isBlank()) {
+            throw new IllegalArgumentException("Query must end with a VALUES row: " + query);
+        }
+        executeBatch();
+        String row = query.substring(rowStart, rowEnd).trim();
+        int parametersPerRow = (int) row.chars().filter(c -> c == '?').count();
+        List<? extends T> list = new ArrayList<>(items);
+        int fullRows = list.size() - list.size() % rowsPerStatement;
+        int updateCount = 0;
+        if (fullRows > 0) {
+            String fullChunk = query.substring(0, rowEnd) + (", " + row).repeat(rowsPerStatement - 1);
+            for (int from = 0; from < fullRows; from += rowsPerStatement) {
+                updateCount += executeChunk(fullChunk, list.subList(from, from + rowsPerStatement),
+                        setter, parametersPerRow, keys);
+            }
+        }
+        if (fullRows < list.size()) {
+            updateCount += executeRows(query, list.subList(fullRows, list.size()), setter, keys);
+        }
+        return updateCount;
+    }
+
+    /**
+     * Returns the index following the parenthesis closing the row which starts at
+     * {@code from} with an opening one, or -1 if there is no such row
+     */
+    private static int endOfRow(String query, int from) {
+        int start = from;
+        while (start < query.length() && Character.isWhitespace(query.charAt(start))) {
+            start++;
+        }
+        if (start == query.length() || query.charAt(start) != '(') {
+            return -1;
+        }
+        int depth = 0;
+        for (int i = start; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private <T> int executeChunk(String query, List<? extends T> chunk,
+            RowStatementSetter<T> setter, int parametersPerRow, List<Long> keys) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        int updateCount = -1;
+        try {
+            PreparedStatement statement = keys == null ? statementCache.prepare(query)
+                    : statementCache.prepare(query, Statement.RETURN_GENERATED_KEYS);
+            int offset = 0;
+            for (T item : chunk) {
+                setter.setValues(statement, item, offset);
+                offset += parametersPerRow;
+            }
+            updateCount = statement.executeUpdate();
+            if (keys != null) {
+                collectKeys(statement, keys);
+            }
+            failed = false;
+            return updateCount;
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        } finally {
+            record(query, start, failed, updateCount, null);
+        }
+    }
+
+    /**
+     * Executes the single-row {@code query} for the {@code rows} in one batch
+     * collecting the generated keys into the {@code keys} unless it is null
+     */
+    private <T> int executeRows(String query, List<? extends T> rows,
+            RowStatementSetter<T> setter, List<Long> keys) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        int updateCount = 0;
+        try {
+            PreparedStatement statement = keys == null ? statementCache.prepare(query)
+                    : statementCache.prepare(query, Statement.RETURN_GENERATED_KEYS);
+            try {
+                for (T row : rows) {
+                    setter.setValues(statement, row, 0);
+                    statement.addBatch();
+                }
+                for (int count : statement.executeBatch()) {
+                    if (count > 0) {
+                        updateCount += count;
+                    }
+                }
+            } catch (SQLException exception) {
+                statement.clearBatch();
+                throw exception;
+            }
+            if (keys != null) {
+                collectKeys(statement, keys);
             }
+            failed = false;
+            return updateCount;
         } catch (SQLException exception) {
             throw new CustomSqlException(exception);
+        } finally {
+            record(query, start, failed, updateCount, null);
+        }
+    }
+
+    private void closeCursor(Statement cursor) {
+        if (openCursors.remove(cursor)) {
+            try {
+                cursor.close(); // closes the result set as well
+            } catch (SQLException exception) {
+                throw new CustomSqlException(exception);
+            }
+        }
+    }
+
+    private void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // the original exception is more important
+        }
+    }
+
+    private void flushBatch() throws SQLException {
+        if (batchRowCount > 0) {
+            batchRowCount = 0;
+            long start = System.nanoTime();
+            boolean failed = true;
+            int updateCount = 0;
+            try {
+                for (int count : batchStatement.executeBatch()) {
+                    if (count > 0) {
+                        updateCount += count;
+                    }
+                }
+                batchUpdateCount += updateCount;
+                failed = false;
+            } finally {
+                record(batchQuery, start, failed, updateCount, null);
+            }
+        }
+    }
+
+    /**
+     * Clears the rows of the pending batch which have not been sent yet, so the
+     * cached statement can be safely reused by another session
+     */
+    private void discardBatch() {
+        if (batchStatement != null) {
+            try {
+                batchStatement.clearBatch();
+            } catch (SQLException ignored) {
+                // the statement is unusable and will be re-prepared by the cache
+            }
+        }
+        batchQuery = null;
+        batchStatement = null;
+        batchRowCount = 0;
+        batchUpdateCount = 0;
+    }
+
+    private void executeBatchAndCollectKeys(String query, PreparedStatement statement,
+            List<Long> keys) throws SQLException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        int keyCount = keys.size();
+        try {
+            statement.executeBatch();
+            collectKeys(statement, keys);
+            failed = false;
+        } finally {
+            record(query, start, failed, keys.size() - keyCount, null);
+        }
+    }
+
+    private void collectKeys(Statement statement, List<Long> keys) throws SQLException {
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            while (generatedKeys.next()) {
+                keys.add(generatedKeys.getLong(1));
+            }
+        }
+    }
+
+    /**
+     * Records the latency of the {@code query} started at {@code start} and reports
+     * the {@code query} to the slow query log if it is slow
+     *
+     * @param rowCount the number of rows fetched or affected or -1 if unknown
+     * @param params   the params of the {@code query} or null if they are put by a setter
+     */
+    private void record(String query, long start, boolean failed, int rowCount, Object[] params) {
+        long nanos = System.nanoTime() - start;
+        LatencyHistogram histogram = METRICS.statement(query);
+        if (failed) {
+            histogram.recordFailure(nanos);
+        } else {
+            histogram.record(nanos);
+        }
+        if (SLOW_QUERY_LOG.isSlow(nanos)) {
+            SLOW_QUERY_LOG.report(query, nanos, rowCount, params);
         }
     }
 
@@ -7,6 +7,7 @@ import java.sql.SQLException;
 import java.util.Objects;
 
 class SimpleJdbcTransaction implements Transaction {
+    private final static JdbcMetrics METRICS = JdbcMetrics.getInstance();
     private final Connection connection;
     private boolean begun;
 
@@ -28,18 +29,24 @@ class SimpleJdbcTransaction implements Transaction {
 
     @Override
     public void commit() throws CustomSqlException {
+        long start = System.nanoTime();
         try {
             connection.commit();
+            METRICS.commitHistogram().record(System.nanoTime() - start);
         } catch (SQLException exception) {
+            METRICS.commitHistogram().recordFailure(System.nanoTime() - start);
             throw new CustomSqlException(exception);
         }
     }
 
     @Override
     public void rollback() throws CustomSqlException {
+        long start = System.nanoTime();
         try {
             connection.rollback();
+            METRICS.rollbackHistogram().record(System.nanoTime() - start);
         } catch (SQLException exception) {
+            METRICS.rollbackHistogram().recordFailure(System.nanoTime() - start);
             throw new CustomSqlException(exception);
         }
     }
@@ -0,0 +1,292 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code SlowQueryLog} reports the statements of sessions which take longer
+ * than the threshold. A slow statement is logged with its SQL, elapsed time,
+ * number of rows and, for the sampled part of them, the parameters with all the
+ * values but numbers and booleans redacted. The log records are written by a
+ * background thread, so reporting only enqueues them; records which do not fit
+ * into the queue are dropped and counted. The statistics of the slowest
+ * statements are kept by their fingerprints, the SQL with the literals replaced
+ * by {@code ?}, the {@code IN} lists and the repeated {@code VALUES} rows collapsed
+ * and the whitespace collapsed. The log is disabled until the
+ * threshold is set
+ *
+ * @see #setThresholdMillis(long)
+ */
+public class SlowQueryLog {
+
+    private final static SlowQueryLog INSTANCE = new SlowQueryLog();
+
+    private final static Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+
+    private final static int QUEUE_CAPACITY = 1024;
+
+    /**
+     * The maximum number of fingerprints tracked, so statements built with inlined
+     * values cannot exhaust the memory
+     */
+    private final static int MAX_FINGERPRINTS = 1000;
+
+    private final static Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private final static Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private final static Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    /**
+     * The rows of a multi-row {@code VALUES}, which differ in number per chunk
+     */
+    private final static Pattern VALUES_ROWS =
+            Pattern.compile("(?i)\\bVALUES\\s*(\\([^()]*\\))(?:\\s*,\\s*\\([^()]*\\))+");
+
+    private final static Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private volatile long thresholdNanos = Long.MAX_VALUE;
+
+    private volatile double sampleRate = 0.1;
+
+    private volatile int topSize = 20;
+
+    private final BlockingQueue<SlowQuery> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    private final Map<String, FingerprintStatistics> statistics = new ConcurrentHashMap<>();
+
+    private SlowQueryLog() {
+        Thread writer = new Thread(this::writeLog, "slow-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static SlowQueryLog getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the time after which a statement is considered slow
+     *
+     * @param thresholdMillis the threshold in milliseconds or a negative value to disable the log
+     */
+    public void setThresholdMillis(long thresholdMillis) {
+        thresholdNanos = thresholdMillis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    /**
+     * Sets the part of slow statements logged with their parameters
+     *
+     * @param sampleRate the probability from 0 to 1 to log the parameters
+     * @throws IllegalArgumentException if the {@code sampleRate} is out of range
+     */
+    public void setSampleRate(double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Sets the number of fingerprints returned by {@link #getSlowest()}
+     *
+     * @param topSize the number of the slowest fingerprints
+     * @throws IllegalArgumentException if the {@code topSize} is not positive
+     */
+    public void setTopSize(int topSize) {
+        if (topSize <= 0) {
+            throw new IllegalArgumentException("Top size must be positive");
+        }
+        this.topSize = topSize;
+    }
+
+    /**
+     * Returns whether or not the statement which took {@code nanos} is slow. This
+     * is the only check on the hot path
+     */
+    boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    /**
+     * Reports the slow statement
+     *
+     * @param query    the SQL of the statement
+     * @param nanos    the time the statement took in nanoseconds
+     * @param rowCount the number of rows fetched or affected or -1 if unknown
+     * @param params   the parameters of the statement or null if unavailable
+     */
+    void report(String query, long nanos, int rowCount, Object[] params) {
+        String fingerprint = fingerprints.get(query);
+        if (fingerprint == null && fingerprints.size() < MAX_FINGERPRINTS) {
+            fingerprint = fingerprints.computeIfAbsent(query, SlowQueryLog::fingerprintOf);
+        }
+        if (fingerprint == null) {
+            fingerprint = fingerprintOf(query);
+        }
+        FingerprintStatistics fingerprintStatistics = statistics.get(fingerprint);
+        if (fingerprintStatistics == null && statistics.size() < MAX_FINGERPRINTS) {
+            fingerprintStatistics = statistics.computeIfAbsent(fingerprint, FingerprintStatistics::new);
+        }
+        if (fingerprintStatistics != null) {
+            fingerprintStatistics.record(nanos);
+        }
+        String redacted = params != null && ThreadLocalRandom.current().nextDouble() < sampleRate
+                ? redact(params) : null;
+        if (!queue.offer(new SlowQuery(query, nanos, rowCount, redacted))) {
+            droppedCount.increment();
+        }
+    }
+
+    /**
+     * Returns the statistics of the slowest fingerprints, the slowest first
+     *
+     * @return at most {@code topSize} statistics ordered by their maximum time
+     */
+    public List<FingerprintStatistics> getSlowest() {
+        return statistics.values().stream()
+                .sorted(Comparator.comparingDouble(FingerprintStatistics::getMaxMillis).reversed())
+                .limit(topSize)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of slow statements which have not been logged as the
+     * queue was full
+     *
+     * @return the number of dropped log records
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    static String fingerprintOf(String query) {
+        String fingerprint = STRING_LITERAL.matcher(query).replaceAll("?");
+        fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = IN_LIST.matcher(fingerprint).replaceAll("IN (...)");
+        fingerprint = VALUES_ROWS.matcher(fingerprint).replaceAll("VALUES $1, ...");
+        return WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+    }
+
+    private static String redact(Object[] params) {
+        List<String> values = new ArrayList<>(params.length);
+        for (Object param : params) {
+            if (param == null || param instanceof Number || param instanceof Boolean) {
+                values.add(String.valueOf(param));
+            } else if (param instanceof CharSequence) {
+                values.add("<String(" + ((CharSequence) param).length() + ")>");
+            } else {
+                values.add("<" + param.getClass().getSimpleName() + ">");
+            }
+        }
+        return values.toString();
+    }
+
+    private void writeLog() {
+        while (true) {
+            try {
+                SlowQuery slowQuery = queue.take();
+                if (LOGGER.isLoggable(Level.WARNING)) {
+                    LOGGER.warning(slowQuery.toString());
+                }
+            } catch (InterruptedException exception) {
+                return;
+            } catch (RuntimeException exception) {
+                // a failing handler must not stop the log
+            }
+        }
+    }
+
+    /**
+     * The statistics of the slow executions of statements with the same fingerprint
+     */
+    public static class FingerprintStatistics {
+
+        private final String fingerprint;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private FingerprintStatistics(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getMeanMillis() {
+            long slowCount = getCount();
+            return slowCount == 0 ? 0 : toMillis(totalNanos.sum()) / slowCount;
+        }
+
+        public double getMaxMillis() {
+            return toMillis(maxNanos.get());
+        }
+
+        @Override
+        public String toString() {
+            return "FingerprintStatistics{" + "fingerprint='" + fingerprint + '\'' + ", count=" + getCount()
+                    + ", meanMillis=" + getMeanMillis() + ", maxMillis=" + getMaxMillis() + '}';
+        }
+    }
+
+    private final static class SlowQuery {
+
+        private final String query;
+
+        private final long nanos;
+
+        private final int rowCount;
+
+        private final String params;
+
+        private SlowQuery(String query, long nanos, int rowCount, String params) {
+            this.query = query;
+            this.nanos = nanos;
+            this.rowCount = rowCount;
+            this.params = params;
+        }
+
+        @Override
+        public String toString() {
+            return "Slow query took " + toMillis(nanos) + " ms, rows: "
+                    + (rowCount < 0 ? "unknown" : rowCount)
+                    + (params == null ? "" : ", params: " + params) + ", SQL: " + query;
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,198 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The {@code StatementCache} keeps prepared statements of one connection keyed by
+ * their SQL text. The least recently used statement is closed and evicted as soon
+ * as the cache exceeds its capacity. <br>
+ * A cache lives with the physical connection it is {@linkplain #attachTo(Connection)
+ * attached} to when the pool opens it, so it survives returning the connection into
+ * the pool and is reused by all the subsequent sessions working with the same
+ * connection. Its statements are closed when the pool closes the physical connection.
+ * A connection without a cache attached, e.g. one of a pool with
+ * {@code poolPreparedStatements} enabled, gets a cache of its session only: the
+ * statements are prepared through the connection itself, so the statement pool of
+ * dbcp2 serves them and takes them back when the connection is returned. <br>
+ * A connection is used by only one session at a time, therefore an instance of the
+ * cache is not synchronized
+ *
+ * @see #of(Connection)
+ */
+public class StatementCache {
+
+    public final static int DEFAULT_CAPACITY = 64;
+
+    private final static CacheStatistics STATISTICS = new CacheStatistics();
+
+    private static volatile int capacity = DEFAULT_CAPACITY;
+
+    private final Connection connection;
+
+    private final Map<Key, PreparedStatement> statements;
+
+    StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > capacity) {
+                    closeQuietly(eldest.getValue());
+                    STATISTICS.recordEviction();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Attaches a new cache to the physical {@code connection}. It is meant to be
+     * called by the connection factory of a pool for every connection it opens
+     *
+     * @param connection the physical connection just opened
+     * @return the connection to be pooled instead of the {@code connection}
+     * @throws NullPointerException if the {@code connection} is null
+     */
+    public static Connection attachTo(Connection connection) {
+        return new CachingConnection(Objects.requireNonNull(connection), capacity);
+    }
+
+    /**
+     * Returns the cache attached to the physical connection behind the
+     * {@code connection} or a new cache of the session if there is none
+     *
+     * @param connection the connection (possibly a pooled wrapper) to get the cache for
+     * @return the cache to be used by the session of the {@code connection}
+     * @throws NullPointerException if the {@code connection} is null
+     */
+    static StatementCache of(Connection connection) {
+        Objects.requireNonNull(connection);
+        try {
+            if (connection.isWrapperFor(CachingConnection.class)) {
+                return connection.unwrap(CachingConnection.class).getStatementCache();
+            }
+        } catch (SQLException ignored) {
+            // the connection is closed, its session fails on the first statement
+        }
+        return new StatementCache(connection, capacity);
+    }
+
+    /**
+     * Sets the maximum number of statements cached per connection. The new value
+     * applies to the connections opened afterwards
+     *
+     * @param capacity the maximum number of statements cached per connection
+     * @throws IllegalArgumentException if the {@code capacity} is not positive
+     */
+    public static void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        StatementCache.capacity = capacity;
+    }
+
+    public static int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters summed up over all the caches. A
+     * cache of a session counts a statement served by the statement pool of dbcp2
+     * as a miss
+     *
+     * @return the statistics of all the statement caches
+     */
+    public static CacheStatistics getStatistics() {
+        return STATISTICS;
+    }
+
+    /**
+     * Returns the cached statement for the {@code query} with its parameters cleared
+     * or prepares and caches a new one. The returned statement must not be closed by
+     * the caller
+     *
+     * @param query the SQL text of the statement
+     * @return the prepared statement for the {@code query}
+     * @throws SQLException if any SQL error occurs
+     */
+    PreparedStatement prepare(String query) throws SQLException {
+        return prepare(query, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Returns the cached statement for the {@code query} with its parameters cleared
+     * or prepares and caches a new one. The parameters of the previous execution are
+     * cleared, so a parameter left unbound fails the statement instead of reusing an
+     * old value. Statements returning generated keys are cached apart from the ones
+     * that do not. The returned statement must not be closed by the caller
+     *
+     * @param query             the SQL text of the statement
+     * @param autoGeneratedKeys {@code Statement.RETURN_GENERATED_KEYS} or
+     *                          {@code Statement.NO_GENERATED_KEYS}
+     * @return the prepared statement for the {@code query}
+     * @throws SQLException if any SQL error occurs
+     */
+    PreparedStatement prepare(String query, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(query, autoGeneratedKeys);
+        PreparedStatement statement = statements.get(key);
+        if (statement != null && !statement.isClosed()) {
+            statement.clearParameters();
+            STATISTICS.recordHit();
+            return statement;
+        }
+        STATISTICS.recordMiss();
+        statement = connection.prepareStatement(query, autoGeneratedKeys);
+        statements.put(key, statement);
+        return statement;
+    }
+
+    /**
+     * Closes and removes all the cached statements
+     */
+    void clear() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // the statement is discarded anyway
+        }
+    }
+
+    private final static class Key {
+
+        private final String query;
+
+        private final int autoGeneratedKeys;
+
+        private Key(String query, int autoGeneratedKeys) {
+            this.query = query;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            Key that = (Key) o;
+            return autoGeneratedKeys == that.autoGeneratedKeys && query.equals(that.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * query.hashCode() + autoGeneratedKeys;
+        }
+    }
+}
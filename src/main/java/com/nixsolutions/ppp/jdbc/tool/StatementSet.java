@@ -0,0 +1,110 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@code StatementSet} is the SQL texts a DAO executes through a {@link Session},
+ * so they can be prepared on the pooled connections in advance and the first
+ * requests find them in the {@link StatementCache}. The statements returning
+ * generated keys are cached apart from the others, so they are listed apart as well.
+ * The statements of all the sets prepared on a connection should fit into the
+ * capacity of the cache
+ */
+public class StatementSet {
+
+    private final static Logger LOGGER = Logger.getLogger(StatementSet.class.getName());
+
+    private final Set<String> statements = new LinkedHashSet<>();
+
+    private final Set<String> statementsReturningKeys = new LinkedHashSet<>();
+
+    /**
+     * Adds the statements executed without returning generated keys
+     *
+     * @param queries the SQL texts of the statements
+     * @return this set
+     * @throws NullPointerException if any of the {@code queries} is null
+     */
+    public StatementSet add(String... queries) {
+        for (String query : queries) {
+            statements.add(Objects.requireNonNull(query));
+        }
+        return this;
+    }
+
+    /**
+     * Adds the statements executed by the operations returning generated keys
+     *
+     * @param queries the SQL texts of the statements
+     * @return this set
+     * @throws NullPointerException if any of the {@code queries} is null
+     * @see Session#executeAndReturnKeys(String, PreparedStatementSetter)
+     */
+    public StatementSet addReturningKeys(String... queries) {
+        for (String query : queries) {
+            statementsReturningKeys.add(Objects.requireNonNull(query));
+        }
+        return this;
+    }
+
+    /**
+     * Adds the statement executed by {@link Session#exists(String, String, Object)}
+     *
+     * @param table the table to query to
+     * @param field the field to be filtered
+     * @return this set
+     * @throws NullPointerException if the {@code table} or {@code field} is null
+     */
+    public StatementSet addExists(String table, String field) {
+        return add(SimpleJdbcSession.existsQuery(table, field));
+    }
+
+    public Set<String> getStatements() {
+        return Collections.unmodifiableSet(statements);
+    }
+
+    public Set<String> getStatementsReturningKeys() {
+        return Collections.unmodifiableSet(statementsReturningKeys);
+    }
+
+    /**
+     * Prepares all the statements on the {@code connection} and puts them into the
+     * statement cache of its physical connection, or into the statement pool of
+     * dbcp2 once the connection is returned if dbcp2 pools the statements. A
+     * statement which cannot be prepared, e.g. as its table does not exist in this
+     * database, is skipped
+     *
+     * @param connection the connection, usually borrowed from a pool
+     * @return the number of the statements prepared
+     * @throws NullPointerException if the {@code connection} is null
+     */
+    public int prepareOn(Connection connection) {
+        StatementCache cache = StatementCache.of(connection);
+        int prepared = 0;
+        for (String query : statements) {
+            prepared += prepare(cache, query, Statement.NO_GENERATED_KEYS);
+        }
+        for (String query : statementsReturningKeys) {
+            prepared += prepare(cache, query, Statement.RETURN_GENERATED_KEYS);
+        }
+        return prepared;
+    }
+
+    private int prepare(StatementCache cache, String query, int autoGeneratedKeys) {
+        try {
+            cache.prepare(query, autoGeneratedKeys);
+            return 1;
+        } catch (SQLException exception) {
+            LOGGER.log(Level.FINE, "Statement cannot be prepared in advance: " + query, exception);
+            return 0;
+        }
+    }
+}
@@ -4,13 +4,20 @@ import java.sql.Connection;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * The {@code TransactionTemplate} interface is responsible for executing queries
  * that are wrapped in a single transaction. If any exception is thrown during
  * operation execution, then the transaction rollbacks; otherwise, the transaction
  * commits. Each method creates a new {@link Session} using the {@code Connection}
- * delivered with the {@code Supplier<Connection>}
+ * delivered with the {@code Supplier<Connection>} unless a transaction with the same
+ * database is already running on the current thread: by default the operations join
+ * it, so nested DAO calls share one connection and one commit. The supplier is not
+ * invoked then. The database of a supplier is told by its key
+ *
+ * @see KeyedConnectionSupplier
+ * @see Propagation
  *
  * @author Serhii Nesterov
  */
@@ -18,6 +25,7 @@ public interface TransactionTemplate {
 
     /**
      * Executes operations located in the {@code function} and returns {@code T} result
+     * joining the current transaction if any
      *
      * @param supplier the supplier used to create a {@code Connection}
      * @param function the function containing a set of operations to be executed
@@ -26,12 +34,70 @@ public interface TransactionTemplate {
      * @return the object of the {@code T} type
      * @throws RuntimeException if any RuntimeException is thrown
      * @see #execute(Supplier, Consumer)
+     * @see Propagation#REQUIRED
      */
     <T> T executeAndReturn(Supplier<Connection> supplier,
             Function<Session, T> function) throws RuntimeException;
 
+    /**
+     * Executes operations located in the {@code function} and returns {@code T} result
+     * within the transaction chosen by the {@code propagation}. A transaction begun
+     * by this method is bound to the current thread until it completes, so the
+     * operations invoked by the {@code function} may join it
+     *
+     * @param supplier    the supplier used to create a {@code Connection}
+     * @param propagation the way the current transaction is treated
+     * @param function    the function containing a set of operations to be executed
+     *                    within the transaction
+     * @param <T>         the type to be returned
+     * @return the object of the {@code T} type
+     * @throws RuntimeException if any RuntimeException is thrown
+     */
+    <T> T executeAndReturn(Supplier<Connection> supplier, Propagation propagation,
+            Function<Session, T> function) throws RuntimeException;
+
+    /**
+     * Executes read-only operations located in the {@code function} and returns
+     * {@code T} result. No transaction is begun: each query runs in the auto-commit
+     * mode, which saves switching the auto-commit mode and committing. Therefore
+     * the {@code function} must not modify data and the queries do not share a
+     * consistent snapshot. Within a running transaction the queries join it and
+     * see its uncommitted changes
+     *
+     * @param supplier the supplier used to create a {@code Connection}
+     * @param function the function containing a set of read-only operations
+     * @param <T>      the type to be returned
+     * @return the object of the {@code T} type
+     * @throws RuntimeException if any RuntimeException is thrown
+     * @see #executeAndReturn(Supplier, Function)
+     */
+    <T> T executeReadOnly(Supplier<Connection> supplier,
+            Function<Session, T> function) throws RuntimeException;
+
+    /**
+     * Executes operations located in the {@code function} returning a lazily
+     * consumed {@code Stream<T>}. The session and the transaction stay open while
+     * the stream is consumed; the transaction commits and the connection returns
+     * into the pool when the stream is closed, so the caller must close it. A stream
+     * of {@link Session#queryForStream(String, RowMapper, Object...)} also closes
+     * itself once its rows are exhausted or reading them fails, but a stream left
+     * before its end, e.g. by {@code findFirst()}, holds the connection with the open
+     * transaction until it is closed. Within a running transaction the stream uses
+     * its session and closing the stream only closes the cursor
+     *
+     * @param supplier the supplier used to create a {@code Connection}
+     * @param function the function opening the stream within the transaction
+     * @param <T>      the type of the elements of the stream
+     * @return the stream which has to be closed after use
+     * @throws RuntimeException if any RuntimeException is thrown
+     * @see Session#queryForStream(String, RowMapper, Object...)
+     */
+    <T> Stream<T> executeAndStream(Supplier<Connection> supplier,
+            Function<Session, Stream<T>> function) throws RuntimeException;
+
     /**
      * Executes operations located in the {@code consumer} without returning any result
+     * joining the current transaction if any
      *
      * @param supplier the supplier used to create a {@code Connection}
      * @param consumer the consumer containing a set of operations to be executed
@@ -41,4 +107,18 @@ public interface TransactionTemplate {
      */
     void execute(Supplier<Connection> supplier, Consumer<Session> consumer)
             throws RuntimeException;
+
+    /**
+     * Executes operations located in the {@code consumer} without returning any result
+     * within the transaction chosen by the {@code propagation}
+     *
+     * @param supplier    the supplier used to create a {@code Connection}
+     * @param propagation the way the current transaction is treated
+     * @param consumer    the consumer containing a set of operations to be executed
+     *                    within the transaction
+     * @throws RuntimeException if any RuntimeException is thrown
+     * @see #executeAndReturn(Supplier, Propagation, Function)
+     */
+    void execute(Supplier<Connection> supplier, Propagation propagation,
+            Consumer<Session> consumer) throws RuntimeException;
 }
@@ -0,0 +1,10 @@
+-- the rows are kept as they are if they exist, e.g. created by the former schema script
+MERGE INTO role (name) KEY(name) VALUES ('User'), ('Admin');
+
+INSERT INTO user (login, password, email, first_name, last_name, birthday, role_id)
+    SELECT 'ivanov72', 'qwerty', 'ivanov72@gmail.com', 'Ivan', 'Ivanov', '1972-02-06', id
+    FROM role WHERE name = 'User' AND NOT EXISTS (SELECT 1 FROM user WHERE login = 'ivanov72');
+
+INSERT INTO user (login, password, email, first_name, last_name, birthday, role_id)
+    SELECT 'petrov80', '123456', 'petrov80@gmail.com', 'Peter', 'Petrov', '1980-12-08', id
+    FROM role WHERE name = 'Admin' AND NOT EXISTS (SELECT 1 FROM user WHERE login = 'petrov80');
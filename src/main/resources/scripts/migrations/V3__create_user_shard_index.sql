@@ -0,0 +1,6 @@
+-- the global index of the users of the shards, it allocates their ids
+CREATE TABLE IF NOT EXISTS user_shard_index (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  email VARCHAR(320) UNIQUE NOT NULL,
+  shard INT NOT NULL
+);
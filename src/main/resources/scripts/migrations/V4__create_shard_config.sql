@@ -0,0 +1,5 @@
+-- the number of the shards the users are spread over, recorded on the first start
+CREATE TABLE IF NOT EXISTS shard_config (
+  id INT PRIMARY KEY CHECK (id = 1),
+  shard_count INT NOT NULL
+);
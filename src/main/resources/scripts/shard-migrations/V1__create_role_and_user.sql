@@ -0,0 +1,18 @@
+-- replica of the role table of the primary database, the ids are the same
+CREATE TABLE IF NOT EXISTS role (
+    id BIGINT PRIMARY KEY,
+    name VARCHAR(150) UNIQUE NOT NULL
+);
+
+-- the ids are allocated by the user_shard_index table of the primary database
+CREATE TABLE IF NOT EXISTS user (
+  id BIGINT PRIMARY KEY,
+  login VARCHAR(150) UNIQUE NOT NULL,
+  password VARCHAR(150) NOT NULL,
+  email VARCHAR(320) UNIQUE NOT NULL,
+  first_name VARCHAR(150) NOT NULL,
+  last_name VARCHAR(150) NOT NULL,
+  birthday DATE,
+  role_id BIGINT NOT NULL,
+  FOREIGN KEY(role_id) REFERENCES role(id)
+);
@@ -0,0 +1,105 @@
+package com.nixsolutions.ppp.jdbc.config;
+
+import com.nixsolutions.ppp.jdbc.dao.JdbcRoleDao;
+import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.KeyedConnectionSupplier;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataSourceFactoryTest {
+
+    private final static DataSourceFactory FACTORY = DataSourceFactory.getInstance();
+
+    private final TransactionTemplate template = new JdbcTransactionTemplate();
+
+    private final JdbcRoleDao roleDao = new JdbcRoleDao(template);
+
+    @Test
+    void readOnlyConnectionIsBorrowedFromReplica() throws SQLException {
+        long replicaBorrows = replicaBorrowCount();
+        long primaryBorrows = FACTORY.getPoolMetrics().getBorrowCount();
+
+        try (Connection connection = FACTORY.getReadOnlyConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+
+        assertEquals(replicaBorrows + 1, replicaBorrowCount());
+        assertEquals(primaryBorrows, FACTORY.getPoolMetrics().getBorrowCount());
+    }
+
+    @Test
+    void readOutsideTransactionGoesToReplica() {
+        long replicaBorrows = replicaBorrowCount();
+        long primaryBorrows = FACTORY.getPoolMetrics().getBorrowCount();
+
+        roleDao.findByName("User");
+
+        assertEquals(replicaBorrows + 1, replicaBorrowCount());
+        assertEquals(primaryBorrows, FACTORY.getPoolMetrics().getBorrowCount());
+    }
+
+    @Test
+    void readWithinTransactionUsesItsConnectionToPrimary() {
+        long replicaBorrows = replicaBorrowCount();
+        long primaryBorrows = FACTORY.getPoolMetrics().getBorrowCount();
+
+        template.execute(new KeyedConnectionSupplier(KeyedConnectionSupplier.DEFAULT_KEY, DataSourceFactoryTest::primaryConnection),
+                session -> {
+                    roleDao.findByName("User");
+                    roleDao.findById(1L);
+                });
+
+        assertEquals(replicaBorrows, replicaBorrowCount());
+        assertEquals(primaryBorrows + 1, FACTORY.getPoolMetrics().getBorrowCount());
+    }
+
+    @Test
+    void configuredShardCountIsRecorded() throws SQLException {
+        try (Connection connection = FACTORY.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT shard_count FROM shard_config")) {
+            assertTrue(resultSet.next());
+            assertEquals(FACTORY.getShardCount(), resultSet.getInt(1));
+        }
+    }
+
+    @Test
+    void anotherShardCountIsRefused() throws SQLException {
+        JdbcDataSource primary = new JdbcDataSource();
+        primary.setURL("jdbc:h2:mem:shard-config;DB_CLOSE_DELAY=-1");
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE shard_config (id INT PRIMARY KEY, shard_count INT NOT NULL)");
+        }
+        DataSourceFactory.verifyShardCount(primary, 2);
+        DataSourceFactory.verifyShardCount(primary, 2);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> DataSourceFactory.verifyShardCount(primary, 3));
+
+        assertEquals("3 shards are configured, but the users are spread over 2 shards", exception.getMessage());
+    }
+
+    private static Connection primaryConnection() {
+        try {
+            return FACTORY.getConnection();
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        }
+    }
+
+    private static long replicaBorrowCount() {
+        return FACTORY.getReplicaPoolMetrics().get(0).getBorrowCount();
+    }
+}
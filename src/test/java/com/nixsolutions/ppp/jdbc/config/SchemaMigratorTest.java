@@ -0,0 +1,148 @@
+package com.nixsolutions.ppp.jdbc.config;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SchemaMigratorTest {
+
+    private final static AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+
+    private final SchemaMigrator migrator = new SchemaMigrator("scripts/test-migrations");
+
+    private BasicDataSource dataSource;
+
+    @BeforeEach
+    void createDatabase() {
+        dataSource = new BasicDataSource();
+        dataSource.setUrl("jdbc:h2:mem:migrator" + DATABASE_NUMBER.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterEach
+    void dropDatabase() throws SQLException {
+        execute("DROP ALL OBJECTS");
+        dataSource.close();
+    }
+
+    @Test
+    void migrateAppliesPendingMigrationsOnce() throws SQLException {
+        assertEquals(2, migrator.migrate(dataSource));
+        assertEquals(0, migrator.migrate(dataSource));
+
+        assertEquals(2, count("SELECT COUNT(*) FROM item"));
+        assertEquals(2, count("SELECT COUNT(*) FROM schema_history"));
+    }
+
+    @Test
+    void concurrentMigrationsApplyEveryMigrationOnce() throws Exception {
+        new SchemaMigrator("scripts/test-empty-migrations").migrate(dataSource); // creates the lock table
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> new SchemaMigrator("scripts/test-migrations").migrate(dataSource)));
+            }
+            int applied = 0;
+            for (Future<Integer> future : futures) {
+                applied += future.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals(2, applied);
+            assertEquals(2, count("SELECT COUNT(*) FROM item"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void lockLeftByKilledInstanceIsTakenOver() throws SQLException {
+        new SchemaMigrator("scripts/test-empty-migrations").migrate(dataSource); // creates the lock table
+        lock(Instant.now().minus(2, ChronoUnit.MINUTES));
+        migrator.setLockTimeoutMillis(TimeUnit.MINUTES.toMillis(1));
+
+        assertEquals(2, migrator.migrate(dataSource));
+
+        assertEquals(2, count("SELECT COUNT(*) FROM item"));
+        assertEquals(0, count("SELECT COUNT(*) FROM schema_lock"));
+    }
+
+    @Test
+    void liveLockIsWaitedFor() throws Exception {
+        new SchemaMigrator("scripts/test-empty-migrations").migrate(dataSource);
+        lock(Instant.now());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> migration = executor.submit(() -> migrator.migrate(dataSource));
+            TimeUnit.MILLISECONDS.sleep(1000);
+
+            assertFalse(migration.isDone());
+            execute("DELETE FROM schema_lock");
+            assertEquals(2, migration.get(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void migrateRejectsChangedMigration() throws SQLException {
+        migrator.migrate(dataSource);
+        execute("UPDATE schema_history SET checksum = REPEAT('0', 64) WHERE version = 1");
+
+        assertThrows(IllegalStateException.class, () -> migrator.migrate(dataSource));
+    }
+
+    @Test
+    void migrateFailsOnMissingLocation() {
+        SchemaMigrator missing = new SchemaMigrator("scripts/missing-migrations");
+
+        assertThrows(IllegalStateException.class, () -> missing.migrate(dataSource));
+    }
+
+    private long count(String query) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery(query)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void lock(Instant lockedOn) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO schema_lock (id, locked_on) VALUES (1, ?)")) {
+            statement.setTimestamp(1, Timestamp.from(lockedOn), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+            statement.executeUpdate();
+        }
+    }
+
+    private void execute(String query) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute(query);
+        }
+    }
+}
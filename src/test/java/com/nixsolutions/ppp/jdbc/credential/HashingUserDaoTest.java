@@ -0,0 +1,125 @@
+package com.nixsolutions.ppp.jdbc.credential;
+
+import com.nixsolutions.ppp.jdbc.dao.JdbcUserDao;
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.UserNotFoundException;
+import com.nixsolutions.ppp.jdbc.tool.DatabaseExecutor;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashingUserDaoTest {
+
+    private final static AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final JdbcUserDao jdbcUserDao = new JdbcUserDao(new JdbcTransactionTemplate());
+
+    private final PasswordHasher hasher = new PasswordHasher(1000);
+
+    private final DatabaseExecutor workers = DatabaseExecutor.bounded(2, 10);
+
+    private final HashingUserDao userDao = new HashingUserDao(jdbcUserDao, hasher, workers, 2);
+
+    private final List<String> logins = new ArrayList<>();
+
+    @AfterEach
+    void removeUsers() {
+        workers.close();
+        for (String login : logins) {
+            try {
+                jdbcUserDao.remove(jdbcUserDao.findByLogin(login));
+            } catch (UserNotFoundException ignored) {
+                // never created
+            }
+        }
+    }
+
+    @Test
+    void writtenPasswordsAreStoredAsHashes() {
+        User created = newUser("secret");
+        List<User> users = List.of(newUser("first"), newUser("second"), newUser("third"));
+
+        userDao.create(created);
+        userDao.createAll(users);
+
+        assertStoredHash(created.getLogin(), "secret");
+        assertStoredHash(users.get(0).getLogin(), "first");
+        assertStoredHash(users.get(2).getLogin(), "third");
+    }
+
+    @Test
+    void writtenHashIsStoredAsIs() {
+        String hash = hasher.hash("secret");
+        User user = newUser(hash);
+
+        userDao.create(user);
+
+        assertEquals(hash, jdbcUserDao.findByLogin(user.getLogin()).getPassword());
+    }
+
+    @Test
+    void authenticateAcceptsOnlyPasswordOfKnownUser() {
+        User user = newUser("secret");
+        userDao.create(user);
+
+        assertEquals(user.getLogin(), userDao.authenticate(user.getLogin(), "secret").orElseThrow().getLogin());
+        assertFalse(userDao.authenticate(user.getLogin(), "wrong").isPresent());
+        assertFalse(userDao.authenticate("unknown" + user.getLogin(), "secret").isPresent());
+    }
+
+    @Test
+    void plainTextPasswordIsRehashedOnLogin() {
+        User user = newUser("secret");
+        jdbcUserDao.create(user);
+
+        assertTrue(userDao.authenticate(user.getLogin(), "secret").isPresent());
+
+        assertStoredHash(user.getLogin(), "secret");
+    }
+
+    @Test
+    void hashOfAnotherCostIsRehashedOnLogin() {
+        String previous = new PasswordHasher(2000).hash("secret");
+        User user = newUser(previous);
+        jdbcUserDao.create(user);
+
+        assertTrue(userDao.authenticate(user.getLogin(), "secret").isPresent());
+
+        String stored = jdbcUserDao.findByLogin(user.getLogin()).getPassword();
+        assertNotEquals(previous, stored);
+        assertFalse(hasher.needsRehash(stored));
+        assertTrue(hasher.verify("secret", stored));
+    }
+
+    private void assertStoredHash(String login, String password) {
+        String stored = jdbcUserDao.findByLogin(login).getPassword();
+        assertTrue(PasswordHasher.isHash(stored));
+        assertFalse(hasher.needsRehash(stored));
+        assertTrue(hasher.verify(password, stored));
+    }
+
+    private User newUser(String password) {
+        String login = "hashing" + SEQUENCE.incrementAndGet();
+        logins.add(login);
+        User user = new User();
+        user.setLogin(login);
+        user.setPassword(password);
+        user.setEmail(login + "@example.com");
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setBirthday(Date.valueOf("1990-01-01"));
+        user.setRole(new Role(1L, "User"));
+        return user;
+    }
+}
@@ -0,0 +1,63 @@
+package com.nixsolutions.ppp.jdbc.credential;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher(1000);
+
+    @Test
+    void hashVerifiesOnlyItsPassword() {
+        String hash = hasher.hash("secret");
+
+        assertTrue(PasswordHasher.isHash(hash));
+        assertTrue(hash.startsWith("$pbkdf2-sha256$1000$"));
+        assertTrue(hasher.verify("secret", hash));
+        assertFalse(hasher.verify("Secret", hash));
+        assertFalse(hasher.verify("", hash));
+    }
+
+    @Test
+    void hashesOfSamePasswordHaveDifferentSalts() {
+        String first = hasher.hash("secret");
+        String second = hasher.hash("secret");
+
+        assertNotEquals(first, second);
+        assertTrue(hasher.verify("secret", first));
+        assertTrue(hasher.verify("secret", second));
+    }
+
+    @Test
+    void hashOfAnotherCostIsVerifiedAndNeedsRehash() {
+        String hash = new PasswordHasher(2000).hash("secret");
+
+        assertTrue(hasher.verify("secret", hash));
+        assertTrue(hasher.needsRehash(hash));
+        assertFalse(hasher.needsRehash(hasher.hash("secret")));
+    }
+
+    @Test
+    void plainTextPasswordIsComparedAndNeedsRehash() {
+        assertFalse(PasswordHasher.isHash("secret"));
+        assertTrue(hasher.verify("secret", "secret"));
+        assertFalse(hasher.verify("secre", "secret"));
+        assertTrue(hasher.needsRehash("secret"));
+    }
+
+    @Test
+    void malformedHashIsTreatedAsPlainText() {
+        assertFalse(PasswordHasher.isHash("$pbkdf2-sha256$0$c2FsdA==$aGFzaA=="));
+        assertFalse(PasswordHasher.isHash("$pbkdf2-sha256$1000$c2FsdA=="));
+        assertFalse(PasswordHasher.isHash("$pbkdf2-sha256$x$c2FsdA==$aGFzaA=="));
+    }
+
+    @Test
+    void iterationsMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHasher(0));
+    }
+}
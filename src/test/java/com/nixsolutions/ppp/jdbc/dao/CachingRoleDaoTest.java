@@ -0,0 +1,86 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.exception.RoleNotFoundException;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingRoleDaoTest {
+
+    private final static TransactionTemplate TEMPLATE = new JdbcTransactionTemplate();
+
+    private final static AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final JdbcRoleDao delegate = new JdbcRoleDao(TEMPLATE);
+
+    private final CachingRoleDao dao = new CachingRoleDao(delegate, Duration.ofMinutes(1));
+
+    private final List<String> created = new ArrayList<>();
+
+    @AfterEach
+    void removeCreatedRoles() {
+        created.forEach(name -> delegate.remove(delegate.findByName(name)));
+    }
+
+    @Test
+    void foundRoleIsServedFromCache() {
+        Role role = create(newName());
+
+        dao.findById(role.getId());
+        Role cached = dao.findByName(role.getName());
+
+        assertEquals(role.getId(), cached.getId());
+        assertEquals(1, dao.getStatistics().getHitCount());
+    }
+
+    @Test
+    void roleOfRolledBackTransactionIsNotCached() {
+        String name = newName();
+
+        assertThrows(IllegalStateException.class, () -> TEMPLATE.execute(delegate.connections(), session -> {
+            dao.create(new Role(name));
+            dao.findByName(name);
+            throw new IllegalStateException();
+        }));
+
+        assertThrows(RoleNotFoundException.class, () -> dao.findByName(name));
+    }
+
+    @Test
+    void roleCachedByAnotherThreadBeforeCommitIsInvalidated() {
+        Role role = create(newName());
+        String renamed = newName();
+
+        TEMPLATE.execute(delegate.connections(), session -> {
+            dao.update(new Role(role.getId(), renamed));
+            // reads the committed role and caches it while the update is pending
+            assertEquals(role.getName(), CompletableFuture.supplyAsync(() -> dao.findById(role.getId()))
+                    .join().getName());
+        });
+        created.set(0, renamed);
+
+        assertEquals(renamed, dao.findById(role.getId()).getName());
+    }
+
+    private Role create(String name) {
+        Role role = new Role(name);
+        dao.create(role);
+        created.add(name);
+        return role;
+    }
+
+    private static String newName() {
+        return "cached" + SEQUENCE.incrementAndGet();
+    }
+}
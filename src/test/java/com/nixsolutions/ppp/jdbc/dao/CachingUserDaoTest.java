@@ -0,0 +1,80 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.UserNotFoundException;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CachingUserDaoTest {
+
+    private final static TransactionTemplate TEMPLATE = new JdbcTransactionTemplate();
+
+    private final JdbcUserDao delegate = new JdbcUserDao(TEMPLATE);
+
+    private final CachingUserDao dao = new CachingUserDao(delegate,
+            new CachingRoleDao(new JdbcRoleDao(TEMPLATE), Duration.ofMinutes(1)), 100);
+
+    private final List<User> created = new ArrayList<>();
+
+    @AfterEach
+    void removeCreatedUsers() {
+        created.forEach(user -> delegate.remove(delegate.findByLogin(user.getLogin())));
+    }
+
+    @Test
+    void userFoundByLoginIsServedByEmail() {
+        User user = create(TestUsers.newUser("cached"));
+
+        dao.findByLogin(user.getLogin());
+        User cached = dao.findByEmail(user.getEmail());
+
+        assertEquals(user.getId(), cached.getId());
+        assertEquals(1, dao.getStatistics().getHitCount());
+        assertEquals(1, dao.size());
+    }
+
+    @Test
+    void userOfRolledBackTransactionIsNotCached() {
+        User user = TestUsers.newUser("cached");
+
+        assertThrows(IllegalStateException.class, () -> TEMPLATE.execute(delegate.connections(), session -> {
+            dao.create(user);
+            dao.findByLogin(user.getLogin());
+            throw new IllegalStateException();
+        }));
+
+        assertThrows(UserNotFoundException.class, () -> dao.findByLogin(user.getLogin()));
+    }
+
+    @Test
+    void userCachedByAnotherThreadBeforeCommitIsInvalidated() {
+        User user = create(TestUsers.newUser("cached"));
+        User changed = dao.findByLogin(user.getLogin());
+        changed.setFirstName("Changed");
+
+        TEMPLATE.execute(delegate.connections(), session -> {
+            dao.update(changed);
+            // reads the committed user and caches it while the update is pending
+            assertEquals(user.getFirstName(), CompletableFuture.supplyAsync(
+                    () -> dao.findByLogin(user.getLogin())).join().getFirstName());
+        });
+
+        assertEquals("Changed", dao.findByLogin(user.getLogin()).getFirstName());
+    }
+
+    private User create(User user) {
+        dao.create(user);
+        created.add(user);
+        return user;
+    }
+}
@@ -0,0 +1,205 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.RoleNotFoundException;
+import com.nixsolutions.ppp.jdbc.exception.UserAlreadyExistsException;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcUserDaoTest {
+
+    private final static TransactionTemplate TEMPLATE = new JdbcTransactionTemplate();
+
+    private final JdbcUserDao dao = new JdbcUserDao(TEMPLATE);
+
+    private final List<User> created = new ArrayList<>();
+
+    @AfterEach
+    void removeCreatedUsers() {
+        created.forEach(user -> dao.remove(dao.findByLogin(user.getLogin())));
+    }
+
+    @Test
+    void createSetsGeneratedId() {
+        User user = create(dao, TestUsers.newUser("jdbc"));
+
+        assertNotNull(user.getId());
+        assertEquals(user.getId(), dao.findByLogin(user.getLogin()).getId());
+    }
+
+    @Test
+    void createAllSetsGeneratedIdsInOrderOfUsers() {
+        List<User> users = List.of(TestUsers.newUser("jdbc"), TestUsers.newUser("jdbc"));
+
+        List<Long> ids = dao.createAll(users);
+        created.addAll(users);
+
+        assertEquals(idsOf(users), ids);
+        for (User user : users) {
+            assertEquals(user.getId(), dao.findByLogin(user.getLogin()).getId());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ValidationMode.class)
+    void createRejectsBusyLogin(ValidationMode validationMode) {
+        JdbcUserDao dao = new JdbcUserDao(TEMPLATE, validationMode);
+        User user = create(dao, TestUsers.newUser("jdbc"));
+        User duplicate = TestUsers.newUser("jdbc");
+        duplicate.setLogin(user.getLogin());
+
+        assertThrows(UserAlreadyExistsException.class, () -> dao.create(duplicate));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ValidationMode.class)
+    void createRejectsBusyEmail(ValidationMode validationMode) {
+        JdbcUserDao dao = new JdbcUserDao(TEMPLATE, validationMode);
+        User user = create(dao, TestUsers.newUser("jdbc"));
+        User duplicate = TestUsers.newUser("jdbc");
+        duplicate.setEmail(user.getEmail());
+
+        assertThrows(UserAlreadyExistsException.class, () -> dao.create(duplicate));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ValidationMode.class)
+    void createRejectsMissingRole(ValidationMode validationMode) {
+        JdbcUserDao dao = new JdbcUserDao(TEMPLATE, validationMode);
+        User user = TestUsers.newUser("jdbc");
+        user.setRole(new Role(Long.MAX_VALUE, "Missing"));
+
+        assertThrows(RoleNotFoundException.class, () -> dao.create(user));
+        assertNull(user.getId());
+    }
+
+    @Test
+    void constraintViolationIsClassifiedByOwnerOfValue() {
+        JdbcUserDao dao = new JdbcUserDao(TEMPLATE, ValidationMode.CONSTRAINTS);
+        User user = TestUsers.newUser("jdbc");
+        user.setEmail("(login)" + user.getEmail());
+        create(dao, user);
+        User loginDuplicate = TestUsers.newUser("jdbc");
+        loginDuplicate.setLogin(user.getLogin());
+        User emailDuplicate = TestUsers.newUser("jdbc");
+        emailDuplicate.setEmail(user.getEmail());
+
+        assertEquals("This login is busy", assertThrows(UserAlreadyExistsException.class,
+                () -> dao.create(loginDuplicate)).getMessage());
+        assertEquals("This email is busy", assertThrows(UserAlreadyExistsException.class,
+                () -> dao.create(emailDuplicate)).getMessage());
+    }
+
+    @Test
+    void upsertCreatesAndThenUpdatesByLogin() {
+        User user = TestUsers.newUser("upsert");
+        dao.upsert(user);
+        created.add(user);
+        Long id = user.getId();
+        User changed = TestUsers.newUser("upsert");
+        changed.setLogin(user.getLogin());
+        changed.setFirstName("Changed");
+
+        dao.upsert(changed);
+
+        assertNotNull(id);
+        assertEquals(id, changed.getId());
+        assertEquals("Changed", dao.findByLogin(user.getLogin()).getFirstName());
+    }
+
+    @Test
+    void upsertAllSetsIdsOfCreatedAndUpdatedUsers() {
+        User existing = create(dao, TestUsers.newUser("upsert"));
+        User changed = TestUsers.newUser("upsert");
+        changed.setLogin(existing.getLogin());
+        List<User> users = new ArrayList<>(List.of(changed));
+        for (int i = 0; i < 4; i++) {
+            users.add(TestUsers.newUser("upsert"));
+        }
+        dao.setRowsPerStatement(2);
+
+        List<Long> ids = dao.upsertAll(users);
+        created.addAll(users.subList(1, users.size()));
+
+        assertEquals(idsOf(users), ids);
+        assertEquals(existing.getId(), changed.getId());
+        for (User user : users) {
+            assertEquals(user.getId(), dao.findByLogin(user.getLogin()).getId());
+        }
+    }
+
+    @Test
+    void upsertAllRejectsRepeatedLogin() {
+        User user = TestUsers.newUser("upsert");
+        User repeated = TestUsers.newUser("upsert");
+        repeated.setLogin(user.getLogin());
+
+        assertThrows(UserAlreadyExistsException.class, () -> dao.upsertAll(List.of(user, repeated)));
+    }
+
+    @Test
+    void upsertRejectsEmailOfAnotherUser() {
+        User user = create(dao, TestUsers.newUser("upsert"));
+        User other = TestUsers.newUser("upsert");
+        other.setEmail(user.getEmail());
+
+        assertEquals("This email is busy", assertThrows(UserAlreadyExistsException.class,
+                () -> dao.upsert(other)).getMessage());
+    }
+
+    @Test
+    void zeroFetchSizeLetsDriverChooseIt() {
+        User user = create(dao, TestUsers.newUser("stream"));
+        dao.setFetchSize(0);
+
+        try (Stream<User> users = dao.streamAll()) {
+            assertTrue(users.anyMatch(user::equals));
+        }
+        assertThrows(IllegalArgumentException.class, () -> dao.setFetchSize(-1));
+    }
+
+    @Test
+    void findPageWalksAllUsersInOrderOfIds() {
+        for (int i = 0; i < 5; i++) {
+            create(dao, TestUsers.newUser("page"));
+        }
+        List<Long> ids = new ArrayList<>();
+        Page<User> page = dao.findPage(null, 2);
+        ids.addAll(idsOf(page.getContent()));
+        while (page.hasNext()) {
+            assertFalse(page.getContent().isEmpty());
+            page = dao.findPage(page.getNextCursor(), 2);
+            ids.addAll(idsOf(page.getContent()));
+        }
+
+        assertEquals(idsOf(dao.findAll()).stream().sorted().collect(Collectors.toList()), ids);
+        assertTrue(ids.containsAll(idsOf(created)));
+    }
+
+    private User create(JdbcUserDao dao, User user) {
+        dao.create(user);
+        created.add(user);
+        return user;
+    }
+
+    private static List<Long> idsOf(List<User> users) {
+        return users.stream().map(User::getId).collect(Collectors.toList());
+    }
+}
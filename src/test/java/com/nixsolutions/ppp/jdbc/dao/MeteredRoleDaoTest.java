@@ -0,0 +1,30 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.exception.RoleNotFoundException;
+import com.nixsolutions.ppp.jdbc.tool.JdbcMetrics;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.LatencySnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MeteredRoleDaoTest {
+
+    private final JdbcMetrics metrics = JdbcMetrics.getInstance();
+
+    private final MeteredRoleDao dao = new MeteredRoleDao(
+            new JdbcRoleDao(new JdbcTransactionTemplate()), metrics);
+
+    @Test
+    void operationsAreRecordedWithTheirFailures() {
+        LatencySnapshot before = metrics.getOperations().get("RoleDao.findByName");
+
+        assertEquals("User", dao.findByName("User").getName());
+        assertThrows(RoleNotFoundException.class, () -> dao.findByName("Missing"));
+
+        LatencySnapshot after = metrics.getOperations().get("RoleDao.findByName");
+        assertEquals(before.getCount() + 2, after.getCount());
+        assertEquals(before.getFailureCount() + 1, after.getFailureCount());
+    }
+}
@@ -0,0 +1,171 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.config.DataSourceFactory;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+import com.nixsolutions.ppp.jdbc.exception.UserAlreadyExistsException;
+import com.nixsolutions.ppp.jdbc.exception.UserNotFoundException;
+import com.nixsolutions.ppp.jdbc.tool.DatabaseExecutor;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedUserDaoTest {
+
+    private final static TransactionTemplate TEMPLATE = new JdbcTransactionTemplate();
+
+    private static DatabaseExecutor executor;
+
+    private static ShardedUserDao dao;
+
+    private final ConsistentHashRing ring = new ConsistentHashRing(DataSourceFactory.getInstance().getShardCount());
+
+    private final List<User> created = new ArrayList<>();
+
+    @BeforeAll
+    static void replicateRoles() {
+        new ReplicatedRoleDao(new JdbcRoleDao(TEMPLATE), TEMPLATE).synchronize();
+        executor = DatabaseExecutor.bounded(4, 16);
+        dao = new ShardedUserDao(TEMPLATE, executor);
+    }
+
+    @AfterAll
+    static void closeExecutor() {
+        executor.close();
+    }
+
+    @AfterEach
+    void removeCreatedUsers() {
+        dao.removeAll(created);
+    }
+
+    @Test
+    void usersAreSpreadOverShardsAndFoundByLoginAndEmail() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(TestUsers.newUser("sharded"));
+        }
+        dao.createAll(users);
+        created.addAll(users);
+
+        Set<Integer> shards = users.stream().map(user -> ring.shardOf(user.getLogin())).collect(Collectors.toSet());
+        assertEquals(2, shards.size());
+        for (User user : users) {
+            assertEquals(user.getId(), dao.findByLogin(user.getLogin()).getId());
+            assertEquals(user.getId(), dao.findByEmail(user.getEmail()).getId());
+        }
+        List<Long> ids = dao.findAll().stream().map(User::getId).collect(Collectors.toList());
+        assertTrue(ids.containsAll(users.stream().map(User::getId).collect(Collectors.toList())));
+        assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids);
+    }
+
+    @Test
+    void emailIsUniqueAcrossShards() {
+        User user = create(userOnShard(0));
+        User other = userOnShard(1);
+        other.setEmail(user.getEmail());
+
+        assertThrows(UserAlreadyExistsException.class, () -> dao.create(other));
+        assertEquals(user.getId(), dao.findByEmail(user.getEmail()).getId());
+    }
+
+    @Test
+    void updateMovesUserToShardOfNewLogin() {
+        User user = create(userOnShard(0));
+        String oldLogin = user.getLogin();
+        user.setLogin(userOnShard(1).getLogin());
+
+        dao.update(user);
+
+        assertEquals(user.getId(), dao.findByLogin(user.getLogin()).getId());
+        assertEquals(user.getId(), dao.findByEmail(user.getEmail()).getId());
+        assertThrows(UserNotFoundException.class, () -> dao.findByLogin(oldLogin));
+    }
+
+    @Test
+    void removeReleasesEmail() {
+        User user = userOnShard(0);
+        dao.create(user);
+        dao.remove(user);
+
+        assertThrows(UserNotFoundException.class, () -> dao.findByEmail(user.getEmail()));
+    }
+
+    @Test
+    void indexIsWrittenApartFromTransactionOfCaller() {
+        User user = userOnShard(0);
+
+        assertThrows(IllegalStateException.class, () -> TEMPLATE.execute(ShardedUserDaoTest::primaryConnection,
+                session -> {
+                    create(user);
+                    throw new IllegalStateException();
+                }));
+
+        assertEquals(user.getId(), dao.findByEmail(user.getEmail()).getId());
+    }
+
+    @Test
+    void workOfShardJoinsTransactionOfCallerOnThatShard() {
+        // the shards are joined in order, so the executor has the time to start the work of shard 1
+        User separate = userOnShard(0);
+        User joining = userOnShard(1);
+
+        assertThrows(IllegalStateException.class, () -> TEMPLATE.execute(dao.shardConnections(1), session -> {
+            dao.createAll(List.of(separate, joining));
+            throw new IllegalStateException();
+        }));
+        created.add(separate);
+
+        assertThrows(UserNotFoundException.class, () -> dao.findByLogin(joining.getLogin()));
+        assertEquals(separate.getId(), dao.findByLogin(separate.getLogin()).getId());
+    }
+
+    @Test
+    void scatterRunsOnThreadOfSaturatedExecutor() throws Exception {
+        User user = create(userOnShard(0));
+        try (DatabaseExecutor single = DatabaseExecutor.bounded(1, 1)) {
+            ShardedUserDao singleDao = new ShardedUserDao(TEMPLATE, single);
+
+            List<User> users = single.submit(singleDao::findAll).get(10, TimeUnit.SECONDS);
+
+            assertTrue(users.stream().anyMatch(found -> found.getId().equals(user.getId())));
+        }
+    }
+
+    private User create(User user) {
+        dao.create(user);
+        created.add(user);
+        return user;
+    }
+
+    private static Connection primaryConnection() {
+        try {
+            return DataSourceFactory.getInstance().getConnection();
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        }
+    }
+
+    private User userOnShard(int shard) {
+        User user = TestUsers.newUser("sharded");
+        while (ring.shardOf(user.getLogin()) != shard) {
+            user = TestUsers.newUser("sharded");
+        }
+        return user;
+    }
+}
@@ -0,0 +1,37 @@
+package com.nixsolutions.ppp.jdbc.dao;
+
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.entity.User;
+
+import java.sql.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code TestUsers} creates users with logins and emails unique within the run,
+ * so the tests sharing the in-memory databases do not interfere
+ */
+final class TestUsers {
+
+    /**
+     * The id of the {@code User} role seeded by the migrations
+     */
+    final static long USER_ROLE_ID = 1L;
+
+    private final static AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private TestUsers() {
+    }
+
+    static User newUser(String prefix) {
+        String login = prefix + SEQUENCE.incrementAndGet();
+        User user = new User();
+        user.setLogin(login);
+        user.setPassword("password");
+        user.setEmail(login + "@example.com");
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setBirthday(Date.valueOf("1990-01-01"));
+        user.setRole(new Role(USER_ROLE_ID, "User"));
+        return user;
+    }
+}
@@ -0,0 +1,151 @@
+package com.nixsolutions.ppp.jdbc.exporter;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nixsolutions.ppp.jdbc.dao.JdbcRoleDao;
+import com.nixsolutions.ppp.jdbc.dao.JdbcUserDao;
+import com.nixsolutions.ppp.jdbc.entity.Role;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.UserNotFoundException;
+import com.nixsolutions.ppp.jdbc.importer.ImportProgress;
+import com.nixsolutions.ppp.jdbc.importer.UserImporter;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserJsonExporterTest {
+
+    private final static TransactionTemplate TEMPLATE = new JdbcTransactionTemplate();
+
+    private final static AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final JdbcUserDao userDao = new JdbcUserDao(TEMPLATE);
+
+    private final UserJsonExporter exporter = new UserJsonExporter(userDao);
+
+    private final String prefix = "export" + SEQUENCE.incrementAndGet() + "_";
+
+    private final List<User> users = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void removeUsers() {
+        for (User user : users) {
+            try {
+                userDao.remove(userDao.findByLogin(user.getLogin()));
+            } catch (UserNotFoundException ignored) {
+                // removed by the test
+            }
+        }
+    }
+
+    @Test
+    void arrayHoldsObjectsOfAllUsers() throws IOException {
+        User user = create("a");
+        Path file = directory.resolve("users.json");
+
+        long count = exporter.export(file);
+
+        JsonArray array = JsonParser.parseString(Files.readString(file)).getAsJsonArray();
+        assertEquals(count, array.size());
+        JsonObject object = find(array, user.getLogin());
+        assertEquals(user.getId().longValue(), object.get("id").getAsLong());
+        assertEquals(user.getEmail(), object.get("email").getAsString());
+        assertEquals("1990-01-01", object.get("birthday").getAsString());
+        assertEquals("User", object.getAsJsonObject("role").get("name").getAsString());
+    }
+
+    @Test
+    void jsonLinesHoldOneUserPerLine() throws IOException {
+        create("a");
+        create("b");
+        Path file = directory.resolve("users.jsonl");
+
+        long count = exporter.export(file);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(count, lines.size());
+        for (String line : lines) {
+            assertTrue(JsonParser.parseString(line).isJsonObject());
+        }
+    }
+
+    @Test
+    void gzipFileHoldsCompressedJsonLines() throws IOException {
+        create("a");
+        Path file = directory.resolve("users.ndjson.gz");
+
+        long count = exporter.export(file);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            assertEquals(count, reader.lines().map(JsonParser::parseString).filter(JsonElement::isJsonObject).count());
+        }
+    }
+
+    @Test
+    void exportedJsonLinesCanBeImportedBack() throws IOException {
+        User user = create("a");
+        Path file = directory.resolve("users.jsonl");
+        exporter.export(file);
+        userDao.remove(user);
+        assertThrows(UserNotFoundException.class, () -> userDao.findByLogin(user.getLogin()));
+
+        ImportProgress progress = new UserImporter(userDao, new JdbcRoleDao(TEMPLATE)).importFile(file);
+
+        assertEquals(0, progress.getRowsRejected());
+        User imported = userDao.findByLogin(user.getLogin());
+        assertEquals(user.getEmail(), imported.getEmail());
+        assertEquals(user.getPassword(), imported.getPassword());
+        assertEquals(user.getBirthday(), imported.getBirthday());
+        assertEquals("User", imported.getRole().getName());
+        assertFalse(Files.exists(directory.resolve("users.jsonl.checkpoint")));
+    }
+
+    private User create(String login) {
+        User user = new User();
+        user.setLogin(prefix + login);
+        user.setPassword("password");
+        user.setEmail(prefix + login + "@example.com");
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setBirthday(Date.valueOf("1990-01-01"));
+        user.setRole(new Role(1L, "User"));
+        userDao.create(user);
+        users.add(user);
+        return user;
+    }
+
+    private JsonObject find(JsonArray array, String login) {
+        for (JsonElement element : array) {
+            JsonObject object = element.getAsJsonObject();
+            if (login.equals(object.get("login").getAsString())) {
+                return object;
+            }
+        }
+        throw new AssertionError("No user " + login + " in " + array);
+    }
+}
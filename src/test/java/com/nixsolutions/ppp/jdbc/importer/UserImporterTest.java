@@ -0,0 +1,112 @@
+package com.nixsolutions.ppp.jdbc.importer;
+
+import com.nixsolutions.ppp.jdbc.dao.JdbcRoleDao;
+import com.nixsolutions.ppp.jdbc.dao.JdbcUserDao;
+import com.nixsolutions.ppp.jdbc.entity.User;
+import com.nixsolutions.ppp.jdbc.exception.UserNotFoundException;
+import com.nixsolutions.ppp.jdbc.tool.JdbcTransactionTemplate;
+import com.nixsolutions.ppp.jdbc.tool.TransactionTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserImporterTest {
+
+    private final static TransactionTemplate TEMPLATE = new JdbcTransactionTemplate();
+
+    private final static String HEADER = "login,password,email,first_name,last_name,birthday,role";
+
+    private final static AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final JdbcUserDao userDao = new JdbcUserDao(TEMPLATE);
+
+    private final UserImporter importer = new UserImporter(userDao, new JdbcRoleDao(TEMPLATE));
+
+    private final String prefix = "import" + SEQUENCE.incrementAndGet() + "_";
+
+    private final List<String> logins = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void removeImportedUsers() {
+        for (String login : logins) {
+            try {
+                userDao.remove(userDao.findByLogin(login));
+            } catch (UserNotFoundException ignored) {
+                // rejected
+            }
+        }
+    }
+
+    @Test
+    void usersOfTakenEmailsAreRejectedAndRestImported() throws IOException {
+        Path file = write("users.csv", HEADER,
+                line("a", "a"), line("b", "taken"), line("c", "a"), line("d", "d"), line("a", "a2"));
+        importer.importFile(write("taken.csv", HEADER, line("owner", "taken")));
+        importer.setChunkSize(10);
+
+        ImportProgress progress = importer.importFile(file);
+
+        assertEquals(5, progress.getRowsRead());
+        assertEquals(2, progress.getRowsImported());
+        assertEquals(2, progress.getRowsRejected());
+        assertEquals(prefix + "a2@example.com", userDao.findByLogin(prefix + "a").getEmail());
+        assertEquals(prefix + "d@example.com", userDao.findByLogin(prefix + "d").getEmail());
+        assertThrows(UserNotFoundException.class, () -> userDao.findByLogin(prefix + "b"));
+    }
+
+    @Test
+    void interruptedImportResumesFromCheckpoint() throws IOException {
+        Path file = write("users.jsonl", json("a"), json("b"), json("c"), json("d"), json("e"));
+        importer.setChunkSize(2);
+        importer.setProgressListener(progress -> {
+            throw new IllegalStateException("Crash after the first chunk");
+        });
+
+        assertThrows(IllegalStateException.class, () -> importer.importFile(file));
+        assertTrue(Files.exists(directory.resolve("users.jsonl.checkpoint")));
+        List<ImportProgress> reported = new ArrayList<>();
+        importer.setProgressListener(reported::add);
+
+        ImportProgress progress = importer.importFile(file);
+
+        assertEquals(5, progress.getRowsRead());
+        assertEquals(5, progress.getRowsImported());
+        assertEquals(2, reported.size());
+        assertFalse(Files.exists(directory.resolve("users.jsonl.checkpoint")));
+        for (String login : List.of("a", "b", "c", "d", "e")) {
+            assertEquals(prefix + login, userDao.findByLogin(prefix + login).getLogin());
+        }
+    }
+
+    private String line(String login, String email) {
+        logins.add(prefix + login);
+        return String.join(",", prefix + login, "password", prefix + email + "@example.com",
+                "First", "Last", "1990-01-01", "User");
+    }
+
+    private String json(String login) {
+        logins.add(prefix + login);
+        return "{\"login\":\"" + prefix + login + "\",\"password\":\"password\",\"email\":\""
+                + prefix + login + "@example.com\",\"firstName\":\"First\",\"lastName\":\"Last\","
+                + "\"role\":\"User\"}";
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(directory.resolve(name), List.of(lines));
+    }
+}
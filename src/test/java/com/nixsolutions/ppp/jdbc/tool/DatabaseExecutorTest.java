@@ -0,0 +1,111 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseExecutorTest {
+
+    @Test
+    void saturatedExecutorRejectsTaskAtOnce() {
+        CountDownLatch release = new CountDownLatch(1);
+        try (DatabaseExecutor executor = DatabaseExecutor.bounded(1, 1)) {
+            CompletableFuture<Integer> running = executor.submit(() -> await(release, 1));
+            CompletableFuture<Integer> waiting = executor.submit(() -> 2);
+
+            CompletableFuture<Integer> rejected = executor.submit(() -> 3);
+
+            assertEquals(2, executor.getPendingCount());
+            assertRejected(rejected);
+            release.countDown();
+            assertEquals(1, running.join());
+            assertEquals(2, waiting.join());
+        }
+    }
+
+    @Test
+    void completedTasksAdmitNewOnes() {
+        try (DatabaseExecutor executor = DatabaseExecutor.bounded(1, 0)) {
+            assertEquals(1, executor.submit(() -> 1).join());
+
+            assertEquals(2, executor.submit(() -> 2).join());
+            assertEquals(0, executor.getPendingCount());
+        }
+    }
+
+    @Test
+    void failedTaskReleasesItsPermit() {
+        try (DatabaseExecutor executor = DatabaseExecutor.bounded(1, 0)) {
+            CompletableFuture<Object> failed = executor.submit(() -> {
+                throw new IllegalStateException();
+            });
+
+            assertInstanceOf(IllegalStateException.class,
+                    assertThrows(CompletionException.class, failed::join).getCause());
+            assertEquals(0, executor.getPendingCount());
+        }
+    }
+
+    @Test
+    void noMoreTasksRunAtOnceThanConcurrency() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        try (DatabaseExecutor executor = DatabaseExecutor.bounded(2, 8)) {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[10];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    sleep();
+                    return active.decrementAndGet();
+                });
+            }
+
+            CompletableFuture.allOf(futures).join();
+        }
+
+        assertTrue(peak.get() <= 2);
+    }
+
+    @Test
+    void closedExecutorRejectsTask() {
+        DatabaseExecutor executor = DatabaseExecutor.bounded(1, 0);
+        executor.close();
+
+        assertRejected(executor.submit(() -> 1));
+        assertEquals(0, executor.getPendingCount());
+    }
+
+    private static void assertRejected(CompletableFuture<?> future) {
+        assertTrue(future.isCompletedExceptionally());
+        assertInstanceOf(RejectedExecutionException.class,
+                assertThrows(CompletionException.class, future::join).getCause());
+    }
+
+    private static <T> T await(CountDownLatch latch, T result) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            return result;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
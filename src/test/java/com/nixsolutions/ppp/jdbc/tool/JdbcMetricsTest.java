@@ -0,0 +1,48 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcMetricsTest {
+
+    private final JdbcMetrics metrics = JdbcMetrics.getInstance();
+
+    @Test
+    void multiRowChunksShareHistogram() {
+        String fullChunk = "MERGE INTO metrics_test (a, b) KEY(a) VALUES (?, ?), (?, ?), (?, ?)";
+        String tailChunk = "MERGE INTO metrics_test (a, b) KEY(a) VALUES (?, ?), (?, ?)";
+
+        assertSame(metrics.statement(fullChunk), metrics.statement(tailChunk));
+    }
+
+    @Test
+    void statementsWithInlinedValuesAreCapped() {
+        for (int i = 0; i < 1000; i++) {
+            metrics.statement("SELECT name FROM metrics_test WHERE name = 'name" + i + "' OR code_" + i + " = 0");
+        }
+
+        assertTrue(metrics.getStatements().containsKey(JdbcMetrics.OTHER_STATEMENTS));
+        assertTrue(metrics.getStatements().size() <= 257);
+        assertEquals("SELECT name FROM metrics_test WHERE name = ? OR code_1 = ?",
+                SlowQueryLog.fingerprintOf("SELECT name FROM metrics_test WHERE name = 'x' OR code_1 = 7"));
+    }
+
+    @Test
+    void textsBeyondRememberedOnesShareOtherHistogram() {
+        JdbcMetrics metrics = new JdbcMetrics();
+        for (int i = 0; i < 4096; i++) {
+            metrics.statement("SELECT name FROM metrics_test LIMIT " + i);
+        }
+
+        metrics.statement("SELECT code FROM metrics_test").record(1);
+
+        assertEquals(Set.of("SELECT name FROM metrics_test LIMIT ?", JdbcMetrics.OTHER_STATEMENTS),
+                metrics.getStatements().keySet());
+        assertEquals(1, metrics.getStatements().get(JdbcMetrics.OTHER_STATEMENTS).getCount());
+    }
+}
@@ -0,0 +1,147 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import com.nixsolutions.ppp.jdbc.config.DataSourceFactory;
+import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdbcTransactionTemplateTest {
+
+    private final static TransactionTemplate TEMPLATE = new JdbcTransactionTemplate();
+
+    private final static RowMapper<Integer> ID_MAPPER = (resultSet, rowNumber) -> resultSet.getInt(1);
+
+    @BeforeAll
+    static void createTable() {
+        TEMPLATE.execute(JdbcTransactionTemplateTest::connection,
+                session -> session.execute("CREATE TABLE IF NOT EXISTS template_test (id INT PRIMARY KEY)"));
+    }
+
+    @BeforeEach
+    void cleanTable() {
+        TEMPLATE.execute(JdbcTransactionTemplateTest::connection,
+                session -> session.execute("DELETE FROM template_test"));
+    }
+
+    @Test
+    void requiredJoinsAndRollsBackWithOuterTransaction() {
+        assertThrows(IllegalStateException.class, () -> TEMPLATE.execute(JdbcTransactionTemplateTest::connection,
+                session -> {
+                    insert(session, 1);
+                    TEMPLATE.execute(JdbcTransactionTemplateTest::connection, Propagation.REQUIRED,
+                            inner -> insert(inner, 2));
+                    throw new IllegalStateException();
+                }));
+
+        assertEquals(List.of(), ids());
+    }
+
+    @Test
+    void failedRequiredMarksOuterTransactionRollbackOnly() {
+        assertThrows(CustomSqlException.class, () -> TEMPLATE.execute(JdbcTransactionTemplateTest::connection,
+                session -> {
+                    insert(session, 1);
+                    try {
+                        TEMPLATE.execute(JdbcTransactionTemplateTest::connection, Propagation.REQUIRED, inner -> {
+                            insert(inner, 2);
+                            throw new IllegalStateException();
+                        });
+                    } catch (IllegalStateException exception) {
+                        // the outer transaction goes on
+                    }
+                }));
+
+        assertEquals(List.of(), ids());
+    }
+
+    @Test
+    void requiresNewCommitsApartFromOuterTransaction() {
+        assertThrows(IllegalStateException.class, () -> TEMPLATE.execute(JdbcTransactionTemplateTest::connection,
+                session -> {
+                    insert(session, 1);
+                    TEMPLATE.execute(JdbcTransactionTemplateTest::connection, Propagation.REQUIRES_NEW,
+                            inner -> insert(inner, 2));
+                    throw new IllegalStateException();
+                }));
+
+        assertEquals(List.of(2), ids());
+    }
+
+    @Test
+    void requiredJoinsOnlyTransactionOfSameDatabase() {
+        Supplier<Connection> other = new KeyedConnectionSupplier("other", JdbcTransactionTemplateTest::connection);
+
+        assertThrows(IllegalStateException.class, () -> TEMPLATE.execute(JdbcTransactionTemplateTest::connection,
+                session -> {
+                    insert(session, 1);
+                    TEMPLATE.execute(other, Propagation.REQUIRED, inner -> {
+                        insert(inner, 2);
+                        TEMPLATE.execute(JdbcTransactionTemplateTest::connection, joined -> insert(joined, 3));
+                    });
+                    throw new IllegalStateException();
+                }));
+
+        assertEquals(List.of(2), ids());
+    }
+
+    @Test
+    void readOnlySeesWritesOfCurrentTransaction() {
+        List<Integer> seen = TEMPLATE.executeAndReturn(JdbcTransactionTemplateTest::connection, session -> {
+            insert(session, 1);
+            return TEMPLATE.executeReadOnly(JdbcTransactionTemplateTest::connection,
+                    inner -> inner.queryForList("SELECT id FROM template_test", ID_MAPPER));
+        });
+
+        assertEquals(List.of(1), seen);
+    }
+
+    @Test
+    void readOnlyRunsInAutoCommitModeOutsideTransaction() throws SQLException {
+        List<Connection> opened = new ArrayList<>();
+
+        boolean autoCommit = TEMPLATE.executeReadOnly(() -> {
+            Connection connection = connection();
+            opened.add(connection);
+            return connection;
+        }, session -> isAutoCommit(opened.get(0)));
+
+        assertTrue(autoCommit);
+        assertTrue(opened.get(0).isClosed());
+    }
+
+    private static void insert(Session session, int id) {
+        session.execute("INSERT INTO template_test (id) VALUES (?)", id);
+    }
+
+    private static boolean isAutoCommit(Connection connection) {
+        try {
+            return connection.getAutoCommit();
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        }
+    }
+
+    private static List<Integer> ids() {
+        return TEMPLATE.executeReadOnly(JdbcTransactionTemplateTest::connection,
+                session -> session.queryForList("SELECT id FROM template_test ORDER BY id", ID_MAPPER));
+    }
+
+    private static Connection connection() {
+        try {
+            return DataSourceFactory.getInstance().getConnection();
+        } catch (SQLException exception) {
+            throw new CustomSqlException(exception);
+        }
+    }
+}
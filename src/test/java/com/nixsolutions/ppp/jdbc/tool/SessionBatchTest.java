@@ -0,0 +1,85 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SessionBatchTest {
+
+    private final static AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+
+    private final static String INSERT = "INSERT INTO item (name) VALUES (?)";
+
+    private final static String DELETE = "DELETE FROM item WHERE name = ?";
+
+    private Connection connection;
+
+    private Session session;
+
+    @BeforeEach
+    void openSession() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:session-batch" + DATABASE_NUMBER.incrementAndGet());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE item (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(32))");
+        }
+        session = SessionFactory.openSession(connection);
+    }
+
+    @AfterEach
+    void closeSession() {
+        session.close();
+    }
+
+    @Test
+    void batchIsSentOnceItReachesBatchSize() {
+        session.setBatchSize(2);
+
+        addItems("a", "b", "c");
+
+        assertEquals(2, countItems());
+        assertEquals(3, session.executeBatch());
+        assertEquals(3, countItems());
+    }
+
+    @Test
+    void rowOfAnotherQuerySendsPendingBatch() {
+        addItems("a", "b");
+        session.addBatch(DELETE, statement -> statement.setString(1, "a"));
+
+        assertEquals(2, countItems());
+        assertEquals(3, session.executeBatch());
+        assertEquals(1, countItems());
+    }
+
+    @Test
+    void batchReturnsKeysInOrderOfItems() {
+        session.setBatchSize(2);
+
+        List<Long> keys = session.executeBatchAndReturnKeys(INSERT, List.of("a", "b", "c"),
+                (statement, name) -> statement.setString(1, name));
+
+        assertEquals(List.of(1L, 2L, 3L), keys);
+        assertEquals(List.of("a", "b", "c"), session.queryForList(
+                "SELECT name FROM item ORDER BY id", (resultSet, rowNumber) -> resultSet.getString(1)));
+    }
+
+    private void addItems(String... names) {
+        for (String name : names) {
+            session.addBatch(INSERT, statement -> statement.setString(1, name));
+        }
+    }
+
+    private long countItems() {
+        return session.queryForObject("SELECT COUNT(*) FROM item",
+                (resultSet, rowNumber) -> resultSet.getLong(1)).orElseThrow();
+    }
+}
@@ -0,0 +1,95 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SessionMultiRowTest {
+
+    private final static AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+
+    private final static String INSERT = "INSERT INTO item (name) VALUES (?)";
+
+    private final static RowStatementSetter<String> NAME_SETTER =
+            (statement, name, offset) -> statement.setString(offset + 1, name);
+
+    private final Set<String> preparedQueries = ConcurrentHashMap.newKeySet();
+
+    private Session session;
+
+    @BeforeEach
+    void openSession() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:multi-row" + DATABASE_NUMBER.incrementAndGet());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE item (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(32))");
+        }
+        Connection recording = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement")) {
+                        preparedQueries.add((String) args[0]);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException exception) {
+                        throw exception.getCause();
+                    }
+                });
+        session = SessionFactory.openSession(StatementCache.attachTo(recording));
+        session.setRowsPerStatement(3);
+    }
+
+    @AfterEach
+    void closeSession() {
+        session.close();
+    }
+
+    @Test
+    void remainderIsSentInBatchOfSingleRowQuery() {
+        List<Long> keys = session.executeMultiRowAndReturnKeys(INSERT, names(7), NAME_SETTER);
+        int updateCount = session.executeMultiRow(INSERT, names(5), NAME_SETTER);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), keys);
+        assertEquals(5, updateCount);
+        assertEquals(names(7), session.queryForList("SELECT name FROM item WHERE id <= 7 ORDER BY id",
+                (resultSet, rowNumber) -> resultSet.getString(1)));
+        assertEquals(Set.of(INSERT, INSERT + ", (?), (?)"), preparedQueries.stream()
+                .filter(query -> query.startsWith("INSERT"))
+                .collect(Collectors.toSet()));
+    }
+
+    @Test
+    void rowMayContainParentheses() {
+        session.executeMultiRow("insert into item (name) values (lower(?))", List.of("A", "B", "C", "D"), NAME_SETTER);
+
+        assertEquals(List.of("a", "b", "c", "d"), session.queryForList("SELECT name FROM item ORDER BY id",
+                (resultSet, rowNumber) -> resultSet.getString(1)));
+    }
+
+    @Test
+    void queryMustEndWithValuesRow() {
+        assertThrows(IllegalArgumentException.class, () -> session.executeMultiRow(
+                "SELECT name FROM item", names(1), NAME_SETTER));
+        assertThrows(IllegalArgumentException.class, () -> session.executeMultiRow(
+                INSERT + " ON DUPLICATE KEY UPDATE name = 'x'", names(1), NAME_SETTER));
+    }
+
+    private static List<String> names(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(i -> "name" + i).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,89 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowQueryLogTest {
+
+    private final static Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+
+    private final SlowQueryLog log = SlowQueryLog.getInstance();
+
+    @AfterEach
+    void disableLog() {
+        log.setThresholdMillis(-1);
+        log.setSampleRate(0.1);
+    }
+
+    @Test
+    void fingerprintReplacesLiteralsAndCollapsesListsAndRows() {
+        assertEquals("SELECT * FROM user WHERE id IN (...) AND login = ? LIMIT ?",
+                SlowQueryLog.fingerprintOf("SELECT *\n FROM user WHERE id IN (?, ?, ?) AND login = 'it''s' LIMIT 10"));
+        assertEquals("INSERT INTO item (a, b) VALUES (?, ?), ...",
+                SlowQueryLog.fingerprintOf("INSERT INTO item (a, b) VALUES (?, ?), (?, ?), (?, ?)"));
+    }
+
+    @Test
+    void statementIsSlowFromThreshold() {
+        assertFalse(log.isSlow(Long.MAX_VALUE - 1));
+
+        log.setThresholdMillis(5);
+
+        assertFalse(log.isSlow(TimeUnit.MILLISECONDS.toNanos(5) - 1));
+        assertTrue(log.isSlow(TimeUnit.MILLISECONDS.toNanos(5)));
+    }
+
+    @Test
+    void slowStatementIsLoggedWithRedactedParams() throws InterruptedException {
+        BlockingQueue<LogRecord> records = new LinkedBlockingQueue<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        LOGGER.addHandler(handler);
+        try {
+            log.setSampleRate(1);
+
+            log.report("SELECT * FROM slow_test WHERE login = ? AND id = 42", TimeUnit.MILLISECONDS.toNanos(7),
+                    1, new Object[]{"secret", 42});
+
+            LogRecord record;
+            do { // statements of other threads may be slow as well
+                record = records.poll(10, TimeUnit.SECONDS);
+                assertNotNull(record);
+            } while (!record.getMessage().contains("slow_test"));
+            assertTrue(record.getMessage().contains("params: [<String(6)>, 42]"));
+            assertFalse(record.getMessage().contains("secret"));
+        } finally {
+            LOGGER.removeHandler(handler);
+        }
+        SlowQueryLog.FingerprintStatistics statistics = log.getSlowest().stream()
+                .filter(slowest -> slowest.getFingerprint().equals("SELECT * FROM slow_test WHERE login = ? AND id = ?"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, statistics.getCount());
+        assertEquals(7, statistics.getMaxMillis());
+    }
+}
@@ -0,0 +1,85 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementCacheTest {
+
+    private final static AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+
+    private Connection connection;
+
+    @BeforeEach
+    void openConnection() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:statement-cache" + DATABASE_NUMBER.incrementAndGet());
+    }
+
+    @AfterEach
+    void closeConnection() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void prepareReusesStatementWithParametersCleared() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 2);
+        PreparedStatement statement = cache.prepare("SELECT ?, ?");
+        statement.setInt(1, 1);
+        statement.setInt(2, 2);
+
+        PreparedStatement reused = cache.prepare("SELECT ?, ?");
+        reused.setInt(1, 1);
+
+        assertSame(statement, reused);
+        assertThrows(SQLException.class, reused::executeQuery);
+    }
+
+    @Test
+    void prepareCachesStatementsReturningKeysApart() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 2);
+
+        assertNotSame(cache.prepare("SELECT 1"),
+                cache.prepare("SELECT 1", Statement.RETURN_GENERATED_KEYS));
+    }
+
+    @Test
+    void leastRecentlyUsedStatementIsClosedBeyondCapacity() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 2);
+        PreparedStatement first = cache.prepare("SELECT 1");
+        PreparedStatement second = cache.prepare("SELECT 2");
+        cache.prepare("SELECT 1");
+
+        cache.prepare("SELECT 3");
+
+        assertTrue(second.isClosed());
+        assertFalse(first.isClosed());
+        assertNotSame(second, cache.prepare("SELECT 2"));
+    }
+
+    @Test
+    void attachedCacheOutlivesSessionsAndClosesWithConnection() throws SQLException {
+        Connection caching = StatementCache.attachTo(connection);
+        StatementCache cache = StatementCache.of(caching);
+        PreparedStatement statement = cache.prepare("SELECT 1");
+
+        assertSame(cache, StatementCache.of(caching));
+        assertSame(statement, StatementCache.of(caching).prepare("SELECT 1"));
+
+        caching.close();
+
+        assertTrue(statement.isClosed());
+    }
+}
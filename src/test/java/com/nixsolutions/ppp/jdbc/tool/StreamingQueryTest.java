@@ -0,0 +1,120 @@
+package com.nixsolutions.ppp.jdbc.tool;
+
+import com.nixsolutions.ppp.jdbc.exception.CustomSqlException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingQueryTest {
+
+    private final static AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+
+    private final static String FIND_ALL = "SELECT id FROM item ORDER BY id";
+
+    private final static String INSERT = "INSERT INTO item (id) VALUES (?)";
+
+    private final TransactionTemplate template = new JdbcTransactionTemplate();
+
+    private final List<Connection> opened = new ArrayList<>();
+
+    private Supplier<Connection> connections;
+
+    @BeforeEach
+    void createItems() throws SQLException {
+        String url = "jdbc:h2:mem:streaming" + DATABASE_NUMBER.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE item (id BIGINT PRIMARY KEY)");
+            statement.execute("INSERT INTO item SELECT X FROM SYSTEM_RANGE(1, 10)");
+        }
+        connections = () -> {
+            try {
+                Connection connection = DriverManager.getConnection(url);
+                opened.add(connection);
+                return connection;
+            } catch (SQLException exception) {
+                throw new CustomSqlException(exception);
+            }
+        };
+    }
+
+    @Test
+    void exhaustedStreamReleasesConnection() throws SQLException {
+        Stream<Long> stream = template.executeAndStream(connections, session -> {
+            session.setFetchSize(3);
+            return session.queryForStream(FIND_ALL, (resultSet, rowNumber) -> resultSet.getLong(1));
+        });
+
+        assertEquals(10, stream.count());
+        assertTrue(opened.get(0).isClosed());
+    }
+
+    @Test
+    void closedStreamCommitsAndReleasesConnection() throws SQLException {
+        try (Stream<Long> stream = template.executeAndStream(connections, session -> {
+            session.execute(INSERT, 11L);
+            return session.queryForStream(FIND_ALL, (resultSet, rowNumber) -> resultSet.getLong(1));
+        })) {
+            assertEquals(List.of(1L, 2L), stream.limit(2).collect(Collectors.toList()));
+            assertFalse(opened.get(0).isClosed());
+        }
+
+        assertTrue(opened.get(0).isClosed());
+        assertEquals(11L, countItems());
+    }
+
+    @Test
+    void failedStreamReleasesConnection() throws SQLException {
+        Stream<Long> stream = template.executeAndStream(connections,
+                session -> session.queryForStream(FIND_ALL, (resultSet, rowNumber) -> {
+                    throw new SQLException("Unmappable row");
+                }));
+
+        assertThrows(CustomSqlException.class, stream::count);
+        assertTrue(opened.get(0).isClosed());
+    }
+
+    @Test
+    void streamWithinTransactionKeepsItsConnection() throws SQLException {
+        long count = template.executeAndReturn(connections, session -> {
+            long rows = template.executeAndStream(connections,
+                    joined -> joined.queryForStream(FIND_ALL, (resultSet, rowNumber) -> resultSet.getLong(1)))
+                    .count();
+            session.execute(INSERT, 11L); // the connection of the transaction is still open
+            return rows;
+        });
+
+        assertEquals(10, count);
+        assertEquals(1, opened.size());
+        assertTrue(opened.get(0).isClosed());
+    }
+
+    @Test
+    void fetchSizeMustNotBeNegative() {
+        try (Session session = SessionFactory.openSession(connections.get())) {
+            session.setFetchSize(0);
+
+            assertThrows(IllegalArgumentException.class, () -> session.setFetchSize(-1));
+        }
+    }
+
+    private long countItems() {
+        return template.executeAndReturn(connections, session -> session.queryForObject(
+                "SELECT COUNT(*) FROM item", (resultSet, rowNumber) -> resultSet.getLong(1)).orElseThrow());
+    }
+}
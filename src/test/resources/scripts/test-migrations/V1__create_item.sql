@@ -0,0 +1,4 @@
+CREATE TABLE item (
+    id INT PRIMARY KEY,
+    name VARCHAR(50) NOT NULL
+);